@@ -0,0 +1,57 @@
+package com.example.ImageHub.bench;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.plan.ColorFilter;
+import com.example.ImageHub.utils.plan.Operation;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import com.example.ImageHub.utils.plan.TransformPlanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Plan de transformacion con y sin el pool de buffers de RasterBufferPool.
+ *
+ * Rota a resolucion completa y luego aplica un filtro, asi que cada invocacion
+ * pide rasters grandes. La diferencia esta en la asignacion y en el GC: se ve
+ * con el perfilador de JMH (-prof gc da gc.alloc.rate.norm y gc.count) y las
+ * pausas con -jvmArgsAppend "-Xlog:gc:file=..."; el README tiene una ejecucion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-Djava.awt.headless=true"})
+public class BufferPoolBenchmark {
+
+    @Param({"1920x1080", "4000x3000"})
+    public String resolution;
+
+    @Param({"true", "false"})
+    public boolean pooled;
+
+    private ImagePipeline pipeline;
+    private BufferedImage image;
+    private TransformPlan plan;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new ImagePipeline();
+        image = SyntheticCorpus.image(resolution);
+        plan = new TransformPlanner().plan(
+                List.of(Operation.rotate(15),
+                        Operation.resize(image.getWidth() * 9 / 10, image.getHeight() * 9 / 10),
+                        Operation.filter(ColorFilter.SEPIA)),
+                image.getWidth(), image.getHeight(), "png");
+    }
+
+    @Benchmark
+    public int execute() {
+        try (BufferScope scope = pooled ? pipeline.rasterBufferPool.openScope() : BufferScope.unpooled()) {
+            return plan.execute(image, scope).getWidth();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ImageHub.bench;
+
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Decodificacion y codificacion por formato a traves de ImageCodec, en memoria
+ * para que el disco no entre en la medicion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class CodecBenchmark {
+
+    @Param({"jpg", "png", "gif", "bmp"})
+    public String format;
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String resolution;
+
+    private ImagePipeline pipeline;
+    private BufferedImage image;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pipeline = new ImagePipeline();
+        image = SyntheticCorpus.image(resolution);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pipeline.imageCodec.encode(image, format, EncodeOptions.DEFAULT, output);
+        encoded = output.toByteArray();
+    }
+
+    @Benchmark
+    public BufferedImage decode() throws IOException {
+        return pipeline.imageCodec.decode(new ByteArrayInputStream(encoded));
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        return pipeline.imageCodec.encode(image, format, EncodeOptions.DEFAULT, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ImageHub.bench;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.impl.Crop;
+import com.example.ImageHub.utils.impl.Filter;
+import com.example.ImageHub.utils.impl.Format;
+import com.example.ImageHub.utils.impl.Resize;
+import com.example.ImageHub.utils.impl.Rotate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Componentes del pipeline montados a mano, sin contexto de Spring.
+ *
+ * Usa los mismos valores por defecto que application.properties salvo el
+ * presupuesto de decodificacion, que se amplia para que la resolucion mayor
+ * del corpus nunca espere turno.
+ */
+final class ImagePipeline {
+
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final RasterBufferPool rasterBufferPool = new RasterBufferPool(meterRegistry, 256, 8);
+    final ImageCodec imageCodec = new ImageCodec(meterRegistry,
+            new DecodeMemoryBudget(meterRegistry, 2048, 100, 5000));
+
+    final Resize resize = new Resize(imageCodec, rasterBufferPool);
+    final Crop crop = new Crop(imageCodec);
+    final Rotate rotate = new Rotate(imageCodec, rasterBufferPool);
+    final Filter filter = new Filter(imageCodec, rasterBufferPool);
+    final Format format = new Format(imageCodec);
+}
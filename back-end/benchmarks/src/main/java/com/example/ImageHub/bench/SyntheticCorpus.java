@@ -0,0 +1,82 @@
+package com.example.ImageHub.bench;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+/*
+ * Corpus sintetico y determinista para los benchmarks.
+ *
+ * Cada resolucion genera siempre los mismos pixeles (semilla fija derivada del
+ * tamaño): degradados suaves, bloques de color y algo de ruido, para que los
+ * codecs no trabajen ni sobre un color plano ni sobre ruido puro. Asi los
+ * resultados son comparables entre commits y entre maquinas.
+ */
+public final class SyntheticCorpus {
+
+    private static final long SEED = 0x1A6E_4B0BL;
+
+    private SyntheticCorpus() {
+    }
+
+    // "1920x1080" -> {1920, 1080}
+    public static int[] parse(String resolution) {
+        String[] parts = resolution.toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Resolucion invalida: " + resolution);
+        }
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    public static BufferedImage image(String resolution) {
+        int[] size = parse(resolution);
+        return image(size[0], size[1]);
+    }
+
+    public static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Random random = new Random(SEED ^ ((long) width << 32 | height));
+
+        // Bloques de color que dan bordes y zonas planas
+        int blocks = 24;
+        int[] blockX = new int[blocks];
+        int[] blockY = new int[blocks];
+        int[] blockSize = new int[blocks];
+        int[] blockColor = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockX[i] = random.nextInt(width);
+            blockY[i] = random.nextInt(height);
+            blockSize[i] = 1 + random.nextInt(Math.max(1, Math.min(width, height) / 4));
+            blockColor[i] = random.nextInt(0x1000000);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int color = -1;
+                for (int i = 0; i < blocks; i++) {
+                    if (Math.abs(x - blockX[i]) < blockSize[i] && Math.abs(y - blockY[i]) < blockSize[i]) {
+                        color = blockColor[i];
+                        break;
+                    }
+                }
+                if (color < 0) {
+                    int r = x * 255 / width;
+                    int g = y * 255 / height;
+                    int b = (x + y) * 255 / (width + height);
+                    color = r << 16 | g << 8 | b;
+                }
+                int noise = random.nextInt(9) - 4;
+                pixels[row + x] = clamp((color >> 16 & 0xff) + noise) << 16
+                        | clamp((color >> 8 & 0xff) + noise) << 8
+                        | clamp((color & 0xff) + noise);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ImageHub.bench;
+
+import com.example.ImageHub.dto.imgDTO.Crop;
+import com.example.ImageHub.dto.imgDTO.Filters;
+import com.example.ImageHub.dto.imgDTO.Resize;
+import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Cada implementacion de ImageTransform sobre el corpus sintetico.
+ *
+ * Las estrategias trabajan sobre el archivo en disco (decodifican, transforman y
+ * vuelven a codificar), asi que cada invocacion parte de una copia limpia del
+ * JPEG de entrada; la copia queda fuera de la medicion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class TransformBenchmark {
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String resolution;
+
+    private ImagePipeline pipeline;
+    private Path dir;
+    private Path source;
+    private Path work;
+
+    private TransformRequestDto resizeRequest;
+    private TransformRequestDto cropRequest;
+    private TransformRequestDto rotateRequest;
+    private TransformRequestDto filterRequest;
+    private TransformRequestDto formatRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pipeline = new ImagePipeline();
+        dir = Files.createTempDirectory("imagehub-bench");
+        source = dir.resolve("source.jpg");
+        work = dir.resolve("work.jpg");
+        pipeline.imageCodec.encode(SyntheticCorpus.image(resolution), "jpg", EncodeOptions.DEFAULT, source.toFile());
+
+        int[] size = SyntheticCorpus.parse(resolution);
+        resizeRequest = TransformRequestDto.builder()
+                .resize(new Resize(size[0] / 2, size[1] / 2))
+                .build();
+        cropRequest = TransformRequestDto.builder()
+                .crop(new Crop(size[0] / 2, size[1] / 2, size[0] / 4, size[1] / 4))
+                .build();
+        rotateRequest = TransformRequestDto.builder()
+                .rotate(90)
+                .build();
+        filterRequest = TransformRequestDto.builder()
+                .filters(new Filters(false, true))
+                .build();
+        formatRequest = TransformRequestDto.builder()
+                .format("png")
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void copySource() throws IOException {
+        Files.copy(source, work, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void resize() throws IOException {
+        pipeline.resize.transform(work.toString(), resizeRequest);
+    }
+
+    @Benchmark
+    public void crop() throws IOException {
+        pipeline.crop.transform(work.toString(), cropRequest);
+    }
+
+    @Benchmark
+    public void rotate() throws IOException {
+        pipeline.rotate.transform(work.toString(), rotateRequest);
+    }
+
+    @Benchmark
+    public void filter() throws IOException {
+        pipeline.filter.transform(work.toString(), filterRequest);
+    }
+
+    @Benchmark
+    public void format() throws IOException {
+        pipeline.format.transform(work.toString(), formatRequest);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ImageHub.bench;
+
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Codificacion WebP frente a png y jpg sobre la misma imagen. Va aparte de
+ * CodecBenchmark porque el servidor escribe WebP pero ImageIO no trae lector,
+ * asi que no hay decodificacion que medir.
+ *
+ * Ademas del tiempo, cada formato informa el tamano codificado en la columna
+ * encode:encodedBytes, para comparar lo que cuesta WebP con lo que ahorra.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class WebPEncodeBenchmark {
+
+    @Param({"webp", "png", "jpg"})
+    public String format;
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String resolution;
+
+    private ImagePipeline pipeline;
+    private BufferedImage image;
+
+    // Tamano de la ultima codificacion; la salida es determinista, asi que es el de todas
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipeline = new ImagePipeline();
+        image = SyntheticCorpus.image(resolution);
+    }
+
+    @Benchmark
+    public long encode(EncodedSize size) throws IOException {
+        size.encodedBytes = pipeline.imageCodec.encode(image, format, EncodeOptions.DEFAULT, OutputStream.nullOutputStream());
+        return size.encodedBytes;
+    }
+}
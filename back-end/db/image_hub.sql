@@ -44,6 +44,7 @@ CREATE TABLE IF NOT EXISTS image_data (
     DESCRIPCION VARCHAR(500),
     FECHA_REGISTRO TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FECHA_ACTUALIZACION TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    BLURHASH VARCHAR(100),
     CREATED_BY VARCHAR(100),
     CREATED_DATE TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     LAST_MODIFIED_BY VARCHAR(100),
@@ -67,6 +68,10 @@ COMMENT ON COLUMN image_data.RUTA_DE_TRANSFORMACION IS 'Ruta de la imagen transf
 COMMENT ON COLUMN image_data.DESCRIPCION IS 'Descripción opcional de la imagen';
 COMMENT ON COLUMN image_data.FECHA_REGISTRO IS 'Fecha y hora cuando se subió la imagen';
 COMMENT ON COLUMN image_data.FECHA_ACTUALIZACION IS 'Fecha y hora de última actualización de metadata';
+COMMENT ON COLUMN image_data.BLURHASH IS 'Marcador BlurHash calculado al subir la imagen';
+
+-- Bases creadas antes de la columna BLURHASH
+ALTER TABLE image_data ADD COLUMN IF NOT EXISTS BLURHASH VARCHAR(100);
 
 CREATE INDEX idx_image_user_name ON image_data(USER_NAME);
 CREATE INDEX idx_image_fecha_registro ON image_data(FECHA_REGISTRO);
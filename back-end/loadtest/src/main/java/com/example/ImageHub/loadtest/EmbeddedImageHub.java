@@ -0,0 +1,107 @@
+package com.example.ImageHub.loadtest;
+
+import com.example.ImageHub.ImageHubApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/*
+ * Instancia de ImageHub en el mismo proceso, lista para la prueba de carga.
+ *
+ * Sin --db-url usa H2 en memoria en modo PostgreSQL con el esquema generado por
+ * Hibernate (db/image_hub.sql es un script de trabajo, no se puede ejecutar
+ * tal cual). Con --db-url apunta a un PostgreSQL real, por ejemplo uno local.
+ * El correo va a StubEmailService y todos los directorios de imagenes a un
+ * temporal que se borra al cerrar.
+ */
+final class EmbeddedImageHub implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path dataDir;
+
+    private EmbeddedImageHub(ConfigurableApplicationContext context, Path dataDir) {
+        this.context = context;
+        this.dataDir = dataDir;
+    }
+
+    static EmbeddedImageHub start(LoadTestOptions options) throws IOException {
+        Path dataDir = Files.createTempDirectory("imagehub-loadtest");
+        byte[] jwtKey = new byte[32];
+        new SecureRandom().nextBytes(jwtKey);
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (options.dbUrl == null) {
+            properties.put("spring.datasource.url", "jdbc:h2:mem:imagehub;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                    + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+            properties.put("spring.datasource.username", "sa");
+            properties.put("spring.datasource.password", "");
+            properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+            properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        } else {
+            properties.put("spring.datasource.url", options.dbUrl);
+            properties.put("spring.datasource.username", options.dbUser == null ? "" : options.dbUser);
+            properties.put("spring.datasource.password", options.dbPassword == null ? "" : options.dbPassword);
+            properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        }
+        properties.put("spring.main.allow-bean-definition-overriding", "true");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("server.port", "0");
+        properties.put("jwt.secret.key", Base64.getEncoder().encodeToString(jwtKey));
+        properties.put("sendgrid.api.key", "stub");
+        properties.put("user.name.email", "loadtest@imagehub.local");
+        properties.put("logging.level.root", "WARN");
+        for (String property : List.of("image.input.path", "image.output.path", "image.render.cache-dir",
+                "image.blob.dir", "image.sprite.cache-dir", "image.export.cache-dir", "image.upload.resumable.dir",
+                "image.jfr.dir")) {
+            Path dir = Files.createDirectories(dataDir.resolve(property.substring("image.".length())));
+            properties.put(property, dir.toString());
+        }
+        // Las opciones del usuario sobrescriben las anteriores (repetir una clave en la
+        // linea de comandos no la reemplaza: Spring junta los valores con comas)
+        for (String arg : options.applicationArgs) {
+            int equals = arg.indexOf('=');
+            properties.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                ImageHubApplication.class, StubEmailConfiguration.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args);
+        return new EmbeddedImageHub(context, dataDir);
+    }
+
+    URI baseUri() {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return URI.create("http://localhost:" + port);
+    }
+
+    long emailsSent() {
+        return context.getBean(StubEmailService.class).getSent();
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
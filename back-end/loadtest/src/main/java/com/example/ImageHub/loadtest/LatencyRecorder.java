@@ -0,0 +1,76 @@
+package com.example.ImageHub.loadtest;
+
+import java.util.Arrays;
+
+/*
+ * Latencias de un endpoint durante la ventana de medicion.
+ *
+ * Guarda cada muestra (una prueba de minutos a pocos cientos de peticiones por
+ * segundo cabe de sobra) para que p99.9 sea exacto y no una estimacion por cubetas.
+ * Las latencias se cuentan desde el instante en que la peticion debia salir, no
+ * desde que salio: si el servidor se atasca, la espera acumulada aparece en los
+ * percentiles en lugar de esconderse.
+ */
+final class LatencyRecorder {
+
+    private final String endpoint;
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long dropped;
+
+    LatencyRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    // Respuesta 2xx: entra en los percentiles
+    synchronized void success(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    // Respuesta de error o fallo de conexion
+    synchronized void error() {
+        errors++;
+    }
+
+    // Peticion no enviada porque ya habia max-in-flight en curso
+    synchronized void dropped() {
+        dropped++;
+    }
+
+    synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long requests = count + errors + dropped;
+        return new Summary(
+                endpoint,
+                requests,
+                errors,
+                dropped,
+                requests == 0 ? 0 : (double) (errors + dropped) / requests,
+                count / seconds,
+                millis(percentile(sorted, 0.50)),
+                millis(percentile(sorted, 0.99)),
+                millis(percentile(sorted, 0.999)),
+                millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    record Summary(String endpoint, long requests, long errors, long dropped, double errorRate,
+                   double throughput, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+}
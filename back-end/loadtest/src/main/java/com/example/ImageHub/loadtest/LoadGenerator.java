@@ -0,0 +1,249 @@
+package com.example.ImageHub.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Genera carga abierta contra /api/v1/images a un ritmo fijo.
+ *
+ * Cada peticion tiene un instante de salida planificado (inicio + i / rate) y se
+ * lanza en un hilo virtual aunque las anteriores no hayan terminado, como harian
+ * clientes independientes. Si el servidor no da abasto las colas crecen y se ven
+ * en la latencia; con max-in-flight en curso, las nuevas se descartan y cuentan
+ * como error. La secuencia de operaciones y usuarios sale de una semilla fija,
+ * asi que dos ejecuciones con las mismas opciones envian la misma mezcla.
+ */
+final class LoadGenerator {
+
+    private static final String IMAGES = "/api/v1/images";
+    private static final int IMAGE_VARIANTS = 16;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final URI base;
+    private final LoadTestOptions options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<VirtualUser> users = new ArrayList<>();
+    private final List<byte[]> images = new ArrayList<>();
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+
+    // Usuario de la prueba con su token y las imagenes que ya ha subido
+    private record VirtualUser(String email, String token, List<String> imageIds) {
+    }
+
+    LoadGenerator(URI base, LoadTestOptions options) {
+        this.base = base;
+        this.options = options;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder(operation.endpoint()));
+        }
+    }
+
+    // Registra los usuarios y sube las imagenes iniciales; nada de esto se mide
+    void prepare() throws IOException, InterruptedException {
+        for (int i = 0; i < IMAGE_VARIANTS; i++) {
+            images.add(sampleJpeg(options.imageWidth, options.imageHeight, options.seed + i));
+        }
+
+        for (int i = 0; i < options.users; i++) {
+            VirtualUser user = authenticate("loadtest-" + i + "@imagehub.local");
+            users.add(user);
+            for (int j = 0; j < options.seedImages; j++) {
+                if (upload(user, images.get((i + j) % images.size())) / 100 != 2) {
+                    throw new IOException("No se pudo subir la imagen inicial de " + user.email());
+                }
+            }
+        }
+    }
+
+    LoadReport run() throws InterruptedException {
+        List<Operation> operations = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : options.mix.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                operations.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(options.seed);
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+        long interval = (long) (1_000_000_000L / options.rate);
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmupSeconds * 1_000_000_000L;
+        long end = measureFrom + options.durationSeconds * 1_000_000_000L;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + i * interval;
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                int pick = random.nextInt(total);
+                int index = 0;
+                while (cumulative.get(index) <= pick) {
+                    index++;
+                }
+                Operation operation = operations.get(index);
+                VirtualUser user = users.get(random.nextInt(users.size()));
+                int variant = random.nextInt(images.size());
+                int imagePick = random.nextInt(Integer.MAX_VALUE);
+                LatencyRecorder recorder = scheduled >= measureFrom ? recorders.get(operation) : null;
+
+                if (!inFlight.tryAcquire()) {
+                    if (recorder != null) {
+                        recorder.dropped();
+                    }
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        int status = execute(operation, user, variant, imagePick);
+                        if (recorder != null) {
+                            if (status / 100 == 2) {
+                                recorder.success(System.nanoTime() - scheduled);
+                            } else {
+                                recorder.error();
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        if (recorder != null) {
+                            recorder.error();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        List<LatencyRecorder.Summary> summaries = new ArrayList<>();
+        for (LatencyRecorder recorder : recorders.values()) {
+            summaries.add(recorder.summarize(options.durationSeconds));
+        }
+        return new LoadReport(options, summaries);
+    }
+
+    private int execute(Operation operation, VirtualUser user, int variant, int imagePick)
+            throws IOException, InterruptedException {
+
+        List<String> imageIds = user.imageIds();
+        String imageId = imageIds.get(imagePick % imageIds.size());
+        return switch (operation) {
+            case UPLOAD -> upload(user, images.get(variant));
+            case LIST -> send(authorized(user, IMAGES + "/user/all?page=0&size=20").GET().build());
+            case TRANSFORM -> send(authorized(user, IMAGES + "/" + imageId + "/transform")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"resize\":{\"width\":"
+                            + options.imageWidth / 2 + ",\"height\":" + options.imageHeight / 2 + "}}"))
+                    .build());
+            case DOWNLOAD -> send(authorized(user, IMAGES + "/" + imageId + "/download?type=input").GET().build());
+        };
+    }
+
+    private int upload(VirtualUser user, byte[] image) throws IOException, InterruptedException {
+        String boundary = "----imagehub-loadtest";
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(image);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<byte[]> response = client.send(authorized(user, IMAGES + "/upload")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 == 2) {
+            user.imageIds().add(objectMapper.readTree(response.body()).path("data").path("id").asText());
+        }
+        return response.statusCode();
+    }
+
+    // Registra el usuario; si ya existe (p. ej. contra --target), inicia sesion
+    private VirtualUser authenticate(String email) throws IOException, InterruptedException {
+        String password = "LoadTest-" + options.seed;
+        String register = objectMapper.writeValueAsString(Map.of(
+                "firstName", "Carga", "lastName", "Prueba", "email", email, "password", password, "role", "USER"));
+        HttpResponse<String> response = post("/api/auth/register", register);
+        if (response.statusCode() / 100 != 2) {
+            response = post("/api/auth/login", objectMapper.writeValueAsString(Map.of("email", email, "password", password)));
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("No se pudo autenticar " + email + ": HTTP " + response.statusCode());
+        }
+        JsonNode auth = objectMapper.readTree(response.body());
+        return new VirtualUser(email, auth.path("token").asText(), new CopyOnWriteArrayList<>());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(base.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder authorized(VirtualUser user, String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + user.token());
+    }
+
+    // El cuerpo se lee entero (como un cliente real) pero no se guarda
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // JPEG determinista: degradado con ruido para que el codec trabaje como con una foto
+    static byte[] sampleJpeg(int width, int height, long seed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(seed);
+        int tint = random.nextInt(0x1000000);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(16);
+                int r = (x * 255 / width + (tint >> 16 & 0xff) + noise) & 0xff;
+                int g = (y * 255 / height + (tint >> 8 & 0xff) + noise) & 0xff;
+                int b = ((x + y) * 255 / (width + height) + (tint & 0xff) + noise) & 0xff;
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
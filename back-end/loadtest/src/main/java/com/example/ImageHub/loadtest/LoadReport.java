@@ -0,0 +1,62 @@
+package com.example.ImageHub.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resultado de una ejecucion: tabla por consola y JSON para comparar ejecuciones
+final class LoadReport {
+
+    private final LoadTestOptions options;
+    private final List<LatencyRecorder.Summary> endpoints;
+
+    LoadReport(LoadTestOptions options, List<LatencyRecorder.Summary> endpoints) {
+        this.options = options;
+        this.endpoints = endpoints;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%nRitmo objetivo %.1f req/s, medicion %d s tras %d s de calentamiento%n",
+                options.rate, options.durationSeconds, options.warmupSeconds);
+        out.printf("%-22s %9s %9s %8s %10s %10s %10s %10s%n",
+                "endpoint", "peticion", "req/s", "error%", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (LatencyRecorder.Summary summary : endpoints) {
+            if (summary.requests() == 0) {
+                continue;
+            }
+            out.printf("%-22s %9d %9.1f %8.2f %10.1f %10.1f %10.1f %10.1f%n",
+                    summary.endpoint(), summary.requests(), summary.throughput(), summary.errorRate() * 100,
+                    summary.p50Ms(), summary.p99Ms(), summary.p999Ms(), summary.maxMs());
+        }
+        long requests = endpoints.stream().mapToLong(LatencyRecorder.Summary::requests).sum();
+        double throughput = endpoints.stream().mapToDouble(LatencyRecorder.Summary::throughput).sum();
+        long failed = endpoints.stream().mapToLong(summary -> summary.errors() + summary.dropped()).sum();
+        out.printf("%-22s %9d %9.1f %8.2f%n", "total", requests, throughput,
+                requests == 0 ? 0 : failed * 100.0 / requests);
+    }
+
+    void write(Path file) throws IOException {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", options.rate);
+        settings.put("durationSeconds", options.durationSeconds);
+        settings.put("warmupSeconds", options.warmupSeconds);
+        settings.put("users", options.users);
+        settings.put("imageSize", options.imageWidth + "x" + options.imageHeight);
+        settings.put("mix", options.mix);
+        settings.put("target", options.target == null ? "embedded" : options.target);
+        settings.put("applicationArgs", options.applicationArgs);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("endpoints", endpoints);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+    }
+}
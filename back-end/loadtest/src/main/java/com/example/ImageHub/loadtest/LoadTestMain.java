@@ -0,0 +1,39 @@
+package com.example.ImageHub.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/*
+ * Prueba de carga extremo a extremo de ImageHub.
+ *
+ * Sin --target arranca la aplicacion en este mismo proceso (EmbeddedImageHub),
+ * sin red ni servicios externos; con --target=http://host:puerto ataca una
+ * instancia ya desplegada. Ver README.md para las opciones.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        try (EmbeddedImageHub server = options.target == null ? EmbeddedImageHub.start(options) : null) {
+            URI base = server != null ? server.baseUri() : URI.create(options.target);
+            System.out.println("ImageHub en " + base);
+
+            LoadGenerator generator = new LoadGenerator(base, options);
+            generator.prepare();
+            System.out.printf("%d usuarios con %d imagenes cada uno; calentando %d s y midiendo %d s%n",
+                    options.users, options.seedImages, options.warmupSeconds, options.durationSeconds);
+
+            LoadReport report = generator.run();
+            report.print(System.out);
+            report.write(Path.of(options.report));
+            if (server != null) {
+                System.out.println("Correos de bienvenida capturados por el stub: " + server.emailsSent());
+            }
+            System.out.println("Informe guardado en " + options.report);
+        }
+    }
+}
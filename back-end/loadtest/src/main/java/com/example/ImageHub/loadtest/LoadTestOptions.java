@@ -0,0 +1,92 @@
+package com.example.ImageHub.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Opciones de la prueba de carga, en formato --clave=valor.
+ *
+ * Las claves que no son de la prueba (por ejemplo --image.decode-budget.megabytes=256)
+ * se pasan tal cual a la instancia embebida, para comparar configuraciones de
+ * capacidad sin tocar application.properties.
+ */
+final class LoadTestOptions {
+
+    double rate = 20;
+    int durationSeconds = 60;
+    int warmupSeconds = 10;
+    int users = 8;
+    int seedImages = 4;
+    int imageWidth = 1024;
+    int imageHeight = 768;
+    int maxInFlight = 512;
+    long seed = 42;
+    String target;
+    String dbUrl;
+    String dbUser;
+    String dbPassword;
+    String report = "loadtest-report.json";
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    final List<String> applicationArgs = new ArrayList<>();
+
+    LoadTestOptions() {
+        mix.put(Operation.UPLOAD, 10);
+        mix.put(Operation.LIST, 40);
+        mix.put(Operation.TRANSFORM, 20);
+        mix.put(Operation.DOWNLOAD, 30);
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Opcion invalida (se espera --clave=valor): " + arg);
+            }
+            String key = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            switch (key) {
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "seed-images" -> options.seedImages = Integer.parseInt(value);
+                case "image-size" -> {
+                    String[] size = value.toLowerCase().split("x");
+                    options.imageWidth = Integer.parseInt(size[0]);
+                    options.imageHeight = Integer.parseInt(size[1]);
+                }
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "mix" -> options.parseMix(value);
+                case "target" -> options.target = value.replaceAll("/+$", "");
+                case "db-url" -> options.dbUrl = value;
+                case "db-user" -> options.dbUser = value;
+                case "db-password" -> options.dbPassword = value;
+                case "report" -> options.report = value;
+                default -> options.applicationArgs.add(arg);
+            }
+        }
+        if (options.rate <= 0 || options.durationSeconds <= 0 || options.users <= 0 || options.seedImages <= 0) {
+            throw new IllegalArgumentException("rate, duration, users y seed-images deben ser mayores a 0");
+        }
+        return options;
+    }
+
+    // "upload=10,list=40,transform=20,download=30"; las operaciones omitidas quedan con peso 0
+    private void parseMix(String value) {
+        mix.replaceAll((operation, weight) -> 0);
+        for (String part : value.split(",")) {
+            String[] entry = part.split("=");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Mezcla invalida: " + value);
+            }
+            mix.put(Operation.valueOf(entry[0].trim().toUpperCase()), Integer.parseInt(entry[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("La mezcla debe tener al menos una operacion con peso");
+        }
+    }
+}
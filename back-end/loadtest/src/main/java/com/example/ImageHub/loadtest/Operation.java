@@ -0,0 +1,19 @@
+package com.example.ImageHub.loadtest;
+
+// Operaciones de la mezcla; el nombre es el endpoint que aparece en el informe
+enum Operation {
+    UPLOAD("POST /upload"),
+    LIST("GET /user/all"),
+    TRANSFORM("POST /{id}/transform"),
+    DOWNLOAD("GET /{id}/download");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ImageHub.loadtest;
+
+import com.example.ImageHub.service.EmailService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Reemplaza el bean emailService de la aplicacion (requiere spring.main.allow-bean-definition-overriding)
+@Configuration(proxyBeanMethods = false)
+public class StubEmailConfiguration {
+
+    @Bean
+    public EmailService emailService() {
+        return new StubEmailService();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.ImageHub.loadtest;
+
+import com.example.ImageHub.model.User;
+import com.example.ImageHub.service.EmailService;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sustituye el envio por SendGrid: solo cuenta los correos para que la prueba funcione sin red
+public class StubEmailService extends EmailService {
+
+    private final AtomicLong sent = new AtomicLong();
+
+    @Override
+    public void sendWelcomeEmail(User user) {
+        sent.incrementAndGet();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+}
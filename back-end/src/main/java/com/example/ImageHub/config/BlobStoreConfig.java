@@ -0,0 +1,22 @@
+package com.example.ImageHub.config;
+
+import com.example.ImageHub.utils.blob.BlobSegmentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class BlobStoreConfig {
+
+    // Segmentos de blobs pequenos (miniaturas y derivadas) compartidos por los servicios de render
+    @Bean(destroyMethod = "close")
+    public BlobSegmentStore blobSegmentStore(
+            @Value("${image.blob.dir:${java.io.tmpdir}/imagehub-blobs}") String dir,
+            @Value("${image.blob.segment-megabytes:64}") long segmentMegabytes) throws IOException {
+
+        return new BlobSegmentStore(Paths.get(dir), segmentMegabytes * 1024 * 1024);
+    }
+}
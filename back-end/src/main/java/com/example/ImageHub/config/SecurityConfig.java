@@ -1,8 +1,10 @@
 package com.example.ImageHub.config;
 
 import com.example.ImageHub.security.JwtAuthenticationFilter;
+import com.example.ImageHub.service.SignedUrlService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -43,6 +45,9 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll() // Endpoints públicos
                         .requestMatchers("/api/admin/**").hasRole("ADMIN") // Solo admin
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Sondeo y scraping
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, SignedUrlService.RENDER_PREFIX + "*").permitAll() // Renders firmados
 
                         // AUTORIZACION PARA LA DOCUMENTACION CON SWAGGER
                         .requestMatchers(
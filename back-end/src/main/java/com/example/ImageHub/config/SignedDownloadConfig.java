@@ -0,0 +1,24 @@
+package com.example.ImageHub.config;
+
+import com.example.ImageHub.security.SignedDownloadFilter;
+import com.example.ImageHub.service.SignedUrlService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SignedDownloadConfig {
+
+    // Se registra antes que Spring Security: las URLs firmadas no pasan por el filtro JWT
+    @Bean
+    public FilterRegistrationBean<SignedDownloadFilter> signedDownloadFilter(SignedUrlService signedUrlService,
+                                                                             MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SignedDownloadFilter> registration =
+                new FilterRegistrationBean<>(new SignedDownloadFilter(signedUrlService, meterRegistry));
+        registration.addUrlPatterns(SignedUrlService.PATH_PREFIX + "*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
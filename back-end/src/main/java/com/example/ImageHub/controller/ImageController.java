@@ -1,25 +1,56 @@
 package com.example.ImageHub.controller;
 
 import com.example.ImageHub.dto.imgDTO.ApiResponse;
+import com.example.ImageHub.dto.imgDTO.BatchTransformRequestDto;
 import com.example.ImageHub.dto.imgDTO.ImageResponse;
+import com.example.ImageHub.dto.imgDTO.SignedUrlResponse;
+import com.example.ImageHub.dto.imgDTO.SpriteSheetResponse;
+import com.example.ImageHub.dto.imgDTO.TransformPipelineRequestDto;
+import com.example.ImageHub.dto.imgDTO.TransformPlanResponse;
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.service.BatchTransformService;
+import com.example.ImageHub.service.DerivativeService;
+import com.example.ImageHub.service.ExportService;
 import com.example.ImageHub.service.FileStorageService;
 import com.example.ImageHub.service.ImageProcService;
+import com.example.ImageHub.service.ImportService;
+import com.example.ImageHub.service.PreviewService;
+import com.example.ImageHub.service.RenderService;
+import com.example.ImageHub.service.SignedUrlService;
+import com.example.ImageHub.service.SpriteService;
+import com.example.ImageHub.service.TileService;
+import com.example.ImageHub.service.UploadSessionService;
+import com.example.ImageHub.utils.plan.ClientHints;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -27,15 +58,56 @@ import java.util.UUID;
 @CrossOrigin(origins = "*")
 public class ImageController {
 
+    // Cabeceras del protocolo de subidas reanudables (tus 1.0.0)
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_METADATA = "Upload-Metadata";
 
     private final FileStorageService fileStorageService;
 
     private final ImageProcService imageProcService;
 
+    private final RenderService renderService;
 
-    public ImageController(FileStorageService fileStorageService, ImageProcService imageProcService) {
+    private final BatchTransformService batchTransformService;
+
+    private final PreviewService previewService;
+
+    private final DerivativeService derivativeService;
+
+    private final TileService tileService;
+
+    private final SpriteService spriteService;
+
+    private final ExportService exportService;
+
+    private final ImportService importService;
+
+    private final UploadSessionService uploadSessionService;
+
+    private final SignedUrlService signedUrlService;
+
+
+    public ImageController(FileStorageService fileStorageService, ImageProcService imageProcService,
+                           RenderService renderService, BatchTransformService batchTransformService,
+                           PreviewService previewService, DerivativeService derivativeService,
+                           TileService tileService, SpriteService spriteService, ExportService exportService,
+                           ImportService importService, UploadSessionService uploadSessionService,
+                           SignedUrlService signedUrlService) {
         this.fileStorageService = fileStorageService;
         this.imageProcService = imageProcService;
+        this.renderService = renderService;
+        this.batchTransformService = batchTransformService;
+        this.previewService = previewService;
+        this.derivativeService = derivativeService;
+        this.tileService = tileService;
+        this.spriteService = spriteService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.uploadSessionService = uploadSessionService;
+        this.signedUrlService = signedUrlService;
     }
 
     /**
@@ -54,6 +126,7 @@ public class ImageController {
                     .id(UUID.fromString(imageId))
                     .userName(userName)
                     .imageName(file.getOriginalFilename())
+                    .presetUrls(derivativeService.presetUrls(UUID.fromString(imageId)))
                     .build();
 
             log.info("Imagen subida exitosamente por usuario: {}", userName);
@@ -73,20 +146,131 @@ public class ImageController {
     }
 
     /**
-     * Obtiene una imagen (original o transformada)
+     * Crea una subida reanudable (estilo tus). Upload-Length es el tamano total y
+     * Upload-Metadata lleva "filename <nombre en base64>". La URL de la sesion va en Location.
+     * Los errores de validacion los responde GlobalExceptionHandler.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<Void> createUpload(
+            @RequestHeader(UPLOAD_LENGTH) long length,
+            @RequestHeader(UPLOAD_METADATA) String metadata,
+            Authentication authentication) throws IOException {
+
+        UploadSessionService.Session session = uploadSessionService.create(
+                authentication.getName(), uploadFileName(metadata), length);
+
+        return ResponseEntity.created(URI.create("/api/v1/images/uploads/" + session.id()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .build();
+    }
+
+    /**
+     * Offset confirmado de una subida reanudable: el cliente continua desde ahi.
+     */
+    @RequestMapping(value = "/uploads/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> uploadOffset(@PathVariable String uploadId, Authentication authentication)
+            throws IOException {
+
+        UploadSessionService.Session session = uploadSessionService.get(authentication.getName(), uploadId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.offset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.length()))
+                .build();
+    }
+
+    /**
+     * Envia un bloque (application/offset+octet-stream) que empieza en Upload-Offset.
+     * Un offset distinto al confirmado responde 409 con el offset correcto.
+     */
+    @PatchMapping(value = "/uploads/{uploadId}", consumes = "application/offset+octet-stream")
+    public ResponseEntity<Void> appendUpload(
+            @PathVariable String uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        UploadSessionService.Session session = uploadSessionService.append(
+                authentication.getName(), uploadId, offset, request.getInputStream());
+
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.offset()))
+                .build();
+    }
+
+    /**
+     * Termina una subida reanudable completa y registra la imagen como /upload.
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<ImageResponse>> completeUpload(
+            @PathVariable String uploadId,
+            Authentication authentication) {
+
+        try {
+            String userName = authentication.getName();
+            UploadSessionService.Session session = uploadSessionService.get(userName, uploadId);
+            String imageId = uploadSessionService.complete(userName, uploadId);
+
+            ImageResponse response = ImageResponse.builder()
+                    .id(UUID.fromString(imageId))
+                    .userName(userName)
+                    .imageName(session.fileName())
+                    .presetUrls(derivativeService.presetUrls(UUID.fromString(imageId)))
+                    .build();
+
+            log.info("Subida reanudable completada por usuario: {}", userName);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success(response, "Imagen subida exitosamente"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error al guardar imagen: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), "Error al guardar imagen"));
+        }
+    }
+
+    /**
+     * Cancela una subida reanudable y libera su espacio.
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> deleteUpload(@PathVariable String uploadId, Authentication authentication)
+            throws IOException {
+
+        uploadSessionService.delete(authentication.getName(), uploadId);
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    /**
+     * Obtiene una imagen (original o transformada).
+     * La original se negocia con Accept y las client hints (Width, DPR, Save-Data):
+     * se sirve el formato y ancho mas compactos que el cliente puede mostrar.
      */
     @GetMapping("/{imageId}/download")
     public ResponseEntity<Resource> downloadImage(
             @PathVariable String imageId,
-            @RequestParam(defaultValue = "input") String type) {
+            @RequestParam(defaultValue = "input") String type,
+            WebRequest webRequest,
+            Authentication authentication) {
 
         try {
+            if (type.equals("input")) {
+                return negotiatedImage(authentication.getName(), imageId, webRequest);
+            }
+
             Resource resource = fileStorageService.getFile(imageId, type);
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment; filename=\"" + resource.getFilename() + "\"")
-                    .header("Content-Type", "image/png") // o detectar dinámicamente
+                    .contentType(MediaType.parseMediaType(RenderService.contentType(extension(resource.getFilename()))))
                     .body(resource);
 
         } catch (IOException e) {
@@ -95,6 +279,222 @@ public class ImageController {
         }
     }
 
+    /**
+     * Emite una URL firmada y de corta duracion para descargar la imagen sin JWT.
+     * La URL se sirve directamente desde disco, sin cadena de seguridad ni consultas a la BD.
+     */
+    @PostMapping("/{imageId}/signed-url")
+    public ResponseEntity<ApiResponse<SignedUrlResponse>> signedUrl(
+            @PathVariable String imageId,
+            @RequestParam(defaultValue = "input") String type,
+            @RequestParam(required = false) Long ttl,
+            @RequestParam(defaultValue = "true") boolean attachment,
+            Authentication authentication) {
+
+        try {
+            SignedUrlResponse response = signedUrlService.issue(authentication.getName(), imageId, type, ttl,
+                    attachment);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .body(ApiResponse.success(response, "URL firmada generada"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error generando URL firmada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage(), "Imagen no encontrada"));
+        }
+    }
+
+    private ResponseEntity<Resource> negotiatedImage(String userName, String imageId, WebRequest webRequest)
+            throws IOException {
+        ClientHints hints = ClientHints.from(webRequest::getHeader);
+        RenderService.RenderTarget target = renderService.negotiate(userName, imageId, hints);
+
+        Resource resource;
+        String eTag;
+        String format;
+        if (target == null) {
+            resource = fileStorageService.getFile(imageId, "input");
+            eTag = "\"" + imageId + "-" + Long.toHexString(resource.lastModified()) + "\"";
+            format = extension(resource.getFilename());
+        } else {
+            resource = null;
+            eTag = target.getETag();
+            format = target.getSpec().getFormat();
+        }
+
+        boolean notModified = matchesETag(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH), eTag);
+
+        // La respuesta depende de las cabeceras del cliente: Vary tambien en el 304
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(eTag)
+                .varyBy(ClientHints.VARY_HEADERS)
+                .header("Accept-CH", ClientHints.ACCEPT_CH)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate());
+
+        if (notModified) {
+            return builder.build();
+        }
+
+        if (target != null) {
+            resource = renderService.render(target);
+        }
+
+        String fileName = target == null ? resource.getFilename() : target.getFileName();
+        return builder
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.parseMediaType(RenderService.contentType(format)))
+                .body(resource);
+    }
+
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String extension(String fileName) {
+        return fileName == null ? "" : fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Renderiza la imagen bajo demanda (w, h, fit, fmt, q) y la sirve desde cache.
+     * La URL identifica el contenido, por lo que la respuesta es inmutable.
+     */
+    @GetMapping("/{imageId}/render")
+    public ResponseEntity<Resource> renderImage(
+            @PathVariable String imageId,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) Integer h,
+            @RequestParam(required = false) String fit,
+            @RequestParam(required = false) String fmt,
+            @RequestParam(required = false) Integer q,
+            WebRequest webRequest,
+            Authentication authentication) {
+
+        try {
+            RenderService.RenderTarget target = renderService.resolve(authentication.getName(), imageId, w, h, fit,
+                    fmt, q);
+
+            // Con If-None-Match valido se responde 304 sin renderizar
+            if (webRequest.checkNotModified(target.getETag())) {
+                return null;
+            }
+
+            Resource rendered = renderService.render(target);
+
+            return ResponseEntity.ok()
+                    .eTag(target.getETag())
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .contentType(MediaType.parseMediaType(target.getContentType()))
+                    .body(rendered);
+
+        } catch (IOException e) {
+            log.error("Error renderizando imagen: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Render de una derivada con URL firmada (presetUrls), sin JWT: un <img src> no
+     * puede enviar la cabecera Authorization. La firma autoriza la imagen y el ancho
+     * hasta su caducidad, y el navegador puede guardarlo en cache hasta entonces.
+     */
+    @GetMapping("/renders/{token}")
+    public ResponseEntity<Resource> signedRender(@PathVariable String token, WebRequest webRequest) {
+        SignedUrlService.SignedRender signed = signedUrlService.resolveRender(token);
+        if (signed == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            RenderService.RenderTarget target =
+                    renderService.resolveWidths(signed.imageId(), List.of(signed.width())).get(0);
+
+            if (webRequest.checkNotModified(target.getETag())) {
+                return null;
+            }
+
+            long maxAge = Math.max(0, signed.expiresAt() - Instant.now().getEpochSecond());
+            return ResponseEntity.ok()
+                    .eTag(target.getETag())
+                    .cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePrivate())
+                    .contentType(MediaType.parseMediaType(target.getContentType()))
+                    .body(renderService.render(target));
+
+        } catch (IOException e) {
+            log.error("Error renderizando imagen firmada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Descriptor Deep Zoom (DZI) de la imagen para visores como OpenSeadragon.
+     * Las teselas se piden en /{imageId}/tiles_files/{nivel}/{columna}_{fila}.{formato}.
+     */
+    @GetMapping("/{imageId}/tiles.dzi")
+    public ResponseEntity<String> tileDescriptor(@PathVariable String imageId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                    .contentType(MediaType.APPLICATION_XML)
+                    .body(tileService.describe(authentication.getName(), imageId).toDzi());
+
+        } catch (IOException e) {
+            log.error("Error describiendo la piramide de teselas: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Sirve una tesela de la piramide, generandola desde una region del original
+     * la primera vez que se pide.
+     */
+    @GetMapping("/{imageId}/tiles_files/{level}/{column}_{row}.{format}")
+    public ResponseEntity<Resource> tile(
+            @PathVariable String imageId,
+            @PathVariable int level,
+            @PathVariable int column,
+            @PathVariable int row,
+            @PathVariable String format,
+            WebRequest webRequest,
+            Authentication authentication) {
+
+        try {
+            TileService.TileTarget target = tileService.resolve(authentication.getName(), imageId, level, column,
+                    row, format);
+
+            if (webRequest.checkNotModified(target.getETag())) {
+                return null;
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(target.getETag())
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .contentType(MediaType.parseMediaType(target.getContentType()))
+                    .body(tileService.tile(target));
+
+        } catch (IOException e) {
+            log.error("Error generando tesela: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     /**
      * Aplica transformaciones a una imagen usando Strategy Pattern
      */
@@ -126,11 +526,186 @@ public class ImageController {
         }
     }
 
+    /**
+     * Vista previa de una transformacion sobre un proxy reducido del original.
+     * No guarda archivos ni metadata; para aplicarla se usa /transform.
+     */
+    @PostMapping("/{imageId}/transform/preview")
+    public ResponseEntity<?> previewTransform(
+            @PathVariable String imageId,
+            @RequestBody TransformRequestDto transformRequest,
+            Authentication authentication) {
+
+        try {
+            PreviewService.Preview preview = previewService.preview(authentication.getName(), imageId,
+                    transformRequest);
+
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .contentType(MediaType.parseMediaType(RenderService.contentType(preview.getFormat())))
+                    .header("X-Preview-Size", preview.getWidth() + "x" + preview.getHeight())
+                    .body(preview.getData());
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error generando vista previa: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), "Error en vista previa"));
+        }
+    }
+
+    /**
+     * Aplica una transformacion a varias imagenes en paralelo.
+     * El progreso de cada imagen se envia como evento SSE "progress" y el resumen como "complete".
+     * Los errores de validacion del lote los responde GlobalExceptionHandler.
+     */
+    @PostMapping("/batch/transform")
+    public SseEmitter transformBatch(
+            @RequestBody BatchTransformRequestDto batchRequest,
+            Authentication authentication) {
+
+        log.info("Lote de transformacion solicitado por usuario: {}", authentication.getName());
+        return batchTransformService.start(authentication.getName(), batchRequest);
+    }
+
+    /**
+     * Importa un ZIP, TAR o TAR.GZ enviado como cuerpo de la peticion (no multipart).
+     * Cada entrada se informa como evento SSE "progress" y el resumen como "complete".
+     * Un formato no reconocido lo responde GlobalExceptionHandler.
+     */
+    @PostMapping(value = "/import", consumes = {"application/zip", "application/x-tar", "application/gzip",
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public SseEmitter importArchive(HttpServletRequest request, Authentication authentication) throws IOException {
+
+        log.info("Importacion solicitada por usuario: {}", authentication.getName());
+        return importService.start(authentication.getName(), request.getInputStream());
+    }
+
+    /**
+     * Devuelve el plan de ejecucion optimizado de una transformacion sin aplicarla
+     */
+    @PostMapping("/{imageId}/transform/plan")
+    public ResponseEntity<ApiResponse<TransformPlanResponse>> explainTransform(
+            @PathVariable String imageId,
+            @RequestBody TransformRequestDto transformRequest) {
+
+        try {
+            TransformPlan plan = imageProcService.explainTransform(imageId, transformRequest);
+
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success(toPlanResponse(plan), "Plan generado exitosamente"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error generando plan: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), "Error generando plan"));
+        }
+    }
+
+    /**
+     * Aplica una lista ordenada de operaciones con una sola decodificacion y codificacion
+     */
+    @PostMapping("/{imageId}/pipeline")
+    public ResponseEntity<ApiResponse<String>> transformPipeline(
+            @PathVariable String imageId,
+            @RequestBody TransformPipelineRequestDto pipelineRequest,
+            Authentication authentication) {
+
+        try {
+            log.info("Pipeline solicitado para imagen: {} por usuario: {}",
+                    imageId, authentication.getName());
+
+            String transformedPath = imageProcService.transformPipelineHandler(imageId, pipelineRequest);
+
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success(transformedPath,
+                            "Transformación completada exitosamente"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error transformando imagen: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), "Error en transformación"));
+        }
+    }
+
+    /**
+     * Devuelve el plan y el coste estimado de un pipeline sin aplicarlo
+     */
+    @PostMapping("/{imageId}/pipeline/plan")
+    public ResponseEntity<ApiResponse<TransformPlanResponse>> explainPipeline(
+            @PathVariable String imageId,
+            @RequestBody TransformPipelineRequestDto pipelineRequest) {
+
+        try {
+            TransformPlan plan = imageProcService.explainPipeline(imageId, pipelineRequest);
+
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success(toPlanResponse(plan), "Plan generado exitosamente"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error generando plan: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error(e.getMessage(), "Error generando plan"));
+        }
+    }
+
+    // Upload-Metadata: pares "clave valor-base64" separados por comas; se usa filename
+    private String uploadFileName(String metadata) {
+        for (String pair : metadata.split(",")) {
+            String[] parts = pair.trim().split(" ");
+            if (parts.length == 2 && parts[0].equals("filename")) {
+                return new String(Base64.getDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+            }
+        }
+        throw new IllegalArgumentException("Upload-Metadata debe incluir filename");
+    }
+
+    private ImageResponse toImageResponse(ImageMetadata image) {
+        ImageResponse response = new ImageResponse(image.getId(), image.getUserName(), image.getImageName(),
+                image.getInputPath(), image.getTransformPath(), image.getRegistrationDate());
+        response.setDescription(image.getDescription());
+        response.setDateOfUpdate(image.getDateOfUpdate());
+        response.setPresetUrls(derivativeService.presetUrls(image.getId()));
+        response.setBlurHash(image.getBlurHash());
+        return response;
+    }
+
+    private TransformPlanResponse toPlanResponse(TransformPlan plan) {
+        return TransformPlanResponse.builder()
+                .sourceWidth(plan.getSourceWidth())
+                .sourceHeight(plan.getSourceHeight())
+                .outputWidth(plan.getOutputWidth())
+                .outputHeight(plan.getOutputHeight())
+                .format(plan.getFormat())
+                .estimatedCost(plan.getEstimatedCost())
+                .steps(plan.describe())
+                .build();
+    }
+
     /**
      * Obtiene todas las imágenes del usuario autenticado con paginación
      */
     @GetMapping("/user/all")
-    public ResponseEntity<ApiResponse<Page<ImageMetadata>>> getUserImages(
+    public ResponseEntity<ApiResponse<Page<ImageResponse>>> getUserImages(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             Authentication authentication) {
@@ -138,7 +713,8 @@ public class ImageController {
         try {
             String userName = authentication.getName();
             Pageable pageable = PageRequest.of(page, size);
-            Page<ImageMetadata> images = fileStorageService.getAllImageMetadataByUser(userName, pageable);
+            Page<ImageResponse> images = fileStorageService.getAllImageMetadataByUser(userName, pageable)
+                    .map(this::toImageResponse);
 
             return ResponseEntity.ok()
                     .body(ApiResponse.success(images,
@@ -152,6 +728,148 @@ public class ImageController {
     }
 
 
+    /**
+     * Miniaturas de una pagina de la galeria en una sola peticion.
+     * Devuelve el mapa de coordenadas y la URL de la hoja compuesta.
+     */
+    @GetMapping("/user/sprite")
+    public ResponseEntity<?> getUserSprite(
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "160") int cell,
+            Authentication authentication) {
+
+        try {
+            String userName = authentication.getName();
+            List<ImageMetadata> images = spriteService.select(userName, ids, page, size, cell);
+            SpriteSheetResponse sprite = spriteService.sprite(userName, images, cell);
+            return ResponseEntity.ok()
+                    .body(ApiResponse.success(sprite, "Hoja de miniaturas generada exitosamente"));
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(e.getMessage(), "Validación fallida"));
+
+        } catch (IOException e) {
+            log.error("Error generando hoja de miniaturas: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage(), "No se encontraron imágenes"));
+        }
+    }
+
+    /**
+     * Las mismas miniaturas como multipart/mixed (mode=multipart).
+     * La seleccion y la celda se validan antes de enviar el 200: un error en el
+     * cuerpo ya no podria cambiar el estado de la respuesta.
+     */
+    @GetMapping(value = "/user/sprite", params = "mode=multipart")
+    public ResponseEntity<StreamingResponseBody> getUserSpriteParts(
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "160") int cell,
+            Authentication authentication) {
+
+        try {
+            List<ImageMetadata> images = spriteService.select(authentication.getName(), ids, page, size, cell);
+            String boundary = "imagehub-" + UUID.randomUUID();
+            StreamingResponseBody body = output -> spriteService.writeMultipart(images, cell, boundary, output);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .contentType(MediaType.parseMediaType("multipart/mixed; boundary=" + boundary))
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error de validación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+
+        } catch (IOException e) {
+            log.error("Error obteniendo miniaturas: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Sirve una hoja de miniaturas ya generada; la clave identifica su contenido.
+     */
+    @GetMapping("/sprites/{key}")
+    public ResponseEntity<Resource> getSprite(@PathVariable String key, Authentication authentication) {
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .body(new FileSystemResource(spriteService.spriteFile(authentication.getName(), key)));
+
+        } catch (IOException e) {
+            log.error("Error obteniendo hoja de miniaturas: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+
+    /**
+     * Descarga toda la biblioteca del usuario como ZIP generado al vuelo.
+     * Admite un rango de bytes (Range + If-Range) para reanudar descargas cortadas.
+     */
+    @GetMapping("/user/export")
+    public ResponseEntity<StreamingResponseBody> exportUserImages(
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            Authentication authentication) {
+
+        try {
+            ExportService.Export export = exportService.prepare(authentication.getName());
+            long length = export.getLength();
+            long start = 0;
+            long end = length - 1;
+
+            // Un If-Range distinto significa que el ZIP cambio: se envia completo
+            boolean partial = range != null && (ifRange == null || ifRange.equals(export.getETag()));
+            if (partial) {
+                try {
+                    List<HttpRange> ranges = HttpRange.parseRanges(range);
+                    if (ranges.size() == 1) {
+                        start = ranges.get(0).getRangeStart(length);
+                        end = ranges.get(0).getRangeEnd(length);
+                        // Un inicio mas alla del final no lo rechaza HttpRange
+                        if (start > end) {
+                            throw new IllegalArgumentException("Rango fuera del archivo: " + range);
+                        }
+                    } else {
+                        partial = false;
+                    }
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                            .build();
+                }
+            }
+
+            long rangeStart = start;
+            long rangeEnd = end;
+            StreamingResponseBody body = output -> exportService.write(export, rangeStart, rangeEnd, output);
+
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                    .eTag(export.getETag())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + export.getFileName() + "\"")
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .contentLength(end - start + 1);
+            if (partial) {
+                builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            return builder.body(body);
+
+        } catch (IOException e) {
+            log.error("Error preparando exportación: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+
     // Agregar estos 3 métodos al final de tu ImageController (antes del cierre de clase)
 
     /**
@@ -0,0 +1,70 @@
+package com.example.ImageHub.controller;
+
+import com.example.ImageHub.service.JfrRecordingService;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * Grabaciones JFR por Actuator (solo ADMIN, ver SecurityConfig):
+ *   GET    /actuator/jfr       lista las grabaciones activas
+ *   POST   /actuator/jfr       inicia una; cuerpo opcional {"name", "settings", "durationSeconds"}
+ *   POST   /actuator/jfr/{id}  vuelca lo grabado sin detenerla
+ *   DELETE /actuator/jfr/{id}  la detiene y la guarda en image.jfr.dir
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private final JfrRecordingService jfrRecordingService;
+
+    public JfrRecordingEndpoint(JfrRecordingService jfrRecordingService) {
+        this.jfrRecordingService = jfrRecordingService;
+    }
+
+    @ReadOperation
+    public List<JfrRecordingService.RecordingInfo> recordings() {
+        return jfrRecordingService.list();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Nullable String name, @Nullable String settings,
+                                             @Nullable Long durationSeconds) throws IOException {
+        if (durationSeconds != null && durationSeconds < 1) {
+            return new WebEndpointResponse<>("durationSeconds debe ser mayor a 0", WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        try {
+            return new WebEndpointResponse<>(jfrRecordingService.start(name, settings,
+                    durationSeconds == null ? null : Duration.ofSeconds(durationSeconds)));
+        } catch (IllegalArgumentException | ParseException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<JfrRecordingService.RecordingInfo> dump(@Selector long id) throws IOException {
+        return response(jfrRecordingService.dump(id));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<JfrRecordingService.RecordingInfo> stop(@Selector long id) throws IOException {
+        return response(jfrRecordingService.stop(id));
+    }
+
+    private static WebEndpointResponse<JfrRecordingService.RecordingInfo> response(
+            JfrRecordingService.RecordingInfo info) {
+        return info == null
+                ? new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND)
+                : new WebEndpointResponse<>(info);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Evento de progreso enviado por cada imagen de un lote
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProgressEvent {
+
+    public enum Status { DONE, FAILED }
+
+    private UUID imageId;
+    private Status status;
+    private String transformPath;
+    private String error;
+    private int completed;
+    private int total;
+}
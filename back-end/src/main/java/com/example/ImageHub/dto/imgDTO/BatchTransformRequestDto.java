@@ -0,0 +1,25 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransformRequestDto {
+
+    // Imagenes a transformar; se ignora si untransformed es true
+    private List<UUID> imageIds;
+
+    // Transforma todas las imagenes del usuario que aun no tienen transformacion
+    private Boolean untransformed;
+
+    // Transformacion aplicada a cada imagen del lote
+    private TransformRequestDto transform;
+}
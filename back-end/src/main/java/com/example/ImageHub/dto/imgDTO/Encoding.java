@@ -0,0 +1,30 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Parametros de codificacion de la imagen resultante.
+// Los valores explicitos tienen prioridad sobre los del preset.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Encoding {
+
+    // web, high o compact
+    private String preset;
+
+    // Calidad JPEG entre 0.0 y 1.0
+    private Float quality;
+
+    // JPEG progresivo o PNG/GIF entrelazado
+    private Boolean progressive;
+
+    // Nivel de compresion PNG entre 0 y 9 (esfuerzo de WebP sin perdida)
+    private Integer compressionLevel;
+
+    // PNG: reduce a paleta, gris o sin alfa cuando el contenido lo permite (sin entrelazado)
+    private Boolean optimize;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Builder
@@ -23,6 +24,10 @@ public class ImageResponse {
     private LocalDateTime registrationDate;
     private LocalDateTime dateOfUpdate;
     private boolean hasTransformation;
+    // URL de cada derivada con nombre (thumb, card, full...)
+    private Map<String, String> presetUrls;
+    // Marcador BlurHash para pintar la galeria antes de cargar la imagen
+    private String blurHash;
 
     public ImageResponse(UUID id, String userName, String imageName,
                             String inputPath, String transformPath,
@@ -0,0 +1,26 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Evento de progreso enviado por cada entrada de un archivo importado
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressEvent {
+
+    public enum Status { IMPORTED, FAILED, SKIPPED }
+
+    private String entry;
+    private UUID imageId;
+    private Status status;
+    private String error;
+    private int processed;
+    private int imported;
+    private int failed;
+}
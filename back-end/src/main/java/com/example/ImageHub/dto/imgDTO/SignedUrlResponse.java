@@ -0,0 +1,19 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// URL firmada de descarga directa y momento en que deja de ser valida
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignedUrlResponse {
+
+    private String url;
+    private Instant expiresAt;
+}
@@ -0,0 +1,37 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+// Hoja de miniaturas: URL de la imagen compuesta y posicion de cada miniatura en ella
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpriteSheetResponse {
+
+    private String url;
+    private int width;
+    private int height;
+    private int cell;
+    private int columns;
+    private List<Entry> entries;
+
+    // Rectangulo de una miniatura dentro de la hoja
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private UUID id;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Paso individual de un pipeline de transformacion.
+// type: crop, resize, rotate o filter. Los campos usados dependen del tipo.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransformOperationDto {
+
+    private String type;
+
+    // crop y resize
+    private Integer x;
+    private Integer y;
+    private Integer width;
+    private Integer height;
+
+    // rotate
+    private Double angle;
+
+    // filter: grayscale o sepia
+    private String filter;
+}
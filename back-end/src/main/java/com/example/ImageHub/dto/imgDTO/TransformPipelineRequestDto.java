@@ -0,0 +1,23 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Lista ordenada de operaciones que se ejecutan sobre una sola decodificacion.
+// A diferencia de TransformRequestDto, las operaciones pueden repetirse.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransformPipelineRequestDto {
+
+    private List<TransformOperationDto> operations;
+
+    private String format;
+
+    private Encoding encoding;
+}
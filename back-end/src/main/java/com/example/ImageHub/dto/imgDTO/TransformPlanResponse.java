@@ -0,0 +1,24 @@
+package com.example.ImageHub.dto.imgDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Representacion del plan de ejecucion de una transformacion (depuracion)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransformPlanResponse {
+
+    private int sourceWidth;
+    private int sourceHeight;
+    private int outputWidth;
+    private int outputHeight;
+    private String format;
+    private long estimatedCost;
+    private List<String> steps;
+}
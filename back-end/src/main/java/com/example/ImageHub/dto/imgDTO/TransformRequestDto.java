@@ -17,6 +17,7 @@ public class TransformRequestDto {
     private Crop crop;
     private Filters filters;
     private  Resize resize;
+    private Encoding encoding;
 
     //Atributos
     private String format;
@@ -0,0 +1,9 @@
+package com.example.ImageHub.exceptions;
+
+// La imagen no cabe en el presupuesto de memoria de decodificacion en este momento
+public class DecodeBudgetExceededException extends RuntimeException {
+
+    public DecodeBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.ImageHub.exceptions;
 import com.example.ImageHub.dto.imgDTO.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -45,6 +46,32 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage(), "Solicitud inválida"));
     }
 
+    @ExceptionHandler(DecodeBudgetExceededException.class)
+    public ResponseEntity<ApiResponse<String>> handleDecodeBudgetExceeded(DecodeBudgetExceededException ex) {
+        log.warn("Presupuesto de memoria agotado: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ApiResponse.error(ex.getMessage(), "Servidor ocupado"));
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ApiResponse<String>> handleUploadSessionNotFound(UploadSessionNotFoundException ex) {
+        log.warn("Sesion de subida no encontrada: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(ex.getMessage(), "Sesion de subida no encontrada"));
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    public ResponseEntity<ApiResponse<String>> handleUploadConflict(UploadConflictException ex) {
+        log.warn("Conflicto en subida reanudable: {}", ex.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Tus-Resumable", "1.0.0");
+        if (ex.getOffset() >= 0) {
+            response.header("Upload-Offset", String.valueOf(ex.getOffset()));
+        }
+        return response.body(ApiResponse.error(ex.getMessage(), "Conflicto en subida"));
+    }
+
     @ExceptionHandler(IOException.class)
     public ResponseEntity<ApiResponse<String>> handleIOException(IOException ex) {
         log.error("Excepción IO: {}", ex.getMessage());
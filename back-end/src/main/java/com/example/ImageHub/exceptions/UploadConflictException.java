@@ -0,0 +1,17 @@
+package com.example.ImageHub.exceptions;
+
+// El bloque no continua la sesion (offset distinto, otro bloque en curso o subida incompleta)
+public class UploadConflictException extends RuntimeException {
+
+    private final long offset;
+
+    public UploadConflictException(String message, long offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    // Offset confirmado en el servidor, desde donde debe continuar el cliente
+    public long getOffset() {
+        return offset;
+    }
+}
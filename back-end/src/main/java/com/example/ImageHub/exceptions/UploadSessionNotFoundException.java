@@ -0,0 +1,9 @@
+package com.example.ImageHub.exceptions;
+
+// La sesion de subida reanudable no existe, expiro o es de otro usuario
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    public UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+}
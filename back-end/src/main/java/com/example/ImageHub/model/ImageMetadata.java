@@ -52,5 +52,9 @@ public class ImageMetadata extends Auditable<ImageMetadata> {
     @Column(name = "FECHA_ACTUALIZACION")
     private LocalDateTime dateOfUpdate;
 
+    // Marcador BlurHash calculado al subir la imagen
+    @Column(name = "BLURHASH")
+    private String blurHash;
+
 
 }
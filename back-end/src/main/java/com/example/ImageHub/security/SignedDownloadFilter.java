@@ -0,0 +1,104 @@
+package com.example.ImageHub.security;
+
+import com.example.ImageHub.service.RenderService;
+import com.example.ImageHub.service.SignedUrlService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+
+/*
+ * Sirve las URLs firmadas (/signed/<token>) antes de la cadena de Spring Security.
+ *
+ * Solo verifica la firma y la caducidad del token y envia el archivo: sin JWT,
+ * sin cargar el usuario y sin consultar la metadata. Si el conector lo admite,
+ * el cuerpo se entrega con sendfile de Tomcat (copia del kernel, sin pasar por
+ * la JVM); si no, se copia por el flujo de salida.
+ */
+public class SignedDownloadFilter extends OncePerRequestFilter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final SignedUrlService signedUrlService;
+    private final Counter served;
+    private final Counter denied;
+
+    public SignedDownloadFilter(SignedUrlService signedUrlService, MeterRegistry meterRegistry) {
+        this.signedUrlService = signedUrlService;
+        this.served = meterRegistry.counter("imagehub.signed", "result", "served");
+        this.denied = meterRegistry.counter("imagehub.signed", "result", "denied");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws IOException {
+        boolean head = request.getMethod().equals("HEAD");
+        if (!head && !request.getMethod().equals("GET")) {
+            response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        String token = request.getRequestURI()
+                .substring(request.getContextPath().length() + SignedUrlService.PATH_PREFIX.length());
+        SignedUrlService.SignedFile file = signedUrlService.resolve(token);
+        if (file == null) {
+            denied.increment();
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file.path(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String eTag = "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis())
+                + "-" + Long.toHexString(attributes.size()) + "\"";
+        long maxAge = Math.max(0, file.expiresAt() - Instant.now().getEpochSecond());
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge);
+
+        if (eTag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String fileName = file.path().getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        response.setContentType(RenderService.contentType(dot < 0 ? "" : fileName.substring(dot + 1)));
+        response.setContentLengthLong(attributes.size());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (file.attachment() ? "attachment" : "inline") + "; filename=\"" + fileName + "\"");
+        served.increment();
+        if (head) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, attributes.size());
+        } else {
+            Files.copy(file.path(), response.getOutputStream());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.BatchProgressEvent;
+import com.example.ImageHub.dto.imgDTO.BatchTransformRequestDto;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Aplica una misma transformacion a muchas imagenes.
+ *
+ * - Las metadatas se cargan con una sola consulta.
+ * - Las imagenes se procesan en un pool de tamano fijo; el presupuesto de
+ *   memoria de decodificacion sigue limitando cuantas se decodifican a la vez.
+ * - Las rutas transformadas se guardan con saveAll cada save-batch-size imagenes.
+ * - Cada imagen se notifica por SSE como DONE solo cuando su lote ya esta
+ *   guardado; si el guardado falla, las imagenes de ese lote se notifican como
+ *   FAILED. Si el cliente se desconecta el lote continua y se guarda igualmente.
+ */
+@Slf4j
+@Service
+public class BatchTransformService {
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final ImageProcService imageProcService;
+    private final ExecutorService workers;
+    private final int saveBatchSize;
+    private final int maxImages;
+    private final long timeoutMillis;
+
+    public BatchTransformService(ImageMetadataRepository imageMetadataRepository,
+                                 ImageProcService imageProcService,
+                                 @Value("${image.batch.workers:4}") int workerCount,
+                                 @Value("${image.batch.save-batch-size:50}") int saveBatchSize,
+                                 @Value("${image.batch.max-images:500}") int maxImages,
+                                 @Value("${image.batch.timeout-ms:1800000}") long timeoutMillis) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.imageProcService = imageProcService;
+        this.saveBatchSize = Math.max(1, saveBatchSize);
+        this.maxImages = maxImages;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "batch-transform-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Valida el lote, lanza el trabajo y devuelve el emisor por el que llega el progreso
+    public SseEmitter start(String userName, BatchTransformRequestDto request) {
+        if (request == null || request.getTransform() == null) {
+            throw new IllegalArgumentException("El lote debe incluir la transformacion a aplicar");
+        }
+
+        boolean untransformed = Boolean.TRUE.equals(request.getUntransformed());
+        List<UUID> requestedIds = untransformed || request.getImageIds() == null
+                ? List.of()
+                : new ArrayList<>(new LinkedHashSet<>(request.getImageIds()));
+        if (!untransformed && requestedIds.isEmpty()) {
+            throw new IllegalArgumentException("Indique imageIds o untransformed=true");
+        }
+
+        List<ImageMetadata> images = untransformed
+                ? imageMetadataRepository.findByUserNameAndTransformPathIsNull(userName)
+                : imageMetadataRepository.findAllById(requestedIds).stream()
+                        .filter(image -> userName.equals(image.getUserName()))
+                        .toList();
+
+        int total = untransformed ? images.size() : requestedIds.size();
+        if (total > maxImages) {
+            throw new IllegalArgumentException(
+                    "El lote tiene " + total + " imagenes; el maximo permitido es " + maxImages);
+        }
+
+        log.info("Lote de transformacion iniciado por {}: {} imagenes", userName, total);
+
+        SseEmitter emitter = createEmitter();
+        Batch batch = new Batch(total, emitter);
+
+        // Ids inexistentes o de otro usuario se informan sin procesarse
+        if (!untransformed) {
+            Map<UUID, ImageMetadata> found = new LinkedHashMap<>();
+            images.forEach(image -> found.put(image.getId(), image));
+            requestedIds.stream()
+                    .filter(id -> !found.containsKey(id))
+                    .forEach(id -> batch.failed(id, "Imagen no encontrada o no pertenece al usuario"));
+        }
+
+        if (total == 0) {
+            batch.finish();
+            return emitter;
+        }
+
+        for (ImageMetadata image : images) {
+            String previousPath = image.getTransformPath();
+            CompletableFuture
+                    .supplyAsync(() -> transform(image, request), workers)
+                    .whenComplete((path, error) -> {
+                        if (error == null) {
+                            batch.done(image, previousPath, path);
+                        } else {
+                            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                            log.warn("Error transformando imagen {} del lote: {}", image.getId(), cause.getMessage());
+                            batch.failed(image.getId(), cause.getMessage());
+                        }
+                    });
+        }
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private String transform(ImageMetadata image, BatchTransformRequestDto request) {
+        try {
+            return imageProcService.applyTransform(image, request.getTransform());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // Imagen transformada a la espera de que su lote se guarde
+    private record PendingSave(ImageMetadata image, String previousPath, String transformPath) {
+    }
+
+    // Estado de un lote; los trabajadores lo actualizan bajo su monitor
+    private final class Batch {
+
+        private final int total;
+        private final SseEmitter emitter;
+        private final List<PendingSave> pendingSaves = new ArrayList<>();
+        private int finished;
+        private int completed;
+        private int failed;
+
+        private Batch(int total, SseEmitter emitter) {
+            this.total = total;
+            this.emitter = emitter;
+        }
+
+        // La imagen se transformo; se informa cuando su lote quede guardado
+        synchronized void done(ImageMetadata image, String previousPath, String transformPath) {
+            finished++;
+            pendingSaves.add(new PendingSave(image, previousPath, transformPath));
+            if (pendingSaves.size() >= saveBatchSize) {
+                flush();
+            }
+            finishIfComplete();
+        }
+
+        synchronized void failed(UUID imageId, String error) {
+            finished++;
+            fail(imageId, error);
+            finishIfComplete();
+        }
+
+        private void fail(UUID imageId, String error) {
+            completed++;
+            failed++;
+            send("progress", BatchProgressEvent.builder()
+                    .imageId(imageId)
+                    .status(BatchProgressEvent.Status.FAILED)
+                    .error(error)
+                    .completed(completed)
+                    .total(total)
+                    .build());
+        }
+
+        private void finishIfComplete() {
+            if (finished == total) {
+                finish();
+            }
+        }
+
+        synchronized void finish() {
+            flush();
+            Map<String, Integer> summary = new LinkedHashMap<>();
+            summary.put("total", total);
+            summary.put("succeeded", total - failed);
+            summary.put("failed", failed);
+            send("complete", summary);
+            emitter.complete();
+            log.info("Lote de transformacion terminado: {} correctas, {} fallidas", total - failed, failed);
+        }
+
+        /*
+         * Guarda el lote pendiente y solo entonces informa sus imagenes como terminadas
+         * y borra las transformaciones que reemplazan. Si el guardado falla la BD sigue
+         * apuntando a las anteriores, que se conservan.
+         */
+        private void flush() {
+            if (pendingSaves.isEmpty()) {
+                return;
+            }
+            List<PendingSave> batch = new ArrayList<>(pendingSaves);
+            pendingSaves.clear();
+            try {
+                imageMetadataRepository.saveAll(batch.stream().map(PendingSave::image).toList());
+                log.info("Rutas transformadas guardadas en BD: {}", batch.size());
+            } catch (Exception e) {
+                log.error("Error guardando metadata del lote: {}", e.getMessage());
+                batch.forEach(pending -> fail(pending.image().getId(), "Error guardando metadata de imagen"));
+                return;
+            }
+            batch.forEach(pending -> {
+                try {
+                    imageProcService.deleteReplacedTransform(pending.previousPath(), pending.transformPath());
+                } catch (IOException e) {
+                    log.warn("No se pudo eliminar la transformacion anterior {}: {}",
+                            pending.previousPath(), e.getMessage());
+                }
+                completed++;
+                send("progress", BatchProgressEvent.builder()
+                        .imageId(pending.image().getId())
+                        .status(BatchProgressEvent.Status.DONE)
+                        .transformPath(pending.transformPath())
+                        .completed(completed)
+                        .total(total)
+                        .build());
+            });
+        }
+
+        private void send(String name, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: el lote sigue y los resultados se guardan
+                log.debug("No se pudo enviar progreso del lote: {}", e.getMessage());
+            }
+        }
+    }
+}
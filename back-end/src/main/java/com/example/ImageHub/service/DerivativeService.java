@@ -0,0 +1,128 @@
+package com.example.ImageHub.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Derivadas con nombre (thumb, card, full...) generadas al subir una imagen.
+ *
+ * Cada preset es un ancho de image.render.allowed-sizes y se sirve con una URL
+ * de render firmada (SignedUrlService), que un <img src> carga sin JWT; las
+ * derivadas viven en la misma cache de renders que /render.
+ * Tras la subida la imagen entra en un pool de baja prioridad que genera todos
+ * los presets con una sola decodificacion. Si la cola esta llena la imagen se
+ * omite: sus derivadas se generaran bajo demanda en la primera visita.
+ */
+@Slf4j
+@Service
+public class DerivativeService {
+
+    private final RenderService renderService;
+    private final SignedUrlService signedUrlService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Integer> presets;
+    private final boolean eager;
+    private final ThreadPoolExecutor executor;
+
+    public DerivativeService(RenderService renderService, SignedUrlService signedUrlService,
+                             MeterRegistry meterRegistry,
+                             @Value("${image.derivatives.presets:thumb=160,card=640,full=1920}") String presets,
+                             @Value("${image.render.allowed-sizes:160,320,640,1024,1920}") List<Integer> allowedSizes,
+                             @Value("${image.derivatives.eager:true}") boolean eager,
+                             @Value("${image.derivatives.workers:1}") int workers,
+                             @Value("${image.derivatives.queue-capacity:1000}") int queueCapacity) {
+        this.renderService = renderService;
+        this.signedUrlService = signedUrlService;
+        this.meterRegistry = meterRegistry;
+        this.presets = parsePresets(presets, allowedSizes);
+        this.eager = eager;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "derivatives-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            // Las derivadas no deben competir con las solicitudes interactivas
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    // Encola la generacion de todos los presets de una imagen recien subida
+    public void enqueue(UUID imageId) {
+        if (!eager || presets.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(imageId));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("imagehub.derivatives", "result", "skipped").increment();
+            log.warn("Cola de derivadas llena, se generaran bajo demanda: {}", imageId);
+        }
+    }
+
+    // URL firmada de cada preset de una imagen del usuario, en el orden de configuracion
+    public Map<String, String> presetUrls(UUID imageId) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        presets.forEach((name, width) -> urls.put(name, signedUrlService.signRender(imageId, width)));
+        return urls;
+    }
+
+    private void generate(UUID imageId) {
+        try {
+            List<RenderService.RenderTarget> targets =
+                    renderService.resolveWidths(imageId, new ArrayList<>(presets.values()));
+            int generated = renderService.renderAll(targets);
+            meterRegistry.counter("imagehub.derivatives", "result", "generated").increment(generated);
+        } catch (Exception e) {
+            meterRegistry.counter("imagehub.derivatives", "result", "failed").increment();
+            log.warn("No se pudieron generar las derivadas de {}: {}", imageId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Formato nombre=ancho separado por comas; los anchos deben estar permitidos en /render
+    static Map<String, Integer> parsePresets(String value, List<Integer> allowedSizes) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return Collections.unmodifiableMap(result);
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Preset de derivada invalido: " + entry);
+            }
+            int width;
+            try {
+                width = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ancho invalido en el preset: " + entry);
+            }
+            if (!allowedSizes.contains(width)) {
+                throw new IllegalArgumentException(
+                        "El preset " + entry + " no esta en image.render.allowed-sizes " + allowedSizes);
+            }
+            result.put(parts[0].trim(), width);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
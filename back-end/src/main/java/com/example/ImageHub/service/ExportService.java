@@ -0,0 +1,151 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.archive.StreamingZip;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Exportacion de la biblioteca de un usuario como ZIP generado al vuelo.
+ *
+ * Incluye el original y, si existe, la version transformada de cada imagen, en
+ * <imageId>/<archivo> y <imageId>/transformada/<archivo>. Las entradas se ordenan
+ * por id para que el mismo contenido produzca siempre los mismos bytes: el ETag
+ * resume nombres, tamanos y fechas, y una descarga interrumpida se reanuda con
+ * Range + If-Range. Los datos se copian por bloques desde disco; nada se acumula
+ * en memoria salvo la lista de entradas.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final MeterRegistry meterRegistry;
+
+    // Manifiestos de CRC de las exportaciones en curso
+    @Value("${image.export.cache-dir:${java.io.tmpdir}/imagehub-exports}")
+    private String cacheDir;
+
+    public ExportService(ImageMetadataRepository imageMetadataRepository, MeterRegistry meterRegistry) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Exportacion preparada: longitud y ETag conocidos antes de enviar datos
+    public static final class Export {
+        private final StreamingZip zip;
+        private final String eTag;
+        private final String fileName;
+
+        private Export(StreamingZip zip, String eTag, String fileName) {
+            this.zip = zip;
+            this.eTag = eTag;
+            this.fileName = fileName;
+        }
+
+        public long getLength() {
+            return zip.getLength();
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    public Export prepare(String userName) throws IOException {
+        List<ImageMetadata> images = new ArrayList<>(imageMetadataRepository.findByUserName(userName));
+        if (images.isEmpty()) {
+            throw new IOException("El usuario no tiene imágenes subidas");
+        }
+        images.sort(Comparator.comparing(image -> image.getId().toString()));
+
+        List<StreamingZip.Entry> entries = new ArrayList<>();
+        for (ImageMetadata image : images) {
+            addEntry(entries, image.getId() + "/", image.getInputPath());
+            addEntry(entries, image.getId() + "/transformada/", image.getTransformPath());
+        }
+
+        String key = key(entries);
+        Path dir = Paths.get(cacheDir, userName.replaceAll("[^A-Za-z0-9@._-]", "_"));
+        Files.createDirectories(dir);
+        removeStaleManifests(dir, key);
+
+        StreamingZip zip = new StreamingZip(entries, dir.resolve(key + ".crc"));
+        log.info("Exportacion preparada para {}: {} archivos, {} bytes", userName, entries.size(), zip.getLength());
+        return new Export(zip, "\"" + key + "\"", "imagehub-" + LocalDate.now() + ".zip");
+    }
+
+    // Escribe el rango [start, end] de la exportacion
+    public void write(Export export, long start, long end, OutputStream output) throws IOException {
+        long written = end - start + 1;
+        try {
+            export.zip.write(output, start, end);
+            meterRegistry.counter("imagehub.export.bytes").increment(written);
+        } catch (IOException e) {
+            // Normalmente el cliente cerro la conexion; podra reanudar con Range
+            log.warn("Exportacion interrumpida en el rango {}-{}: {}", start, end, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void addEntry(List<StreamingZip.Entry> entries, String prefix, String filePath) throws IOException {
+        if (filePath == null || filePath.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            log.warn("Archivo omitido de la exportacion, no existe: {}", filePath);
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        entries.add(new StreamingZip.Entry(prefix + path.getFileName(), path, attributes.size(),
+                attributes.lastModifiedTime().toMillis()));
+    }
+
+    private static String key(List<StreamingZip.Entry> entries) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (StreamingZip.Entry entry : entries) {
+                digest.update((entry.name() + ";" + entry.size() + ";" + entry.lastModified() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Solo se conserva el manifiesto de la exportacion vigente del usuario
+    private static void removeStaleManifests(Path dir, String key) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".crc"))
+                    .filter(file -> !file.getFileName().toString().equals(key + ".crc"))
+                    .forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            log.debug("No se pudieron limpiar manifiestos de exportacion: {}", e.getMessage());
+        }
+    }
+}
@@ -3,6 +3,11 @@ package com.example.ImageHub.service;
 import com.example.ImageHub.model.ImageMetadata;
 import com.example.ImageHub.repository.ImageMetadataRepository;
 import com.example.ImageHub.utils.ImageValidationUtils;
+import com.example.ImageHub.utils.codec.JpegMetadataStripper;
+import com.example.ImageHub.utils.jfr.FileIoEvent;
+import com.example.ImageHub.utils.metrics.PipelineMetrics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,12 +20,16 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,6 +46,31 @@ public class FileStorageService {
     @Autowired
     private ImageValidationUtils imageValidationUtils;
 
+    @Autowired
+    private RenderService renderService;
+
+    @Autowired
+    private PreviewService previewService;
+
+    @Autowired
+    private DerivativeService derivativeService;
+
+    @Autowired
+    private PlaceholderService placeholderService;
+
+    @Autowired
+    private SpriteService spriteService;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Elimina EXIF, miniaturas, XMP e ICC de los JPEG subidos sin recodificarlos
+    @Value("${image.upload.strip-metadata:false}")
+    private boolean stripMetadata;
+
     public String saveFile(MultipartFile file, String userName)
             throws IOException, IllegalArgumentException {
 
@@ -58,23 +92,15 @@ public class FileStorageService {
 
         Path filePath = Paths.get(path.toString(), file.getOriginalFilename());
 
-        try {
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream input = file.getInputStream()) {
+            writeFile(input, filePath, "upload");
             log.info("Archivo guardado en: {}", filePath);
         } catch (IOException e) {
             log.error("Error guardando archivo: {}", e.getMessage());
             throw e;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        ImageMetadata newImage = ImageMetadata.builder()
-                .id(uuidImage)
-                .imageName(file.getOriginalFilename())
-                .inputPath(filePath.toString())
-                .userName(userName)
-                .registrationDate(now)
-                .dateOfUpdate(now)
-                .build();
+        ImageMetadata newImage = buildMetadata(uuidImage, file.getOriginalFilename(), filePath, userName);
 
         try {
             imageMetadataRepository.save(newImage);
@@ -85,9 +111,190 @@ public class FileStorageService {
             throw new IOException("Error guardando metadata de imagen", e);
         }
 
+        derivativeService.enqueue(uuidImage);
+
         return uuidImage.toString();
     }
 
+    /*
+     * Subida reanudable terminada: el archivo ya esta completo en disco. Se valida con
+     * el limite de las subidas reanudables, se mueve a su directorio definitivo y sigue
+     * el mismo camino que saveFile (metadata y derivadas). Si falla el guardado de la
+     * metadata el archivo vuelve a uploadedFile para que la sesion pueda reintentarse.
+     */
+    public String saveUploadedFile(Path uploadedFile, String fileName, String userName, long maxSize)
+            throws IOException, IllegalArgumentException {
+
+        log.info("Guardando subida reanudable para usuario: {}", userName);
+
+        imageValidationUtils.validate(fileName, Files.size(uploadedFile), new FileSystemResource(uploadedFile), maxSize);
+        UUID uuidImage = UUID.randomUUID();
+
+        Path dir = Paths.get(FILE_DIR, userName, uuidImage.toString());
+        Files.createDirectories(dir);
+        Path filePath = dir.resolve(fileName);
+
+        boolean moved = false;
+        if (stripMetadata && isJpeg(filePath)) {
+            try (InputStream input = Files.newInputStream(uploadedFile)) {
+                writeFile(input, filePath, "resumable");
+            }
+        } else {
+            Files.move(uploadedFile, filePath, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        }
+        log.info("Archivo guardado en: {}", filePath);
+
+        ImageMetadata newImage = buildMetadata(uuidImage, fileName, filePath, userName);
+
+        try {
+            imageMetadataRepository.save(newImage);
+            log.info("Metadata de imagen guardada en BD: {}", uuidImage);
+        } catch (Exception e) {
+            log.error("Error guardando metadata: {}", e.getMessage());
+            if (moved) {
+                Files.move(filePath, uploadedFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            discardStoredFile(filePath);
+            throw new IOException("Error guardando metadata de imagen", e);
+        }
+        if (!moved) {
+            Files.delete(uploadedFile);
+        }
+
+        derivativeService.enqueue(uuidImage);
+
+        return uuidImage.toString();
+    }
+
+    /*
+     * Importacion desde un archivo: el lector del archivo escribe cada entrada en su
+     * directorio definitivo (secuencial), los trabajadores la validan y preparan su
+     * metadata en paralelo, y la metadata se inserta por lotes con saveImported.
+     * Una entrada que supera el tamano maximo se corta sin terminar de escribirla.
+     */
+    public Path storeImportedFile(InputStream input, String fileName, String userName, UUID imageId)
+            throws IOException {
+
+        Path dir = Paths.get(FILE_DIR, userName, imageId.toString());
+        Files.createDirectories(dir);
+        Path filePath = dir.resolve(fileName);
+
+        try {
+            writeFile(limit(input, ImageValidationUtils.MAX_FILE_SIZE), filePath, "import");
+        } catch (IOException | IllegalArgumentException e) {
+            discardStoredFile(filePath);
+            throw e;
+        }
+        return filePath;
+    }
+
+    // Valida el archivo ya escrito y construye su metadata sin guardarla
+    public ImageMetadata prepareImportedFile(UUID imageId, Path filePath, String userName) throws IOException {
+        try {
+            imageValidationUtils.validate(filePath.getFileName().toString(), Files.size(filePath),
+                    new FileSystemResource(filePath));
+        } catch (IOException | IllegalArgumentException e) {
+            discardStoredFile(filePath);
+            throw e;
+        }
+        return buildMetadata(imageId, filePath.getFileName().toString(), filePath, userName);
+    }
+
+    // Inserta la metadata de un lote importado con persist (sin SELECT previo por id) y en lotes JDBC
+    @Transactional
+    public void saveImported(List<ImageMetadata> images) {
+        for (ImageMetadata image : images) {
+            entityManager.persist(image);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        log.info("Metadata de imágenes importadas guardada en BD: {}", images.size());
+    }
+
+    // Las derivadas se encolan cuando la metadata ya esta confirmada
+    public void enqueueDerivatives(List<ImageMetadata> images) {
+        images.forEach(image -> derivativeService.enqueue(image.getId()));
+    }
+
+    public void discardStoredFile(Path filePath) {
+        try {
+            Files.deleteIfExists(filePath);
+            Files.deleteIfExists(filePath.getParent());
+        } catch (IOException e) {
+            log.debug("No se pudo limpiar la entrada importada {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    private void writeFile(InputStream input, Path filePath, String source) throws IOException {
+        FileIoEvent event = new FileIoEvent();
+        event.begin();
+        long start = System.nanoTime();
+        if (stripMetadata && isJpeg(filePath)) {
+            try (OutputStream output = Files.newOutputStream(filePath)) {
+                long removed = JpegMetadataStripper.strip(input, output);
+                log.info("Metadatos eliminados del JPEG: {} bytes", removed);
+            }
+        } else {
+            Files.copy(input, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        String name = filePath.getFileName().toString();
+        long bytes = Files.size(filePath);
+        pipelineMetrics.recordWrite(source, name.substring(name.lastIndexOf('.') + 1).toLowerCase(),
+                bytes, System.nanoTime() - start);
+        event.complete(source, filePath, bytes);
+    }
+
+    private ImageMetadata buildMetadata(UUID imageId, String imageName, Path filePath, String userName) {
+        LocalDateTime now = LocalDateTime.now();
+        return ImageMetadata.builder()
+                .id(imageId)
+                .imageName(imageName)
+                .inputPath(filePath.toString())
+                .userName(userName)
+                .registrationDate(now)
+                .dateOfUpdate(now)
+                .blurHash(placeholderService.compute(filePath.toFile()))
+                .build();
+    }
+
+    // Corta la lectura en cuanto se supera el tamano maximo
+    private static InputStream limit(InputStream input, long maxBytes) {
+        return new FilterInputStream(input) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    check(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    check(read);
+                }
+                return read;
+            }
+
+            private void check(int read) {
+                count += read;
+                if (count > maxBytes) {
+                    throw new IllegalArgumentException("El archivo excede el tamaño máximo permitido (10MB)");
+                }
+            }
+        };
+    }
+
+    private boolean isJpeg(Path filePath) {
+        String name = filePath.getFileName().toString().toLowerCase();
+        return name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
     /*
      * Recupera una imagen como Spring Resource.
      * CORREGIDO: Usando FileSystemResource en lugar de UrlResource
@@ -349,6 +556,10 @@ public class FileStorageService {
                 log.error("Error eliminando archivo transformado: {}", e.getMessage());
             }
         }
+
+        renderService.evict(image.getId());
+        previewService.evict(image.getId());
+        spriteService.evictUser(image.getUserName());
     }
 
     /*
@@ -1,16 +1,31 @@
 package com.example.ImageHub.service;
 
+import com.example.ImageHub.dto.imgDTO.TransformPipelineRequestDto;
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.model.ImageMetadata;
 import com.example.ImageHub.repository.ImageMetadataRepository;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.codec.ImageHeader;
+import com.example.ImageHub.utils.codec.Orientation;
+import com.example.ImageHub.utils.jfr.PipelineStepEvent;
+import com.example.ImageHub.utils.jfr.TransformEvent;
+import com.example.ImageHub.utils.metrics.PipelineMetrics;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import com.example.ImageHub.utils.plan.TransformPlanner;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,12 +41,132 @@ public class ImageProcService {
     @Autowired
     private List<ImageTransform> transform;
 
+    @Autowired
+    private TransformPlanner transformPlanner;
+
+    @Autowired
+    private ImageCodec imageCodec;
+
+    @Autowired
+    private RasterBufferPool rasterBufferPool;
+
+    @Autowired
+    private DecodeMemoryBudget decodeMemoryBudget;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Con el planificador activo la imagen se decodifica y codifica una sola vez.
+    // Desactivarlo vuelve a ejecutar las estrategias en su orden fijo.
+    @Value("${image.transform.planner.enabled:true}")
+    private boolean plannerEnabled;
+
+    // Aplica la orientacion EXIF de la fuente; evita que el cliente pida un rotate adicional
+    @Value("${image.transform.auto-orient:true}")
+    private boolean autoOrient;
+
     // Maneja las transformaciones de imagen aplicando las estrategias correspondientes
     public String transformImageHandler(String uuidImage, TransformRequestDto transformRequest)
             throws IOException, IllegalArgumentException {
 
         log.info("Iniciando transformacion de imagen: {}", uuidImage);
 
+        ImageMetadata metadata = findMetadata(uuidImage);
+        String previousPath = metadata.getTransformPath();
+        String transformPath = applyTransform(metadata, transformRequest);
+
+        imageMetadataRepository.save(metadata);
+        deleteReplacedTransform(previousPath, transformPath);
+        log.info("Transformacion completada. Ruta guardada en BD: {}", transformPath);
+        return transformPath;
+    }
+
+    // Aplica la transformacion y actualiza la ruta en la metadata sin guardarla,
+    // para que el llamador decida cuando persistir (p. ej. en lotes). La transformacion
+    // anterior se conserva hasta que el llamador guarde y llame a deleteReplacedTransform
+    public String applyTransform(ImageMetadata metadata, TransformRequestDto transformRequest)
+            throws IOException, IllegalArgumentException {
+
+        TransformEvent event = new TransformEvent();
+        event.begin();
+        String inputPath = metadata.getInputPath();
+
+        String transformPath;
+        int[] dimensions;
+        if (plannerEnabled) {
+            TransformPlan plan = buildPlan(inputPath, transformRequest);
+            dimensions = new int[]{plan.getSourceWidth(), plan.getSourceHeight()};
+            transformPath = executePlan(inputPath, plan);
+        } else {
+            // Cada estrategia decodifica la imagen completa y crea un raster del mismo tamano
+            dimensions = imageCodec.readDimensions(new File(inputPath));
+            decodeMemoryBudget.checkDimensions(dimensions[0], dimensions[1]);
+            try (DecodeMemoryBudget.Permit permit =
+                         decodeMemoryBudget.acquirePixels(2L * dimensions[0] * dimensions[1])) {
+                transformPath = applyStrategies(inputPath, transformRequest);
+            }
+        }
+
+        metadata.setTransformPath(transformPath);
+        event.complete(metadata.getId(), plannerEnabled ? "planner" : "strategies",
+                dimensions[0], dimensions[1], new File(transformPath));
+        return transformPath;
+    }
+
+    // Ejecuta una lista ordenada de operaciones con una sola decodificacion y codificacion
+    public String transformPipelineHandler(String uuidImage, TransformPipelineRequestDto pipelineRequest)
+            throws IOException, IllegalArgumentException {
+
+        log.info("Iniciando pipeline de transformacion de imagen: {}", uuidImage);
+
+        TransformEvent event = new TransformEvent();
+        event.begin();
+        ImageMetadata metadata = findMetadata(uuidImage);
+        String inputPath = metadata.getInputPath();
+
+        TransformPlan plan = buildPlan(inputPath, pipelineRequest);
+        String transformPath = executePlan(inputPath, plan);
+
+        saveTransformPath(metadata, transformPath);
+        event.complete(metadata.getId(), "pipeline", plan.getSourceWidth(), plan.getSourceHeight(),
+                new File(transformPath));
+        return transformPath;
+    }
+
+    private void saveTransformPath(ImageMetadata metadata, String transformPath) throws IOException {
+        String previousPath = metadata.getTransformPath();
+        metadata.setTransformPath(transformPath);
+
+        // Guardar ruta transformada en BD
+        imageMetadataRepository.save(metadata);
+        deleteReplacedTransform(previousPath, transformPath);
+        log.info("Transformacion completada. Ruta guardada en BD: {}", transformPath);
+    }
+
+    // Elimina una transformacion anterior guardada con otra extension; solo tras guardar la nueva ruta
+    public void deleteReplacedTransform(String previousPath, String transformPath) throws IOException {
+        if (previousPath != null && !previousPath.equals(transformPath)) {
+            Files.deleteIfExists(Path.of(previousPath));
+        }
+    }
+
+    // Construye el plan de ejecucion sin aplicarlo (depuracion)
+    public TransformPlan explainTransform(String uuidImage, TransformRequestDto transformRequest)
+            throws IOException, IllegalArgumentException {
+
+        ImageMetadata metadata = findMetadata(uuidImage);
+        return buildPlan(metadata.getInputPath(), transformRequest);
+    }
+
+    // Construye el plan de un pipeline sin aplicarlo, incluye su coste estimado
+    public TransformPlan explainPipeline(String uuidImage, TransformPipelineRequestDto pipelineRequest)
+            throws IOException, IllegalArgumentException {
+
+        ImageMetadata metadata = findMetadata(uuidImage);
+        return buildPlan(metadata.getInputPath(), pipelineRequest);
+    }
+
+    private ImageMetadata findMetadata(String uuidImage) throws IOException {
         // Validar y obtener metadatos
         Optional<ImageMetadata> imageMeta = imageMetadataRepository.findById(UUID.fromString(uuidImage));
         if (imageMeta.isEmpty()) {
@@ -39,21 +174,102 @@ public class ImageProcService {
         }
 
         String inputPath = imageMeta.get().getInputPath();
-        File originalFile = new File(inputPath);
-
-        if (!originalFile.exists()) {
+        if (!new File(inputPath).exists()) {
             throw new IOException("Ruta de archivo no existe: " + inputPath);
         }
+        return imageMeta.get();
+    }
+
+    private TransformPlan buildPlan(String inputPath, TransformRequestDto transformRequest) throws IOException {
+        ImageHeader header = readHeader(inputPath);
+        return transformPlanner.plan(transformRequest, header.getWidth(), header.getHeight(),
+                getImageFormat(inputPath), header.getOrientation());
+    }
+
+    private TransformPlan buildPlan(String inputPath, TransformPipelineRequestDto pipelineRequest) throws IOException {
+        ImageHeader header = readHeader(inputPath);
+        return transformPlanner.plan(pipelineRequest, header.getWidth(), header.getHeight(),
+                getImageFormat(inputPath), header.getOrientation());
+    }
+
+    // Cabecera de la imagen con la orientacion que se aplicara al transformarla
+    public ImageHeader readHeader(String inputPath) throws IOException {
+        ImageHeader header = imageCodec.readHeader(new File(inputPath));
+        decodeMemoryBudget.checkDimensions(header.getWidth(), header.getHeight());
+        if (!autoOrient) {
+            return new ImageHeader(header.getWidth(), header.getHeight(), Orientation.NORMAL);
+        }
+        return header;
+    }
+
+    private String getImageFormat(String imagePath) {
+        return imagePath.substring(imagePath.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    // Decodifica una vez, ejecuta el plan y codifica una vez en el formato final
+    private String executePlan(String inputPath, TransformPlan plan) throws IOException {
+        log.info("Plan de transformacion (coste estimado {} px): {}", plan.getEstimatedCost(), plan);
+
+        String[] splitPath = inputPath.split("\\.(?=[^\\.]+$)");
+        String transformPath = splitPath[0] + "_transform." + plan.getFormat();
+
+        long bytes = renderPlan(inputPath, plan, new File(transformPath));
+        log.info("Imagen transformada codificada: {} bytes", bytes);
+        return transformPath;
+    }
+
+    // Ejecuta un plan sobre la imagen indicada y lo codifica en target; devuelve los bytes escritos
+    public long renderPlan(String inputPath, TransformPlan plan, File target) throws IOException {
+        // La memoria del plan se reserva antes de decodificar
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(plan.getPeakPixels());
+             BufferScope scope = rasterBufferPool.openScope()) {
+            BufferedImage source = imageCodec.decode(new File(inputPath));
+            BufferedImage result = plan.execute(source, scope, pipelineMetrics.stepObserver(plan.getFormat()));
+            return imageCodec.encode(result, plan.getFormat(), plan.getEncodeOptions(), target);
+        }
+    }
+
+    // Ejecuta varios planes sobre una sola decodificacion de la imagen; devuelve los bytes escritos.
+    // Ningun paso modifica su entrada, asi que la fuente se comparte entre los planes
+    public long renderPlans(String inputPath, List<TransformPlan> plans, List<File> targets) throws IOException {
+        if (plans.isEmpty()) {
+            return 0;
+        }
+        long peakPixels = plans.stream().mapToLong(TransformPlan::getPeakPixels).max().orElse(0);
+        long bytes = 0;
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(peakPixels)) {
+            BufferedImage source = imageCodec.decode(new File(inputPath));
+            for (int i = 0; i < plans.size(); i++) {
+                TransformPlan plan = plans.get(i);
+                try (BufferScope scope = rasterBufferPool.openScope()) {
+                    BufferedImage result = plan.execute(source, scope, pipelineMetrics.stepObserver(plan.getFormat()));
+                    bytes += imageCodec.encode(result, plan.getFormat(), plan.getEncodeOptions(), targets.get(i));
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // Ejecucion clasica: cada estrategia lee y escribe el archivo en orden fijo
+    private String applyStrategies(String inputPath, TransformRequestDto transformRequest) throws IOException {
 
         // Crear copia transformada
         String transformPath = createTransformedCopy(inputPath);
         log.info("Copia transformada creada en: {}", transformPath);
 
         // Aplicar estrategias segun solicitud
+        int[] dimensions = imageCodec.readDimensions(new File(transformPath));
+        long pixels = (long) dimensions[0] * dimensions[1];
         for (ImageTransform strategy : transform) {
             if (strategy.canHandle(transformRequest)) {
                 try {
+                    PipelineStepEvent event = new PipelineStepEvent();
+                    event.begin();
+                    long start = System.nanoTime();
                     strategy.transform(transformPath, transformRequest);
+                    pipelineMetrics.recordStrategy(strategy.getClass().getSimpleName(),
+                            getImageFormat(transformPath), pixels, System.nanoTime() - start);
+                    event.complete("strategy", strategy.getClass().getSimpleName(), dimensions[0], dimensions[1]);
                     log.info("Estrategia {} aplicada exitosamente", strategy.getClass().getSimpleName());
                 } catch (IOException e) {
                     log.error("Error aplicando estrategia {}: {}",
@@ -71,21 +287,20 @@ public class ImageProcService {
             transformPath = finalTransformPath;
         }
 
-        // Guardar ruta transformada en BD
-        ImageMetadata metadata = imageMeta.get();
-        metadata.setTransformPath(transformPath);
-        imageMetadataRepository.save(metadata);
-        log.info("Transformacion completada. Ruta guardada en BD: {}", transformPath);
-
         return transformPath;
     }
 
-    // Crea una copia de la imagen original con sufijo _transform
+    // Crea una copia de la imagen original con sufijo _transform, ya orientada
     private String createTransformedCopy(String inputPath) throws IOException {
-        BufferedImage originalImage = ImageIO.read(new File(inputPath));
+        ImageHeader header = readHeader(inputPath);
+        BufferedImage originalImage = imageCodec.decode(new File(inputPath));
         String[] splitPath = inputPath.split("\\.(?=[^\\.]+$)");
         String transformPath = splitPath[0] + "_transform." + splitPath[1];
-        ImageIO.write(originalImage, splitPath[1], new File(transformPath));
+        if (header.getOrientation() != Orientation.NORMAL) {
+            originalImage = transformPlanner.plan(List.of(), header.getWidth(), header.getHeight(),
+                    splitPath[1], EncodeOptions.DEFAULT, header.getOrientation()).execute(originalImage);
+        }
+        imageCodec.encode(originalImage, splitPath[1], EncodeOptions.DEFAULT, new File(transformPath));
         return transformPath;
     }
 
@@ -0,0 +1,302 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.ImportProgressEvent;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.utils.ImageValidationUtils;
+import com.example.ImageHub.utils.archive.ArchiveReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Importa un ZIP, TAR o TAR.GZ con imagenes recibido como cuerpo de la peticion.
+ *
+ * - El archivo se lee como flujo en un hilo lector; cada entrada se escribe
+ *   directamente en su directorio definitivo, sin extraer el archivo antes.
+ * - La validacion, el BlurHash y la metadata se preparan en un pool de tamano
+ *   fijo; el lector espera si hay demasiadas entradas pendientes.
+ * - La metadata se inserta por lotes de save-batch-size y cada entrada se
+ *   notifica por SSE al confirmarse su lote; si el cliente deja de escuchar la
+ *   importacion continua mientras siga llegando el archivo.
+ */
+@Slf4j
+@Service
+public class ImportService {
+
+    private final FileStorageService fileStorageService;
+    private final ImageValidationUtils imageValidationUtils;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService readers;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final int saveBatchSize;
+    private final int maxEntries;
+    private final long timeoutMillis;
+
+    public ImportService(FileStorageService fileStorageService,
+                         ImageValidationUtils imageValidationUtils,
+                         MeterRegistry meterRegistry,
+                         @Value("${image.import.workers:4}") int workerCount,
+                         @Value("${image.import.save-batch-size:50}") int saveBatchSize,
+                         @Value("${image.import.max-entries:10000}") int maxEntries,
+                         @Value("${image.import.timeout-ms:3600000}") long timeoutMillis) {
+        this.fileStorageService = fileStorageService;
+        this.imageValidationUtils = imageValidationUtils;
+        this.meterRegistry = meterRegistry;
+        this.maxInFlight = Math.max(1, workerCount) * 2;
+        this.saveBatchSize = Math.max(1, saveBatchSize);
+        this.maxEntries = maxEntries;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger readerIndex = new AtomicInteger();
+        this.readers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "import-reader-" + readerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), runnable -> {
+            Thread thread = new Thread(runnable, "import-worker-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Reconoce el formato, lanza la lectura y devuelve el emisor por el que llega el progreso
+    public SseEmitter start(String userName, InputStream body) throws IOException {
+        ArchiveReader archive = ArchiveReader.open(body);
+        log.info("Importacion iniciada por {}", userName);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Import job = new Import(emitter);
+        readers.execute(() -> read(userName, archive, job));
+        return emitter;
+    }
+
+    private void read(String userName, ArchiveReader archive, Import job) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        try (archive) {
+            int entries = 0;
+            ArchiveReader.Entry entry;
+            while ((entry = archive.next()) != null) {
+                String fileName = fileName(entry);
+                if (fileName == null) {
+                    continue;
+                }
+                if (!imageValidationUtils.hasValidExtension(fileName)) {
+                    job.skipped(entry.name(), "Extension no soportada");
+                    continue;
+                }
+                if (++entries > maxEntries) {
+                    job.error("El archivo supera el maximo de " + maxEntries + " imagenes; se omite el resto");
+                    break;
+                }
+
+                inFlight.acquire();
+                UUID imageId = UUID.randomUUID();
+                Path stored;
+                try {
+                    stored = fileStorageService.storeImportedFile(archive.data(), fileName, userName, imageId);
+                } catch (IllegalArgumentException e) {
+                    inFlight.release();
+                    job.failed(entry.name(), e.getMessage());
+                    continue;
+                }
+
+                String entryName = entry.name();
+                job.submitted();
+                CompletableFuture
+                        .supplyAsync(() -> prepare(imageId, stored, userName), workers)
+                        .whenComplete((image, error) -> {
+                            inFlight.release();
+                            if (error == null) {
+                                job.prepared(entryName, image);
+                            } else {
+                                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                                job.rejected(entryName, cause.getMessage());
+                            }
+                        });
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Importacion interrumpida: {}", e.getMessage());
+            job.error("Archivo corrupto o incompleto: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.error("Importacion cancelada");
+        } finally {
+            job.readingFinished();
+        }
+    }
+
+    private ImageMetadata prepare(UUID imageId, Path stored, String userName) {
+        try {
+            return fileStorageService.prepareImportedFile(imageId, stored, userName);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Solo el nombre final de la entrada; se ignoran directorios y archivos ocultos (__MACOSX, .DS_Store)
+    private static String fileName(ArchiveReader.Entry entry) {
+        if (!entry.file() || entry.name().contains("__MACOSX/")) {
+            return null;
+        }
+        String name = entry.name().substring(Math.max(entry.name().lastIndexOf('/'), entry.name().lastIndexOf('\\')) + 1);
+        if (name.isEmpty() || name.startsWith(".")) {
+            return null;
+        }
+        return name.replaceAll("[:*?\"<>|\\p{Cntrl}]", "_");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Estado de una importacion; el lector y los trabajadores lo actualizan bajo su monitor
+    private final class Import {
+
+        private final SseEmitter emitter;
+        private final List<Map.Entry<String, ImageMetadata>> pendingSaves = new ArrayList<>();
+        private int submitted;
+        private int finishedWorkers;
+        private boolean readingDone;
+        private int processed;
+        private int imported;
+        private int failed;
+        private int skipped;
+
+        private Import(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        synchronized void submitted() {
+            submitted++;
+        }
+
+        synchronized void prepared(String entry, ImageMetadata image) {
+            finishedWorkers++;
+            pendingSaves.add(Map.entry(entry, image));
+            if (pendingSaves.size() >= saveBatchSize) {
+                flush();
+            }
+            finishIfComplete();
+        }
+
+        // La validacion de un trabajador rechazo la entrada
+        synchronized void rejected(String entry, String error) {
+            finishedWorkers++;
+            failed(entry, error);
+            finishIfComplete();
+        }
+
+        synchronized void failed(String entry, String error) {
+            processed++;
+            failed++;
+            meterRegistry.counter("imagehub.import", "result", "failed").increment();
+            send("progress", event(entry, null, ImportProgressEvent.Status.FAILED, error));
+        }
+
+        synchronized void skipped(String entry, String reason) {
+            processed++;
+            skipped++;
+            meterRegistry.counter("imagehub.import", "result", "skipped").increment();
+            send("progress", event(entry, null, ImportProgressEvent.Status.SKIPPED, reason));
+        }
+
+        synchronized void error(String message) {
+            send("error", Map.of("error", message));
+        }
+
+        synchronized void readingFinished() {
+            readingDone = true;
+            finishIfComplete();
+        }
+
+        private void finishIfComplete() {
+            if (readingDone && finishedWorkers == submitted) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            flush();
+            Map<String, Integer> summary = new LinkedHashMap<>();
+            summary.put("processed", processed);
+            summary.put("imported", imported);
+            summary.put("failed", failed);
+            summary.put("skipped", skipped);
+            send("complete", summary);
+            emitter.complete();
+            log.info("Importacion terminada: {} importadas, {} fallidas, {} omitidas", imported, failed, skipped);
+        }
+
+        // Inserta el lote pendiente y solo entonces informa las entradas como importadas
+        private void flush() {
+            if (pendingSaves.isEmpty()) {
+                return;
+            }
+            List<Map.Entry<String, ImageMetadata>> batch = new ArrayList<>(pendingSaves);
+            pendingSaves.clear();
+            List<ImageMetadata> images = batch.stream().map(Map.Entry::getValue).toList();
+            try {
+                fileStorageService.saveImported(images);
+            } catch (Exception e) {
+                log.error("Error guardando metadata de la importacion: {}", e.getMessage());
+                batch.forEach(pending -> {
+                    fileStorageService.discardStoredFile(Path.of(pending.getValue().getInputPath()));
+                    failed(pending.getKey(), "Error guardando metadata de imagen");
+                });
+                return;
+            }
+            fileStorageService.enqueueDerivatives(images);
+            batch.forEach(pending -> {
+                processed++;
+                imported++;
+                send("progress", event(pending.getKey(), pending.getValue().getId(),
+                        ImportProgressEvent.Status.IMPORTED, null));
+            });
+            meterRegistry.counter("imagehub.import", "result", "imported").increment(images.size());
+        }
+
+        private ImportProgressEvent event(String entry, UUID imageId, ImportProgressEvent.Status status, String error) {
+            return ImportProgressEvent.builder()
+                    .entry(entry)
+                    .imageId(imageId)
+                    .status(status)
+                    .error(error)
+                    .processed(processed)
+                    .imported(imported)
+                    .failed(failed)
+                    .build();
+        }
+
+        private void send(String name, Object data) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: la importacion sigue y los resultados se guardan
+                log.debug("No se pudo enviar progreso de la importacion: {}", e.getMessage());
+            }
+        }
+    }
+}
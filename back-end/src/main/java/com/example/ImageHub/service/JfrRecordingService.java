@@ -0,0 +1,163 @@
+package com.example.ImageHub.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Grabaciones de Java Flight Recorder bajo demanda (ver JfrRecordingEndpoint).
+ *
+ * Ademas de los eventos del JDK (GC, bloqueos, E/S, CPU) recogen los eventos
+ * propios de utils/jfr: peticiones de transformacion, pasos y estrategias,
+ * llamadas al codec, escrituras a disco y consultas a repositorios. Con
+ * image.jfr.continuous=true se graba siempre con la configuracion "default"
+ * (sobrecarga en torno al 1 %) y se conserva una ventana de image.jfr.max-age-minutes;
+ * cuando un nodo se degrada basta con volcarla.
+ */
+@Slf4j
+@Service
+public class JfrRecordingService {
+
+    public static final String CONTINUOUS = "imagehub-continuous";
+
+    private static final DateTimeFormatter FILE_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path dir;
+    private final boolean continuous;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    // Estado de una grabacion; file es el ultimo volcado, si lo hay
+    public record RecordingInfo(long id, String name, RecordingState state, Instant startTime,
+                                Duration duration, String file, Long bytes) {
+    }
+
+    public JfrRecordingService(@Value("${image.jfr.dir:${java.io.tmpdir}}") String dir,
+                               @Value("${image.jfr.continuous:false}") boolean continuous,
+                               @Value("${image.jfr.max-age-minutes:360}") long maxAgeMinutes,
+                               @Value("${image.jfr.max-size-megabytes:512}") long maxSizeMegabytes) {
+        this.dir = Paths.get(dir);
+        this.continuous = continuous;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMegabytes * 1024 * 1024;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuous() throws IOException, ParseException {
+        if (continuous) {
+            RecordingInfo info = start(CONTINUOUS, "default", null);
+            log.info("Grabacion JFR continua iniciada (id {}), ventana de {} minutos", info.id(), maxAge.toMinutes());
+        }
+    }
+
+    // settings: "default" (baja sobrecarga) o "profile" (mas detalle); duration null = hasta detenerla
+    public RecordingInfo start(String name, String settings, Duration duration) throws IOException, ParseException {
+        String configurationName = settings == null ? "profile" : settings;
+        if (!configurationName.equals("default") && !configurationName.equals("profile")) {
+            throw new IllegalArgumentException("Configuracion JFR invalida: " + settings + ". Use 'default' o 'profile'");
+        }
+        Configuration configuration = Configuration.getConfiguration(configurationName);
+        Recording recording = new Recording(configuration);
+        recording.setName(name == null || name.isBlank() ? "imagehub" : name);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        if (duration != null) {
+            // Al cumplir la duracion JFR la vuelca sola en el archivo
+            Files.createDirectories(dir);
+            recording.setDestination(file(recording));
+            recording.setDuration(duration);
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Grabacion JFR {} ({}) iniciada con configuracion {}", recording.getId(), recording.getName(),
+                configuration.getName());
+        return info(recording, null);
+    }
+
+    // Vuelca lo grabado hasta ahora sin detener la grabacion; null si no existe
+    public RecordingInfo dump(long id) throws IOException {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return null;
+        }
+        Path file = file(recording);
+        Files.createDirectories(dir);
+        recording.dump(file);
+        return info(recording, file);
+    }
+
+    // Detiene la grabacion, la vuelca y libera sus datos; null si no existe
+    public RecordingInfo stop(long id) throws IOException {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return null;
+        }
+        try {
+            Path file = recording.getDestination();
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            if (file == null || !Files.exists(file)) {
+                file = file(recording);
+                Files.createDirectories(dir);
+                recording.dump(file);
+            }
+            log.info("Grabacion JFR {} detenida y guardada en {}", id, file);
+            return info(recording, file);
+        } finally {
+            recording.close();
+        }
+    }
+
+    public List<RecordingInfo> list() {
+        return recordings.values().stream()
+                .map(recording -> info(recording, recording.getDestination()))
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Path file(Recording recording) {
+        return dir.resolve(recording.getName().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + recording.getId()
+                + "-" + FILE_TIME.format(Instant.now()) + ".jfr");
+    }
+
+    private static RecordingInfo info(Recording recording, Path file) {
+        Long bytes = null;
+        if (file != null) {
+            try {
+                bytes = Files.size(file);
+            } catch (IOException e) {
+                // Aun no volcada
+            }
+        }
+        return new RecordingInfo(recording.getId(), recording.getName(), recording.getState(),
+                recording.getStartTime(), recording.getDuration(), file == null ? null : file.toString(), bytes);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.BlurHash;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.codec.ImageHeader;
+import com.example.ImageHub.utils.plan.Operation;
+import com.example.ImageHub.utils.plan.TransformPlanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Marcador BlurHash que la galeria pinta mientras llega la imagen real.
+ *
+ * Se calcula una sola vez al subir la imagen: se decodifica submuestreada hasta
+ * un lado de unos sample-edge pixeles, se orienta y se reduce con el planificador,
+ * y se resume en components-x x components-y componentes. El resultado se guarda
+ * en la metadata y viaja en los listados, sin peticiones adicionales por imagen.
+ */
+@Slf4j
+@Service
+public class PlaceholderService {
+
+    private final ImageCodec imageCodec;
+    private final TransformPlanner transformPlanner;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${image.placeholder.enabled:true}")
+    private boolean enabled;
+
+    @Value("${image.placeholder.sample-edge:32}")
+    private int sampleEdge;
+
+    @Value("${image.placeholder.components-x:4}")
+    private int componentsX;
+
+    @Value("${image.placeholder.components-y:3}")
+    private int componentsY;
+
+    public PlaceholderService(ImageCodec imageCodec, TransformPlanner transformPlanner,
+                              DecodeMemoryBudget decodeMemoryBudget, MeterRegistry meterRegistry) {
+        this.imageCodec = imageCodec;
+        this.transformPlanner = transformPlanner;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // BlurHash de la imagen o null si no se pudo calcular; nunca hace fallar la subida
+    public String compute(File input) {
+        if (!enabled) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            ImageHeader header = imageCodec.readHeader(input);
+            int width = header.getWidth();
+            int height = header.getHeight();
+            int factor = ImageCodec.subsampling(width, height, sampleEdge);
+            long decodedPixels = (long) ((width + factor - 1) / factor) * ((height + factor - 1) / factor);
+
+            BufferedImage sample;
+            try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(2 * decodedPixels)) {
+                sample = reduce(imageCodec.decodeSubsampled(input, sampleEdge), header);
+            }
+
+            // Lo transparente cuenta como fondo blanco, igual que al servir la imagen en JPEG
+            String hash = BlurHash.encode(ImageCodec.flatten(sample), componentsX, componentsY);
+            Timer.builder("imagehub.placeholder")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return hash;
+        } catch (Exception e) {
+            meterRegistry.counter("imagehub.placeholder.failed").increment();
+            log.warn("No se pudo calcular el marcador de {}: {}", input.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Aplica la orientacion y deja el lado mayor en sampleEdge; el plan conserva el canal alfa
+    private BufferedImage reduce(BufferedImage decoded, ImageHeader header) {
+        boolean swap = header.getOrientation().swapsAxes();
+        int orientedWidth = swap ? decoded.getHeight() : decoded.getWidth();
+        int orientedHeight = swap ? decoded.getWidth() : decoded.getHeight();
+        double scale = Math.min(1.0, (double) sampleEdge / Math.max(orientedWidth, orientedHeight));
+        int targetWidth = Math.max(1, (int) Math.round(orientedWidth * scale));
+        int targetHeight = Math.max(1, (int) Math.round(orientedHeight * scale));
+
+        return transformPlanner.plan(List.of(Operation.resize(targetWidth, targetHeight)),
+                        decoded.getWidth(), decoded.getHeight(), "png", EncodeOptions.DEFAULT, header.getOrientation())
+                .execute(decoded);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.buffer.PreviewProxyCache;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.codec.ImageHeader;
+import com.example.ImageHub.utils.codec.Orientation;
+import com.example.ImageHub.utils.plan.Operation;
+import com.example.ImageHub.utils.plan.ResampleStep;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import com.example.ImageHub.utils.plan.TransformPlanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Vista previa interactiva de transformaciones.
+ *
+ * La primera vista previa de una imagen decodifica el original submuestreado y
+ * lo reduce a un proxy con el lado mayor <= max-edge que queda en memoria. Las
+ * siguientes ejecutan el plan de la solicitud sobre ese proxy y devuelven los
+ * bytes sin escribir archivos ni tocar la base de datos. La transformacion a
+ * resolucion completa solo se ejecuta con el endpoint /transform.
+ */
+@Slf4j
+@Service
+public class PreviewService {
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final ImageProcService imageProcService;
+    private final TransformPlanner transformPlanner;
+    private final ImageCodec imageCodec;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+    private final RasterBufferPool rasterBufferPool;
+    private final MeterRegistry meterRegistry;
+    private final PreviewProxyCache proxyCache;
+    private final int maxEdge;
+
+    // Proxies en construccion: las vistas previas simultaneas de una imagen esperan al primero
+    private final ConcurrentMap<UUID, CompletableFuture<PreviewProxyCache.Proxy>> loading = new ConcurrentHashMap<>();
+
+    public PreviewService(ImageMetadataRepository imageMetadataRepository, ImageProcService imageProcService,
+                          TransformPlanner transformPlanner, ImageCodec imageCodec,
+                          DecodeMemoryBudget decodeMemoryBudget, RasterBufferPool rasterBufferPool,
+                          MeterRegistry meterRegistry,
+                          @Value("${image.preview.max-edge:1024}") int maxEdge,
+                          @Value("${image.preview.cache-megabytes:128}") long cacheMegabytes) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.imageProcService = imageProcService;
+        this.transformPlanner = transformPlanner;
+        this.imageCodec = imageCodec;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        this.rasterBufferPool = rasterBufferPool;
+        this.meterRegistry = meterRegistry;
+        this.maxEdge = maxEdge;
+        this.proxyCache = new PreviewProxyCache(cacheMegabytes * 1024 * 1024);
+    }
+
+    // Resultado codificado de una vista previa
+    public static final class Preview {
+        private final byte[] data;
+        private final String format;
+        private final int width;
+        private final int height;
+
+        private Preview(byte[] data, String format, int width, int height) {
+            this.data = data;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    public Preview preview(String userName, String imageId, TransformRequestDto request) throws IOException {
+        long start = System.nanoTime();
+
+        UUID uuid = UUID.fromString(imageId);
+        Optional<ImageMetadata> imgMeta = imageMetadataRepository.findByIdAndUserName(uuid, userName);
+        if (imgMeta.isEmpty()) {
+            throw new IllegalArgumentException("Imagen no encontrada o no pertenece al usuario: " + imageId);
+        }
+        String inputPath = imgMeta.get().getInputPath();
+        File input = new File(inputPath);
+        if (!input.exists()) {
+            throw new IOException("Ruta de archivo no existe: " + inputPath);
+        }
+
+        ImageHeader header = imageProcService.readHeader(inputPath);
+        PreviewProxyCache.Proxy proxy = proxy(uuid, input, header);
+        BufferedImage proxyImage = proxy.getImage();
+
+        String sourceFormat = inputPath.substring(inputPath.lastIndexOf('.') + 1).toLowerCase();
+        TransformPlan plan = transformPlanner.planPreview(request, header.getWidth(), header.getHeight(),
+                sourceFormat, header.getOrientation(), proxyImage.getWidth(), proxyImage.getHeight());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(plan.getPeakPixels());
+             BufferScope scope = rasterBufferPool.openScope()) {
+            BufferedImage result = plan.execute(sourceFor(plan, proxyImage), scope);
+            imageCodec.encode(result, plan.getFormat(), plan.getEncodeOptions(), output);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("imagehub.preview")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.debug("Vista previa de {} en {} ms: {}", imageId, TimeUnit.NANOSECONDS.toMillis(elapsed), plan);
+
+        return new Preview(output.toByteArray(), plan.getFormat(), plan.getOutputWidth(), plan.getOutputHeight());
+    }
+
+    // Los filtros de color trabajan en sitio: si no hay un remuestreo antes, el plan
+    // recibe una copia para no alterar el proxy compartido
+    private BufferedImage sourceFor(TransformPlan plan, BufferedImage proxyImage) {
+        if (plan.getSteps().isEmpty() || plan.getSteps().get(0) instanceof ResampleStep) {
+            return proxyImage;
+        }
+        return new BufferedImage(proxyImage.getColorModel(),
+                proxyImage.copyData(null), proxyImage.isAlphaPremultiplied(), null);
+    }
+
+    // Descarta el proxy de una imagen eliminada
+    public void evict(UUID imageId) {
+        proxyCache.remove(imageId);
+    }
+
+    private PreviewProxyCache.Proxy proxy(UUID imageId, File input, ImageHeader header) throws IOException {
+        long version = input.lastModified();
+        PreviewProxyCache.Proxy cached = proxyCache.get(imageId, version);
+        if (cached != null) {
+            meterRegistry.counter("imagehub.preview.proxy", "result", "hit").increment();
+            return cached;
+        }
+
+        CompletableFuture<PreviewProxyCache.Proxy> pending = new CompletableFuture<>();
+        CompletableFuture<PreviewProxyCache.Proxy> existing = loading.putIfAbsent(imageId, pending);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            meterRegistry.counter("imagehub.preview.proxy", "result", "miss").increment();
+            PreviewProxyCache.Proxy proxy = new PreviewProxyCache.Proxy(loadProxy(input, header), version);
+            proxyCache.put(imageId, proxy);
+            pending.complete(proxy);
+            return proxy;
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(imageId, pending);
+        }
+    }
+
+    // Decodifica submuestreado y termina de reducir con el planificador; el proxy conserva
+    // la orientacion almacenada para que el plan de la vista previa la aplique igual que el completo
+    private BufferedImage loadProxy(File input, ImageHeader header) throws IOException {
+        int width = header.getWidth();
+        int height = header.getHeight();
+        int factor = ImageCodec.subsampling(width, height, maxEdge);
+        long decodedPixels = (long) ((width + factor - 1) / factor) * ((height + factor - 1) / factor);
+
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(2 * decodedPixels)) {
+            BufferedImage decoded = imageCodec.decodeSubsampled(input, maxEdge);
+            int longEdge = Math.max(decoded.getWidth(), decoded.getHeight());
+            if (longEdge <= maxEdge) {
+                return decoded;
+            }
+
+            double scale = (double) maxEdge / longEdge;
+            int proxyWidth = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+            int proxyHeight = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+            return transformPlanner.plan(List.of(Operation.resize(proxyWidth, proxyHeight)),
+                            decoded.getWidth(), decoded.getHeight(), "png", EncodeOptions.DEFAULT, Orientation.NORMAL)
+                    .execute(decoded);
+        }
+    }
+
+    private PreviewProxyCache.Proxy await(CompletableFuture<PreviewProxyCache.Proxy> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Error generando el proxy de vista previa", cause);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.blob.BlobSegmentStore;
+import com.example.ImageHub.utils.blob.MappedBlobResource;
+import com.example.ImageHub.utils.codec.ImageHeader;
+import com.example.ImageHub.utils.plan.ClientHints;
+import com.example.ImageHub.utils.plan.RenderSpec;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import com.example.ImageHub.utils.plan.TransformPlanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/*
+ * Renders bajo demanda servidos por GET con cache en disco.
+ *
+ * Cada render se guarda en <cache-dir>/<imageId>/<clave canonica>-<version>.
+ * La version sale de la fecha de modificacion del original, asi que un archivo
+ * en cache nunca cambia de contenido y puede servirse como inmutable. Las
+ * dimensiones y calidades aceptadas estan limitadas por configuracion para que
+ * no se pueda llenar la cache con variantes arbitrarias.
+ *
+ * Los renders pequenos (hasta image.blob.max-kilobytes) no ocupan un archivo
+ * propio: se anexan al almacen de segmentos con la clave <imageId>/<archivo> y
+ * se sirven desde su mapeo en memoria.
+ */
+@Slf4j
+@Service
+public class RenderService {
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final ImageProcService imageProcService;
+    private final TransformPlanner transformPlanner;
+    private final MeterRegistry meterRegistry;
+    private final BlobSegmentStore blobStore;
+
+    // La compactacion de segmentos corre fuera del hilo que elimina la imagen
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blob-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Renders en curso: solicitudes concurrentes de la misma variante esperan al primero
+    private final ConcurrentMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${image.render.cache-dir:${java.io.tmpdir}/imagehub-render}")
+    private String cacheDir;
+
+    // Anchos y altos permitidos en w y h
+    @Value("${image.render.allowed-sizes:160,320,640,1024,1920}")
+    private List<Integer> allowedSizes;
+
+    // Calidades permitidas en q (solo formatos con perdida)
+    @Value("${image.render.allowed-qualities:50,75,85,95}")
+    private List<Integer> allowedQualities;
+
+    // Renders de hasta este tamano se guardan en el almacen de segmentos (0 = desactivado)
+    @Value("${image.blob.max-kilobytes:64}")
+    private long blobMaxKilobytes;
+
+    // Fraccion de bytes muertos a partir de la cual se compacta un segmento
+    @Value("${image.blob.compact-dead-ratio:0.5}")
+    private double compactDeadRatio;
+
+    public RenderService(ImageMetadataRepository imageMetadataRepository, ImageProcService imageProcService,
+                         TransformPlanner transformPlanner, MeterRegistry meterRegistry,
+                         BlobSegmentStore blobStore) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.imageProcService = imageProcService;
+        this.transformPlanner = transformPlanner;
+        this.meterRegistry = meterRegistry;
+        this.blobStore = blobStore;
+    }
+
+    // Variante resuelta: se conoce su ETag antes de renderizarla
+    public static final class RenderTarget {
+        private final String inputPath;
+        private final RenderSpec spec;
+        private final Path path;
+        private final String eTag;
+
+        private RenderTarget(String inputPath, RenderSpec spec, Path path, String eTag) {
+            this.inputPath = inputPath;
+            this.spec = spec;
+            this.path = path;
+            this.eTag = eTag;
+        }
+
+        public RenderSpec getSpec() {
+            return spec;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        // Clave del render en el almacen de segmentos
+        String getBlobKey() {
+            return path.getParent().getFileName() + "/" + path.getFileName();
+        }
+
+        public String getContentType() {
+            return RenderService.contentType(spec.getFormat());
+        }
+
+        // Nombre del original con la extension del formato renderizado
+        public String getFileName() {
+            String name = Paths.get(inputPath).getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            return (dot < 0 ? name : name.substring(0, dot)) + "." + spec.getFormat();
+        }
+    }
+
+    // Valida los parametros y calcula la ruta en cache sin decodificar la imagen
+    public RenderTarget resolve(String userName, String imageId, Integer width, Integer height, String fit,
+                                String format, Integer quality) throws IOException {
+
+        checkAllowed("w", width, allowedSizes);
+        checkAllowed("h", height, allowedSizes);
+        checkAllowed("q", quality, allowedQualities);
+
+        UUID uuid = UUID.fromString(imageId);
+        String inputPath = findInputPath(uuid, userName);
+        RenderSpec spec = RenderSpec.of(width, height, fit, format, quality, getImageFormat(inputPath));
+        return target(uuid, inputPath, spec);
+    }
+
+    // Variantes de ancho fijo en el formato original, con una sola consulta de metadata.
+    // Sin comprobar el propietario: solo para derivadas internas y URLs ya firmadas
+    public List<RenderTarget> resolveWidths(UUID imageId, List<Integer> widths) throws IOException {
+        String inputPath = checkInputPath(imageMetadataRepository.findById(imageId), imageId);
+        String sourceFormat = getImageFormat(inputPath);
+        List<RenderTarget> targets = new ArrayList<>();
+        for (Integer width : widths) {
+            targets.add(target(imageId, inputPath, RenderSpec.of(width, null, null, null, null, sourceFormat)));
+        }
+        return targets;
+    }
+
+    // Variante de ancho fijo de una imagen cuya metadata ya se tiene
+    public RenderTarget resolveWidth(ImageMetadata image, int width) throws IOException {
+        checkWidth(width);
+        String inputPath = image.getInputPath();
+        if (inputPath == null || !new File(inputPath).exists()) {
+            throw new IOException("Archivo no presente en sistema de archivos: " + inputPath);
+        }
+        RenderSpec spec = RenderSpec.of(width, null, null, null, null, getImageFormat(inputPath));
+        return target(image.getId(), inputPath, spec);
+    }
+
+    // Elige la variante segun Accept y las client hints; null si conviene servir el original
+    public RenderTarget negotiate(String userName, String imageId, ClientHints hints) throws IOException {
+        UUID uuid = UUID.fromString(imageId);
+        String inputPath = findInputPath(uuid, userName);
+        RenderSpec spec = RenderSpec.negotiate(hints, getImageFormat(inputPath), allowedSizes, allowedQualities);
+        if (spec == null) {
+            return null;
+        }
+        log.debug("Variante negociada para {}: {}", imageId, spec);
+        return target(uuid, inputPath, spec);
+    }
+
+    // Original de una imagen del usuario; la de otro usuario se trata como inexistente
+    private String findInputPath(UUID uuid, String userName) throws IOException {
+        return checkInputPath(imageMetadataRepository.findByIdAndUserName(uuid, userName), uuid);
+    }
+
+    private String checkInputPath(Optional<ImageMetadata> imgMeta, UUID uuid) throws IOException {
+        if (imgMeta.isEmpty()) {
+            throw new IOException("Imagen no encontrada o no pertenece al usuario: " + uuid);
+        }
+
+        String inputPath = imgMeta.get().getInputPath();
+        if (!new File(inputPath).exists()) {
+            throw new IOException("Archivo no presente en sistema de archivos: " + inputPath);
+        }
+        return inputPath;
+    }
+
+    private RenderTarget target(UUID uuid, String inputPath, RenderSpec spec) {
+        String key = spec.canonicalKey();
+        String version = Long.toHexString(new File(inputPath).lastModified());
+        int dot = key.lastIndexOf('.');
+        String fileName = key.substring(0, dot) + "-" + version + key.substring(dot);
+        Path path = Paths.get(cacheDir, uuid.toString(), fileName);
+
+        return new RenderTarget(inputPath, spec, path, "\"" + uuid + "-" + fileName + "\"");
+    }
+
+    private static String getImageFormat(String imagePath) {
+        return imagePath.substring(imagePath.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    // Devuelve el render, generandolo si no esta en cache
+    public Resource render(RenderTarget target) throws IOException {
+        Resource cached = lookup(target);
+        if (cached != null) {
+            countCache("hit");
+            return cached;
+        }
+
+        Path path = target.getPath();
+        CompletableFuture<Path> pending = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(path, pending);
+        if (existing != null) {
+            countCache("coalesced");
+            await(existing);
+            return lookup(target);
+        }
+
+        try {
+            // Otro hilo pudo terminar entre la comprobacion y el registro
+            if (!isCached(target)) {
+                countCache("miss");
+                renderToCache(target);
+            }
+            pending.complete(path);
+            return lookup(target);
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(path, pending);
+        }
+    }
+
+    // Render ya generado, desde el almacen de segmentos o desde su archivo; null si no existe
+    private Resource lookup(RenderTarget target) throws IOException {
+        ByteBuffer blob = blobStore.get(target.getBlobKey());
+        if (blob != null) {
+            return new MappedBlobResource(blob, target.getPath().getFileName().toString());
+        }
+        Path path = target.getPath();
+        return Files.exists(path) ? new FileSystemResource(path) : null;
+    }
+
+    private boolean isCached(RenderTarget target) {
+        return blobStore.contains(target.getBlobKey()) || Files.exists(target.getPath());
+    }
+
+    // Mueve el temporal a su archivo definitivo o, si es pequeno, lo anexa a un segmento
+    private void store(RenderTarget target, Path temp) throws IOException {
+        long size = Files.size(temp);
+        if (size <= blobMaxKilobytes * 1024) {
+            blobStore.put(target.getBlobKey(), Files.readAllBytes(temp));
+        } else {
+            Files.move(temp, target.getPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void renderToCache(RenderTarget target) throws IOException {
+        ImageHeader header = imageProcService.readHeader(target.inputPath);
+        TransformPlan plan = plan(target, header);
+
+        Path path = target.getPath();
+        Files.createDirectories(path.getParent());
+
+        // Se escribe en un temporal y se mueve para que nunca se sirva un archivo a medias
+        Path temp = Files.createTempFile(path.getParent(), "render-", ".tmp");
+        try {
+            long bytes = imageProcService.renderPlan(target.inputPath, plan, temp.toFile());
+            store(target, temp);
+            log.info("Render generado {} ({} bytes): {}", target.getSpec(), bytes, plan);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Genera varias variantes de la misma imagen con una sola decodificacion;
+    // omite las que ya estan en cache y devuelve cuantas se generaron
+    public int renderAll(List<RenderTarget> targets) throws IOException {
+        List<RenderTarget> missing = targets.stream()
+                .filter(target -> !isCached(target))
+                .toList();
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        String inputPath = missing.get(0).inputPath;
+        ImageHeader header = imageProcService.readHeader(inputPath);
+        List<TransformPlan> plans = new ArrayList<>();
+        List<File> temps = new ArrayList<>();
+        try {
+            for (RenderTarget target : missing) {
+                plans.add(plan(target, header));
+                Files.createDirectories(target.getPath().getParent());
+                temps.add(Files.createTempFile(target.getPath().getParent(), "render-", ".tmp").toFile());
+            }
+
+            long bytes = imageProcService.renderPlans(inputPath, plans, temps);
+            for (int i = 0; i < missing.size(); i++) {
+                store(missing.get(i), temps.get(i).toPath());
+            }
+            log.info("Generadas {} variantes de {} con una decodificacion ({} bytes)",
+                    missing.size(), inputPath, bytes);
+            return missing.size();
+        } finally {
+            for (File temp : temps) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+
+    private TransformPlan plan(RenderTarget target, ImageHeader header) {
+        RenderSpec spec = target.getSpec();
+        return transformPlanner.plan(
+                spec.toOperations(header.getOrientedWidth(), header.getOrientedHeight()),
+                header.getWidth(), header.getHeight(), spec.getFormat(), spec.toEncodeOptions(),
+                header.getOrientation());
+    }
+
+    // Elimina todos los renders en cache de una imagen
+    public void evict(UUID imageId) {
+        try {
+            if (blobStore.deleteByPrefix(imageId + "/") > 0) {
+                compactor.execute(this::compactBlobs);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudieron eliminar los blobs de {}: {}", imageId, e.getMessage());
+        }
+
+        Path dir = Paths.get(cacheDir, imageId.toString());
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Renders en cache eliminados para imagen: {}", imageId);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("No se pudo limpiar la cache de renders de {}: {}", imageId, e.getMessage());
+        }
+    }
+
+    private void compactBlobs() {
+        try {
+            long reclaimed = blobStore.compact(compactDeadRatio);
+            if (reclaimed > 0) {
+                log.info("Compactacion de blobs: {} bytes recuperados", reclaimed);
+            }
+        } catch (IOException e) {
+            log.warn("Error compactando el almacen de blobs: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Error generando render", cause);
+        }
+    }
+
+    public void checkWidth(int width) {
+        checkAllowed("w", width, allowedSizes);
+    }
+
+    private void checkAllowed(String name, Integer value, List<Integer> allowed) {
+        if (value != null && !allowed.contains(value)) {
+            throw new IllegalArgumentException(
+                    "Valor no permitido para " + name + ": " + value + ". Permitidos: " + allowed);
+        }
+    }
+
+    private void countCache(String result) {
+        meterRegistry.counter("imagehub.render.cache", "result", result).increment();
+    }
+
+    // Tipo MIME a partir de la extension o del formato
+    public static String contentType(String format) {
+        return switch (format.toLowerCase()) {
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "gif" -> "image/gif";
+            case "bmp" -> "image/bmp";
+            case "webp" -> "image/webp";
+            default -> "application/octet-stream";
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.SignedUrlResponse;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.sign.UrlSigner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+ * URLs de descarga firmadas y con caducidad.
+ *
+ * El token lleva la ruta del archivo relativa a image.input.path, la caducidad y
+ * el modo de entrega ("a" adjunto, "i" en linea), firmados con HMAC. Emitirlo
+ * exige JWT y comprobar que la imagen es del usuario; servirlo (SignedDownloadFilter)
+ * solo verifica la firma, sin cadena de seguridad ni consultas a la BD.
+ *
+ * Los renders de ancho fijo de las derivadas tambien tienen URL firmada
+ * (RENDER_PREFIX), para que un <img src> pueda cargarlos sin cabecera Authorization.
+ * Su token lleva la imagen y el ancho; el render se genera como en /render.
+ *
+ * Sin image.signed-url.secret se usa una clave aleatoria por proceso: las URLs
+ * dejan de valer al reiniciar y no sirven entre instancias.
+ */
+@Slf4j
+@Service
+public class SignedUrlService {
+
+    public static final String PATH_PREFIX = "/signed/";
+    public static final String RENDER_PREFIX = "/api/v1/images/renders/";
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final UrlSigner signer;
+    private final Path root;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final long renderTtlSeconds;
+
+    // Archivo autorizado por un token valido
+    public record SignedFile(Path path, boolean attachment, long expiresAt) {
+    }
+
+    // Render de ancho fijo autorizado por un token valido
+    public record SignedRender(UUID imageId, int width, long expiresAt) {
+    }
+
+    public SignedUrlService(ImageMetadataRepository imageMetadataRepository,
+                            @Value("${image.input.path}") String inputPath,
+                            @Value("${image.signed-url.secret:}") String secret,
+                            @Value("${image.signed-url.ttl-seconds:300}") long defaultTtlSeconds,
+                            @Value("${image.signed-url.max-ttl-seconds:3600}") long maxTtlSeconds,
+                            @Value("${image.signed-url.render-ttl-seconds:3600}") long renderTtlSeconds) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.root = Paths.get(inputPath).toAbsolutePath().normalize();
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.renderTtlSeconds = Math.max(1, renderTtlSeconds);
+
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            log.warn("image.signed-url.secret no configurado: se usa una clave aleatoria por proceso");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.signer = new UrlSigner(key);
+    }
+
+    // Emite la URL firmada de la original ("input") o la transformada ("transform") de una imagen del usuario
+    public SignedUrlResponse issue(String userName, String imageId, String type, Long ttlSeconds, boolean attachment)
+            throws IOException {
+
+        if (!type.equals("input") && !type.equals("transform")) {
+            throw new IllegalArgumentException("Tipo inválido. Use 'input' o 'transform'");
+        }
+        long ttl = ttlSeconds == null ? defaultTtlSeconds : ttlSeconds;
+        if (ttl < 1 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("ttl debe estar entre 1 y " + maxTtlSeconds + " segundos");
+        }
+
+        ImageMetadata image = imageMetadataRepository.findByIdAndUserName(UUID.fromString(imageId), userName)
+                .orElseThrow(() -> new IOException("Imagen no encontrada o no pertenece al usuario"));
+        String filePath = type.equals("input") ? image.getInputPath() : image.getTransformPath();
+        if (filePath == null || filePath.isEmpty()) {
+            throw new IOException("Imagen transformada no disponible para ID: " + imageId);
+        }
+
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("La imagen no esta bajo el directorio de almacenamiento");
+        }
+        String key = root.relativize(path).toString().replace('\\', '/');
+        long expiresAt = Instant.now().getEpochSecond() + ttl;
+
+        String token = signer.sign(expiresAt + "|" + (attachment ? "a" : "i") + "|" + key);
+        return SignedUrlResponse.builder()
+                .url(PATH_PREFIX + token)
+                .expiresAt(Instant.ofEpochSecond(expiresAt))
+                .build();
+    }
+
+    // Archivo del token si la firma es valida y no ha caducado; null si no
+    public SignedFile resolve(String token) {
+        String payload = signer.verify(token);
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt < Instant.now().getEpochSecond()) {
+            return null;
+        }
+        // Un token de render no autoriza archivos
+        if (!parts[1].equals("a") && !parts[1].equals("i")) {
+            return null;
+        }
+        Path path = root.resolve(parts[2]).normalize();
+        if (!path.startsWith(root)) {
+            return null;
+        }
+        return new SignedFile(path, parts[1].equals("a"), expiresAt);
+    }
+
+    /*
+     * URL firmada del render de ancho fijo de una imagen ya autorizada (las
+     * derivadas de los listados del propio usuario). La caducidad se redondea a
+     * ventanas de render-ttl-seconds: dentro de una ventana la URL no cambia y el
+     * navegador reutiliza el render que ya tiene en cache.
+     */
+    public String signRender(UUID imageId, int width) {
+        long expiresAt = (Instant.now().getEpochSecond() / renderTtlSeconds + 2) * renderTtlSeconds;
+        return RENDER_PREFIX + signer.sign(expiresAt + "|r|" + imageId + "|" + width);
+    }
+
+    // Render del token si la firma es valida y no ha caducado; null si no
+    public SignedRender resolveRender(String token) {
+        String payload = signer.verify(token);
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split("\\|");
+        if (parts.length != 4 || !parts[1].equals("r")) {
+            return null;
+        }
+        try {
+            long expiresAt = Long.parseLong(parts[0]);
+            if (expiresAt < Instant.now().getEpochSecond()) {
+                return null;
+            }
+            return new SignedRender(UUID.fromString(parts[2]), Integer.parseInt(parts[3]), expiresAt);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.SpriteSheetResponse;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Hojas de miniaturas para cargar una pagina de la galeria en una sola peticion.
+ *
+ * Las miniaturas salen de la cache de renders (las mismas derivadas de ancho fijo
+ * que se generan al subir) y se componen en una cuadricula de celdas cuadradas.
+ * La hoja y su mapa de coordenadas se guardan en <cache-dir>/<usuario>/<clave>;
+ * la clave resume las imagenes de la pagina, su version y el tamano de celda,
+ * asi que la misma pagina se sirve desde cache hasta que cambie su contenido.
+ * El tamano de celda se valida antes de cualquier trabajo y la hoja reserva sus
+ * pixeles en el presupuesto de memoria de decodificacion.
+ */
+@Slf4j
+@Service
+public class SpriteService {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{32}");
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final RenderService renderService;
+    private final ImageCodec imageCodec;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${image.sprite.cache-dir:${java.io.tmpdir}/imagehub-sprites}")
+    private String cacheDir;
+
+    @Value("${image.sprite.max-images:100}")
+    private int maxImages;
+
+    @Value("${image.sprite.columns:10}")
+    private int columns;
+
+    @Value("${image.sprite.quality:80}")
+    private int quality;
+
+    // Celda maxima: una hoja es para miniaturas, no para variantes de pantalla completa
+    @Value("${image.sprite.max-cell:320}")
+    private int maxCell;
+
+    public SpriteService(ImageMetadataRepository imageMetadataRepository, RenderService renderService,
+                         ImageCodec imageCodec, DecodeMemoryBudget decodeMemoryBudget,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.renderService = renderService;
+        this.imageCodec = imageCodec;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Imagenes del usuario por ids (en el orden pedido) o por pagina del listado
+    public List<ImageMetadata> select(String userName, List<UUID> ids, int page, int size, int cell)
+            throws IOException {
+        checkCell(cell);
+        List<ImageMetadata> images;
+        if (ids != null && !ids.isEmpty()) {
+            List<UUID> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+            checkSize(requested.size());
+            Map<UUID, ImageMetadata> found = imageMetadataRepository.findAllById(requested).stream()
+                    .filter(image -> userName.equals(image.getUserName()))
+                    .collect(Collectors.toMap(ImageMetadata::getId, Function.identity()));
+            images = requested.stream().map(found::get).filter(Objects::nonNull).toList();
+        } else {
+            checkSize(size);
+            images = imageMetadataRepository
+                    .findAllByUserNameOrderByRegistrationDate(userName, PageRequest.of(page, size))
+                    .getContent();
+        }
+        if (images.isEmpty()) {
+            throw new IOException("No hay imagenes para la hoja de miniaturas");
+        }
+        return images;
+    }
+
+    // Devuelve la hoja de la pagina, componiendola si no esta en cache
+    public SpriteSheetResponse sprite(String userName, List<ImageMetadata> images, int cell) throws IOException {
+        checkCell(cell);
+        String key = key(images, cell);
+        Path dir = userDir(userName);
+        Path imageFile = dir.resolve(key + ".jpg");
+        Path mapFile = dir.resolve(key + ".json");
+
+        if (Files.exists(imageFile) && Files.exists(mapFile)) {
+            meterRegistry.counter("imagehub.sprite", "result", "hit").increment();
+            return objectMapper.readValue(mapFile.toFile(), SpriteSheetResponse.class);
+        }
+        meterRegistry.counter("imagehub.sprite", "result", "miss").increment();
+
+        int gridColumns = Math.min(columns, images.size());
+        int gridRows = (images.size() + gridColumns - 1) / gridColumns;
+        int sheetWidth = gridColumns * cell;
+        int sheetHeight = gridRows * cell;
+        SpriteSheetResponse response;
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels((long) sheetWidth * sheetHeight)) {
+            BufferedImage sheet = new BufferedImage(sheetWidth, sheetHeight, BufferedImage.TYPE_INT_RGB);
+            response = compose(sheet, images, cell, gridColumns, key);
+            publish(sheet, response, dir, imageFile, mapFile);
+        }
+        log.info("Hoja de miniaturas generada para {}: {} imagenes, {}x{}", userName, response.getEntries().size(),
+                sheetWidth, sheetHeight);
+        return response;
+    }
+
+    // Dibuja las miniaturas centradas en sus celdas y devuelve el mapa de coordenadas
+    private SpriteSheetResponse compose(BufferedImage sheet, List<ImageMetadata> images, int cell, int gridColumns,
+                                        String key) {
+        List<SpriteSheetResponse.Entry> entries = new ArrayList<>();
+        Graphics2D graphics = sheet.createGraphics();
+        try {
+            // Fondo blanco: las miniaturas con transparencia se aplanan sobre el
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            int index = 0;
+            for (ImageMetadata image : images) {
+                BufferedImage thumbnail = thumbnail(image, cell);
+                if (thumbnail == null) {
+                    continue;
+                }
+                // Cabe en la celda conservando la proporcion y queda centrada
+                double scale = Math.min(1.0, (double) cell / Math.max(thumbnail.getWidth(), thumbnail.getHeight()));
+                int width = Math.max(1, (int) Math.round(thumbnail.getWidth() * scale));
+                int height = Math.max(1, (int) Math.round(thumbnail.getHeight() * scale));
+                int x = (index % gridColumns) * cell + (cell - width) / 2;
+                int y = (index / gridColumns) * cell + (cell - height) / 2;
+                graphics.drawImage(thumbnail, x, y, width, height, null);
+
+                entries.add(SpriteSheetResponse.Entry.builder()
+                        .id(image.getId()).x(x).y(y).width(width).height(height).build());
+                index++;
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        return SpriteSheetResponse.builder()
+                .url("/api/v1/images/sprites/" + key)
+                .width(sheet.getWidth())
+                .height(sheet.getHeight())
+                .cell(cell)
+                .columns(gridColumns)
+                .entries(entries)
+                .build();
+    }
+
+    private void publish(BufferedImage sheet, SpriteSheetResponse response, Path dir, Path imageFile, Path mapFile)
+            throws IOException {
+        // La imagen se publica antes que el mapa: un mapa presente implica una hoja completa
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "sprite-", ".tmp");
+        try {
+            imageCodec.encode(sheet, "jpg", new EncodeOptions(quality / 100f, false, 6), temp.toFile());
+            Files.move(temp, imageFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            objectMapper.writeValue(temp.toFile(), response);
+            Files.move(temp, mapFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Archivo de una hoja del usuario; las claves de otros usuarios no se encuentran
+    public Path spriteFile(String userName, String key) throws IOException {
+        if (!KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Clave de hoja invalida: " + key);
+        }
+        Path file = userDir(userName).resolve(key + ".jpg");
+        if (!Files.exists(file)) {
+            throw new IOException("Hoja de miniaturas no encontrada: " + key);
+        }
+        return file;
+    }
+
+    /*
+     * Escribe las miniaturas como multipart/mixed: una parte por imagen con su
+     * Content-ID, en el orden de la pagina. Las que fallan se omiten.
+     */
+    public void writeMultipart(List<ImageMetadata> images, int cell, String boundary, OutputStream output)
+            throws IOException {
+        for (ImageMetadata image : images) {
+            RenderService.RenderTarget target;
+            Resource thumbnail;
+            try {
+                target = renderService.resolveWidth(image, cell);
+                thumbnail = renderService.render(target);
+            } catch (IOException e) {
+                log.warn("Miniatura omitida de la respuesta multipart {}: {}", image.getId(), e.getMessage());
+                continue;
+            }
+            String headers = "--" + boundary + "\r\n"
+                    + "Content-Type: " + target.getContentType() + "\r\n"
+                    + "Content-ID: <" + image.getId() + ">\r\n"
+                    + "Content-Length: " + thumbnail.contentLength() + "\r\n\r\n";
+            output.write(headers.getBytes(StandardCharsets.US_ASCII));
+            try (InputStream input = thumbnail.getInputStream()) {
+                input.transferTo(output);
+            }
+            output.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        output.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    // Las hojas del usuario dejan de ser validas cuando elimina una imagen
+    public void evictUser(String userName) {
+        Path dir = userDir(userName);
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("No se pudieron limpiar las hojas de miniaturas de {}: {}", userName, e.getMessage());
+        }
+    }
+
+    private BufferedImage thumbnail(ImageMetadata image, int cell) {
+        try {
+            Resource resource = renderService.render(renderService.resolveWidth(image, cell));
+            try (InputStream input = resource.getInputStream()) {
+                return imageCodec.decode(input);
+            }
+        } catch (IOException e) {
+            log.warn("Miniatura omitida de la hoja {}: {}", image.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String key(List<ImageMetadata> images, int cell) {
+        StringBuilder content = new StringBuilder()
+                .append(cell).append(';').append(columns).append(';').append(quality);
+        for (ImageMetadata image : images) {
+            long version = image.getInputPath() == null ? 0 : new File(image.getInputPath()).lastModified();
+            content.append(';').append(image.getId()).append(':').append(version);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path userDir(String userName) {
+        return Paths.get(cacheDir, userName.replaceAll("[^A-Za-z0-9@._-]", "_"));
+    }
+
+    // La celda debe ser un ancho de render permitido y no mayor que el maximo de hoja
+    private void checkCell(int cell) {
+        if (cell < 1 || cell > maxCell) {
+            throw new IllegalArgumentException("El tamano de celda debe estar entre 1 y " + maxCell);
+        }
+        renderService.checkWidth(cell);
+    }
+
+    private void checkSize(int size) {
+        if (size < 1 || size > maxImages) {
+            throw new IllegalArgumentException("La hoja admite entre 1 y " + maxImages + " imagenes");
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.blob.BlobSegmentStore;
+import com.example.ImageHub.utils.blob.MappedBlobResource;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.codec.ImageHeader;
+import com.example.ImageHub.utils.codec.Orientation;
+import com.example.ImageHub.utils.plan.Operation;
+import com.example.ImageHub.utils.plan.TilePyramid;
+import com.example.ImageHub.utils.plan.TransformPlan;
+import com.example.ImageHub.utils.plan.TransformPlanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Teselas Deep Zoom generadas bajo demanda para imagenes muy grandes.
+ *
+ * Cada tesela se obtiene decodificando solo la region del original que cubre,
+ * submuestreada hasta aproximadamente el doble del tamano de la tesela, y
+ * reduciendola con el planificador. La memoria por tesela depende del tamano de
+ * tesela y no del de la imagen. Las teselas se guardan en el almacen de
+ * segmentos con la clave <imageId>/tiles-<version>/..., de modo que al eliminar
+ * la imagen se borran junto con el resto de sus renders.
+ */
+@Slf4j
+@Service
+public class TileService {
+
+    private final ImageMetadataRepository imageMetadataRepository;
+    private final ImageProcService imageProcService;
+    private final ImageCodec imageCodec;
+    private final TransformPlanner transformPlanner;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+    private final RasterBufferPool rasterBufferPool;
+    private final BlobSegmentStore blobStore;
+    private final MeterRegistry meterRegistry;
+
+    // Teselas en curso: los visores piden la misma tesela desde varias pestanas
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${image.tiles.size:256}")
+    private int tileSize;
+
+    @Value("${image.tiles.overlap:1}")
+    private int overlap;
+
+    @Value("${image.tiles.quality:85}")
+    private int quality;
+
+    public TileService(ImageMetadataRepository imageMetadataRepository, ImageProcService imageProcService,
+                       ImageCodec imageCodec, TransformPlanner transformPlanner,
+                       DecodeMemoryBudget decodeMemoryBudget, RasterBufferPool rasterBufferPool,
+                       BlobSegmentStore blobStore, MeterRegistry meterRegistry) {
+        this.imageMetadataRepository = imageMetadataRepository;
+        this.imageProcService = imageProcService;
+        this.imageCodec = imageCodec;
+        this.transformPlanner = transformPlanner;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        this.rasterBufferPool = rasterBufferPool;
+        this.blobStore = blobStore;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Tesela resuelta: se conoce su ETag antes de generarla
+    public static final class TileTarget {
+        private final String inputPath;
+        private final ImageHeader header;
+        private final TilePyramid pyramid;
+        private final int level;
+        private final int column;
+        private final int row;
+        private final String key;
+
+        private TileTarget(String inputPath, ImageHeader header, TilePyramid pyramid,
+                           int level, int column, int row, String key) {
+            this.inputPath = inputPath;
+            this.header = header;
+            this.pyramid = pyramid;
+            this.level = level;
+            this.column = column;
+            this.row = row;
+            this.key = key;
+        }
+
+        public String getETag() {
+            return "\"" + key.replace('/', '-') + "\"";
+        }
+
+        public String getContentType() {
+            return RenderService.contentType(pyramid.getFormat());
+        }
+    }
+
+    // Piramide de la imagen orientada; solo lee la cabecera del original
+    public TilePyramid describe(String userName, String imageId) throws IOException {
+        String inputPath = findInputPath(UUID.fromString(imageId), userName);
+        return pyramid(inputPath, imageProcService.readHeader(inputPath));
+    }
+
+    public TileTarget resolve(String userName, String imageId, int level, int column, int row, String format)
+            throws IOException {
+        UUID uuid = UUID.fromString(imageId);
+        String inputPath = findInputPath(uuid, userName);
+        ImageHeader header = imageProcService.readHeader(inputPath);
+        TilePyramid pyramid = pyramid(inputPath, header);
+
+        if (!pyramid.getFormat().equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Formato de tesela no disponible: " + format
+                    + ". La piramide usa " + pyramid.getFormat());
+        }
+        pyramid.checkTile(level, column, row);
+
+        String version = Long.toHexString(new File(inputPath).lastModified());
+        String key = uuid + "/tiles-" + version + "-" + tileSize + "-" + overlap + "/"
+                + level + "/" + column + "_" + row + "." + pyramid.getFormat();
+        return new TileTarget(inputPath, header, pyramid, level, column, row, key);
+    }
+
+    // Devuelve la tesela, generandola si no esta en el almacen
+    public Resource tile(TileTarget target) throws IOException {
+        Resource cached = lookup(target);
+        if (cached != null) {
+            countCache("hit");
+            return cached;
+        }
+
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(target.key, pending);
+        if (existing != null) {
+            countCache("coalesced");
+            await(existing);
+            return lookup(target);
+        }
+
+        try {
+            if (!blobStore.contains(target.key)) {
+                countCache("miss");
+                blobStore.put(target.key, generate(target));
+            }
+            pending.complete(null);
+            return lookup(target);
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target.key, pending);
+        }
+    }
+
+    private Resource lookup(TileTarget target) throws IOException {
+        ByteBuffer blob = blobStore.get(target.key);
+        return blob == null ? null
+                : new MappedBlobResource(blob, target.column + "_" + target.row + "." + target.pyramid.getFormat());
+    }
+
+    private byte[] generate(TileTarget target) throws IOException {
+        TilePyramid pyramid = target.pyramid;
+        ImageHeader header = target.header;
+        Rectangle tile = pyramid.tileBounds(target.level, target.column, target.row);
+        Rectangle region = storedRegion(pyramid.sourceRegion(target.level, target.column, target.row), header);
+
+        // Se decodifica al doble del tamano final y el planificador promedia al reducir
+        int subsampling = Math.max(1, pyramid.scale(target.level) / 2);
+        long decodedPixels = (long) ((region.width + subsampling - 1) / subsampling)
+                * ((region.height + subsampling - 1) / subsampling);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long tilePixels = (long) tile.width * tile.height;
+        try (DecodeMemoryBudget.Permit permit = decodeMemoryBudget.acquirePixels(decodedPixels + tilePixels);
+             BufferScope scope = rasterBufferPool.openScope()) {
+            BufferedImage decoded = imageCodec.decodeRegion(new File(target.inputPath), region, subsampling);
+            TransformPlan plan = transformPlanner.plan(List.of(Operation.resize(tile.width, tile.height)),
+                    decoded.getWidth(), decoded.getHeight(), pyramid.getFormat(),
+                    new EncodeOptions(quality / 100f, false, 6), header.getOrientation());
+            BufferedImage result = plan.execute(decoded, scope);
+            imageCodec.encode(result, pyramid.getFormat(), plan.getEncodeOptions(), output);
+        }
+        log.debug("Tesela {} generada ({} bytes)", target.key, output.size());
+        return output.toByteArray();
+    }
+
+    // Traslada una region de la imagen orientada a coordenadas de la imagen almacenada
+    private static Rectangle storedRegion(Rectangle oriented, ImageHeader header) {
+        Orientation orientation = header.getOrientation();
+        if (orientation == Orientation.NORMAL) {
+            return oriented;
+        }
+        try {
+            AffineTransform toStored = orientation.toTransform(header.getWidth(), header.getHeight()).createInverse();
+            return toStored.createTransformedShape(oriented).getBounds();
+        } catch (NoninvertibleTransformException e) {
+            throw new IllegalStateException("Orientacion no invertible: " + orientation, e);
+        }
+    }
+
+    // JPEG para originales con perdida; PNG para el resto, que puede tener transparencia
+    private TilePyramid pyramid(String inputPath, ImageHeader header) {
+        String sourceFormat = inputPath.substring(inputPath.lastIndexOf('.') + 1).toLowerCase();
+        String format = sourceFormat.equals("jpg") || sourceFormat.equals("jpeg") ? "jpg" : "png";
+        return new TilePyramid(header.getOrientedWidth(), header.getOrientedHeight(), tileSize, overlap, format);
+    }
+
+    private String findInputPath(UUID uuid, String userName) throws IOException {
+        Optional<ImageMetadata> imgMeta = imageMetadataRepository.findByIdAndUserName(uuid, userName);
+        if (imgMeta.isEmpty()) {
+            throw new IOException("Imagen no encontrada o no pertenece al usuario: " + uuid);
+        }
+        String inputPath = imgMeta.get().getInputPath();
+        if (!new File(inputPath).exists()) {
+            throw new IOException("Archivo no presente en sistema de archivos: " + inputPath);
+        }
+        return inputPath;
+    }
+
+    private void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Error generando tesela", cause);
+        }
+    }
+
+    private void countCache(String result) {
+        meterRegistry.counter("imagehub.tiles", "result", result).increment();
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.exceptions.UploadConflictException;
+import com.example.ImageHub.exceptions.UploadSessionNotFoundException;
+import com.example.ImageHub.utils.ImageValidationUtils;
+import com.example.ImageHub.utils.jfr.FileIoEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+ * Subidas reanudables al estilo tus: crear sesion, enviar bloques con su offset
+ * y terminar.
+ *
+ * Al crear la sesion el archivo se reserva con su longitud final y cada bloque
+ * se escribe en su posicion con FileChannel, leyendo el cuerpo por trozos de
+ * BUFFER_BYTES: la memoria no depende del tamano del archivo. El offset
+ * confirmado se guarda junto al archivo (<id>.json) tras forzar los datos a
+ * disco, asi que una conexion cortada o un reinicio solo pierden lo que no llego
+ * a confirmarse. Las sesiones sin actividad durante expiration-hours se borran.
+ */
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{32}");
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final ImageValidationUtils imageValidationUtils;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Path dir;
+    private final long maxBytes;
+    private final Duration expiration;
+
+    // Un solo bloque a la vez por sesion
+    private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "upload-session-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Estado persistido de una sesion
+    public record Session(String id, String userName, String fileName, long length, long offset, long updatedAt) {
+
+        Session withOffset(long newOffset) {
+            return new Session(id, userName, fileName, length, newOffset, System.currentTimeMillis());
+        }
+    }
+
+    public UploadSessionService(FileStorageService fileStorageService,
+                                ImageValidationUtils imageValidationUtils,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${image.upload.resumable.dir:${java.io.tmpdir}/imagehub-uploads}") String dir,
+                                @Value("${image.upload.resumable.max-megabytes:1024}") long maxMegabytes,
+                                @Value("${image.upload.resumable.expiration-hours:24}") long expirationHours)
+            throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.imageValidationUtils = imageValidationUtils;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.dir = Paths.get(dir);
+        this.maxBytes = maxMegabytes * 1024 * 1024;
+        this.expiration = Duration.ofHours(expirationHours);
+
+        Files.createDirectories(this.dir);
+        cleaner.scheduleWithFixedDelay(this::removeExpired, 1, 60, TimeUnit.MINUTES);
+    }
+
+    // Crea la sesion y reserva el archivo con su longitud final
+    public Session create(String userName, String fileName, long length) throws IOException {
+        if (fileName == null || fileName.isBlank() || fileName.contains("/") || fileName.contains("\\")) {
+            throw new IllegalArgumentException("El nombre del archivo no es válido");
+        }
+        if (!imageValidationUtils.hasValidExtension(fileName)) {
+            throw new IllegalArgumentException("Extensión de archivo inválida: " + fileName);
+        }
+        if (length <= 0 || length > maxBytes) {
+            throw new IllegalArgumentException(
+                    "Upload-Length debe estar entre 1 y " + maxBytes + " bytes");
+        }
+
+        String id = UUID.randomUUID().toString().replace("-", "");
+        try (RandomAccessFile file = new RandomAccessFile(dataFile(id).toFile(), "rw")) {
+            file.setLength(length);
+        }
+        Session session = new Session(id, userName, fileName, length, 0, System.currentTimeMillis());
+        persist(session);
+
+        meterRegistry.counter("imagehub.upload.resumable", "result", "created").increment();
+        log.info("Sesion de subida {} creada por {}: {} ({} bytes)", id, userName, fileName, length);
+        return session;
+    }
+
+    public Session get(String userName, String id) throws IOException {
+        return load(userName, id);
+    }
+
+    /*
+     * Escribe un bloque que empieza en offset. Si la conexion se corta a mitad, lo
+     * recibido hasta entonces queda confirmado y el cliente continua desde ahi.
+     */
+    public Session append(String userName, String id, long offset, InputStream body) throws IOException {
+        ReentrantLock lock = lock(id);
+        try {
+            Session session = load(userName, id);
+            if (offset != session.offset()) {
+                throw new UploadConflictException(
+                        "Upload-Offset " + offset + " no coincide con el offset de la sesion", session.offset());
+            }
+
+            FileIoEvent event = new FileIoEvent();
+            event.begin();
+            long position = session.offset();
+            try (FileChannel channel = FileChannel.open(dataFile(id), StandardOpenOption.WRITE)) {
+                byte[] array = new byte[BUFFER_BYTES];
+                ByteBuffer buffer = ByteBuffer.wrap(array);
+                try {
+                    int read;
+                    while ((read = body.read(array, 0, (int) Math.min(array.length,
+                            Math.max(1, session.length() - position)))) > 0) {
+                        if (position + read > session.length()) {
+                            throw new IllegalArgumentException("El bloque excede Upload-Length");
+                        }
+                        buffer.clear().limit(read);
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+                    }
+                } finally {
+                    // Se confirma lo escrito aunque el bloque no haya llegado entero
+                    if (position > session.offset()) {
+                        channel.force(false);
+                        session = session.withOffset(position);
+                        persist(session);
+                    }
+                }
+            }
+            meterRegistry.counter("imagehub.upload.resumable.bytes").increment(position - offset);
+            event.complete("append", dataFile(id), position - offset);
+            return session;
+        } finally {
+            release(id, lock);
+        }
+    }
+
+    /*
+     * Con todos los bytes recibidos, la imagen pasa por la validacion y el guardado
+     * normales. La sesion se elimina al terminar o si el archivo no es una imagen
+     * valida; ante un error de E/S se conserva para poder repetir la peticion.
+     */
+    public String complete(String userName, String id) throws IOException {
+        ReentrantLock lock = lock(id);
+        try {
+            Session session = load(userName, id);
+            if (session.offset() < session.length()) {
+                throw new UploadConflictException("La subida esta incompleta: faltan "
+                        + (session.length() - session.offset()) + " bytes", session.offset());
+            }
+            String imageId;
+            try {
+                imageId = fileStorageService.saveUploadedFile(dataFile(id), session.fileName(), userName, maxBytes);
+            } catch (IllegalArgumentException e) {
+                // El archivo completo no es una imagen valida: reintentar no lo arregla
+                meterRegistry.counter("imagehub.upload.resumable", "result", "rejected").increment();
+                remove(id);
+                throw e;
+            }
+            remove(id);
+            meterRegistry.counter("imagehub.upload.resumable", "result", "completed").increment();
+            log.info("Sesion de subida {} completada: imagen {}", id, imageId);
+            return imageId;
+        } finally {
+            release(id, lock);
+        }
+    }
+
+    public void delete(String userName, String id) throws IOException {
+        ReentrantLock lock = lock(id);
+        try {
+            load(userName, id);
+            remove(id);
+            log.info("Sesion de subida {} cancelada por {}", id, userName);
+        } finally {
+            release(id, lock);
+        }
+    }
+
+    // Borra las sesiones sin actividad y los archivos de datos huerfanos
+    void removeExpired() {
+        long limit = System.currentTimeMillis() - expiration.toMillis();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, Math.max(0, name.indexOf('.')));
+                if (!ID.matcher(id).matches()) {
+                    return;
+                }
+                ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+                if (!lock.tryLock()) {
+                    return;
+                }
+                try {
+                    if (Files.exists(file) && Files.getLastModifiedTime(file).toMillis() < limit) {
+                        remove(id);
+                        meterRegistry.counter("imagehub.upload.resumable", "result", "expired").increment();
+                        log.info("Sesion de subida expirada eliminada: {}", id);
+                    }
+                } catch (IOException e) {
+                    log.warn("No se pudo eliminar la sesion expirada {}: {}", id, e.getMessage());
+                } finally {
+                    release(id, lock);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("No se pudieron revisar las sesiones de subida: {}", e.getMessage());
+        }
+    }
+
+    int lockCount() {
+        return locks.size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cleaner.shutdownNow();
+    }
+
+    // Solo se crean cerrojos para sesiones existentes: un id inventado no deja rastro
+    private ReentrantLock lock(String id) {
+        if (!ID.matcher(id).matches() || !Files.exists(sessionFile(id))) {
+            throw new UploadSessionNotFoundException("Sesion de subida no encontrada: " + id);
+        }
+        ReentrantLock lock = locks.computeIfAbsent(id, key -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new UploadConflictException("Hay otro bloque en curso para la sesion " + id, -1);
+        }
+        return lock;
+    }
+
+    // El cerrojo se descarta cuando la sesion ya no existe (terminada, cancelada o borrada a la vez)
+    private void release(String id, ReentrantLock lock) {
+        lock.unlock();
+        if (!Files.exists(sessionFile(id))) {
+            locks.remove(id, lock);
+        }
+    }
+
+    private Session load(String userName, String id) throws IOException {
+        if (!ID.matcher(id).matches() || !Files.exists(sessionFile(id))) {
+            throw new UploadSessionNotFoundException("Sesion de subida no encontrada: " + id);
+        }
+        Session session = objectMapper.readValue(sessionFile(id).toFile(), Session.class);
+        if (!session.userName().equals(userName)) {
+            throw new UploadSessionNotFoundException("Sesion de subida no encontrada: " + id);
+        }
+        return session;
+    }
+
+    // Se escribe en un temporal y se reemplaza: nunca queda un estado a medias
+    private void persist(Session session) throws IOException {
+        Path temp = dir.resolve(session.id() + ".json.tmp");
+        objectMapper.writeValue(temp.toFile(), session);
+        Files.move(temp, sessionFile(session.id()), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void remove(String id) throws IOException {
+        Files.deleteIfExists(sessionFile(id));
+        Files.deleteIfExists(dataFile(id));
+        Files.deleteIfExists(dir.resolve(id + ".json.tmp"));
+    }
+
+    private Path sessionFile(String id) {
+        return dir.resolve(id + ".json");
+    }
+
+    private Path dataFile(String id) {
+        return dir.resolve(id + ".part");
+    }
+}
@@ -3,12 +3,15 @@ package com.example.ImageHub.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.ImageCodec;
+
 import java.io.IOException;
+import java.io.InputStream;
 
 @Component
 @Slf4j
@@ -17,22 +20,42 @@ public class ImageValidationUtils {
     @Value("${image.supported-formats}")
     private String SUPPORTED_FILE_TYPES;
 
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+    private final ImageCodec imageCodec;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+
+    public ImageValidationUtils(ImageCodec imageCodec, DecodeMemoryBudget decodeMemoryBudget) {
+        this.imageCodec = imageCodec;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+    }
 
     public void validate(MultipartFile file) throws IOException, IllegalArgumentException {
-        log.info("Iniciando validación de archivo: {}", file.getOriginalFilename());
+        validate(file.getOriginalFilename(), file.getSize(), file);
+    }
 
-        if (file.isEmpty()) {
+    // Misma validacion para contenido que no llega como MultipartFile (p. ej. entradas de un archivo importado)
+    public void validate(String filename, long size, InputStreamSource content)
+            throws IOException, IllegalArgumentException {
+        validate(filename, size, content, MAX_FILE_SIZE);
+    }
+
+    // Las subidas reanudables tienen su propio limite de tamano
+    public void validate(String filename, long size, InputStreamSource content, long maxSize)
+            throws IOException, IllegalArgumentException {
+        log.info("Iniciando validación de archivo: {}", filename);
+
+        if (size == 0) {
             log.warn("Archivo vacío");
             throw new IllegalArgumentException("El archivo está vacío");
         }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            log.warn("Archivo excede tamaño máximo: {} bytes", file.getSize());
-            throw new IllegalArgumentException("El archivo excede el tamaño máximo permitido (10MB)");
+        if (size > maxSize) {
+            log.warn("Archivo excede tamaño máximo: {} bytes", size);
+            throw new IllegalArgumentException(
+                    "El archivo excede el tamaño máximo permitido (" + maxSize / (1024 * 1024) + "MB)");
         }
 
-        String filename = file.getOriginalFilename();
         if (filename == null || filename.isEmpty()) {
             log.warn("Nombre de archivo nulo o vacío");
             throw new IllegalArgumentException("El nombre del archivo no es válido");
@@ -43,15 +66,19 @@ public class ImageValidationUtils {
             throw new IllegalArgumentException("Extensión de archivo inválida. Formatos permitidos: " + SUPPORTED_FILE_TYPES);
         }
 
-        if (!isImage(file)) {
+        int[] dimensions = readDimensions(content);
+        if (dimensions == null) {
             log.warn("Archivo no es una imagen válida: {}", filename);
             throw new IllegalArgumentException("El archivo no es una imagen válida");
         }
 
+        // Un archivo pequeño puede declarar dimensiones enormes (bomba de descompresion)
+        decodeMemoryBudget.checkDimensions(dimensions[0], dimensions[1]);
+
         log.info("Validación exitosa para archivo: {}", filename);
     }
 
-    private boolean hasValidExtension(String filename) {
+    public boolean hasValidExtension(String filename) {
         String[] fileTypes = SUPPORTED_FILE_TYPES.split(",");
         String fileLower = filename.toLowerCase().trim();
 
@@ -68,17 +95,13 @@ public class ImageValidationUtils {
         return false;
     }
 
-    private boolean isImage(MultipartFile file) throws IOException {
-        try {
-            BufferedImage image = ImageIO.read(file.getInputStream());
-            boolean isValid = image != null;
-            if (!isValid) {
-                log.warn("ImageIO no pudo leer el archivo como imagen");
-            }
-            return isValid;
+    // Lee solo la cabecera: la validacion no decodifica los pixeles
+    private int[] readDimensions(InputStreamSource content) throws IOException {
+        try (InputStream input = content.getInputStream()) {
+            return imageCodec.readDimensions(input);
         } catch (IOException e) {
-            log.error("Error al validar formato de imagen: {}", e.getMessage());
-            throw new IOException("Error al validar formato de imagen", e);
+            log.warn("No se pudo leer la cabecera como imagen: {}", e.getMessage());
+            return null;
         }
     }
 }
\ No newline at end of file
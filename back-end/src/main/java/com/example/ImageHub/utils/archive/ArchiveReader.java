@@ -0,0 +1,239 @@
+package com.example.ImageHub.utils.archive;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/*
+ * Lectura secuencial de un ZIP, TAR o TAR.GZ recibido como flujo, sin extraerlo.
+ *
+ * El formato se detecta por los primeros bytes. Las entradas se recorren en el
+ * orden del archivo con next(), y data() lee el contenido de la entrada actual;
+ * lo que no se lea se descarta al pasar a la siguiente. Del TAR se entienden las
+ * cabeceras ustar, los nombres largos de GNU (L) y la ruta de las cabeceras pax (x).
+ */
+public class ArchiveReader implements Closeable {
+
+    private static final int BLOCK = 512;
+    // Limite de las cabeceras L y x: su tamano lo declara quien sube el archivo
+    private static final int MAX_AUXILIARY_BYTES = 64 * 1024;
+
+    // Entrada del archivo; file es false para directorios, enlaces y similares
+    public record Entry(String name, long size, boolean file) {
+    }
+
+    private final InputStream input;
+    private final ZipInputStream zip;
+    private long remaining;
+    private long padding;
+
+    private ArchiveReader(InputStream input, ZipInputStream zip) {
+        this.input = input;
+        this.zip = zip;
+    }
+
+    public static ArchiveReader open(InputStream source) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(source, 64 * 1024);
+        byte[] head = peek(input);
+        if (head.length >= 2 && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B) {
+            input = new BufferedInputStream(new GZIPInputStream(input, 64 * 1024), 64 * 1024);
+            head = peek(input);
+        }
+        if (head.length >= 4 && head[0] == 'P' && head[1] == 'K' && (head[2] == 3 || head[2] == 5)) {
+            return new ArchiveReader(input, new ZipInputStream(input, StandardCharsets.UTF_8));
+        }
+        if (head.length == BLOCK && isTarHeader(head)) {
+            return new ArchiveReader(input, null);
+        }
+        throw new IllegalArgumentException("Formato de archivo no soportado: use ZIP, TAR o TAR.GZ");
+    }
+
+    // Avanza a la siguiente entrada; null al final del archivo
+    public Entry next() throws IOException {
+        if (zip != null) {
+            ZipEntry entry = zip.getNextEntry();
+            return entry == null ? null : new Entry(entry.getName(), entry.getSize(), !entry.isDirectory());
+        }
+
+        input.skipNBytes(remaining + padding);
+        remaining = 0;
+        padding = 0;
+
+        String longName = null;
+        while (true) {
+            byte[] header = input.readNBytes(BLOCK);
+            if (header.length < BLOCK || isZeroBlock(header)) {
+                return null;
+            }
+            if (!isTarHeader(header)) {
+                throw new IOException("Cabecera TAR corrupta");
+            }
+            long size = number(header, 124, 12);
+            long dataPadding = (BLOCK - size % BLOCK) % BLOCK;
+            byte type = header[156];
+
+            // Cabeceras auxiliares: su contenido describe la entrada siguiente
+            if (type == 'L' || type == 'x') {
+                if (size > MAX_AUXILIARY_BYTES) {
+                    throw new IOException("Cabecera TAR auxiliar demasiado grande: " + size + " bytes");
+                }
+                String value = new String(input.readNBytes((int) size), StandardCharsets.UTF_8);
+                input.skipNBytes(dataPadding);
+                String path = type == 'L' ? trimNul(value) : paxPath(value);
+                if (path != null) {
+                    longName = path;
+                }
+                continue;
+            }
+            if (type == 'g') {
+                input.skipNBytes(size + dataPadding);
+                continue;
+            }
+
+            String name = longName != null ? longName : headerName(header);
+            remaining = size;
+            padding = dataPadding;
+            return new Entry(name, size, type == '0' || type == 0 || type == '7');
+        }
+    }
+
+    // Contenido de la entrada actual; cerrarlo no cierra el archivo
+    public InputStream data() {
+        if (zip != null) {
+            return new FilterInputStream(zip) {
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int b = input.read();
+                if (b < 0) {
+                    throw new EOFException("TAR truncado");
+                }
+                remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = input.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read < 0) {
+                    throw new EOFException("TAR truncado");
+                }
+                remaining -= read;
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private static byte[] peek(BufferedInputStream input) throws IOException {
+        input.mark(BLOCK);
+        byte[] head = input.readNBytes(BLOCK);
+        input.reset();
+        return head;
+    }
+
+    // Se acepta por la marca ustar o, en TAR antiguos, por la suma de control
+    private static boolean isTarHeader(byte[] header) {
+        if (new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            return true;
+        }
+        long stored;
+        try {
+            stored = number(header, 148, 8);
+        } catch (IOException e) {
+            return false;
+        }
+        long sum = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : header[i] & 0xFF;
+        }
+        return sum == stored;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String headerName(byte[] header) {
+        String name = text(header, 0, 100);
+        if (new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            String prefix = text(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    // Campo numerico: octal con espacios/NUL, o binario big-endian si el primer bit esta activo
+    private static long number(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (header[offset + i] & 0xFF);
+            }
+            return value;
+        }
+        String text = text(header, offset, length).trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Campo numerico TAR invalido: " + text);
+        }
+    }
+
+    private static String text(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul >= 0 ? value.substring(0, nul) : value;
+    }
+
+    // Registros pax: "<longitud> <clave>=<valor>\n"
+    private static String paxPath(String records) {
+        for (String record : records.split("\n")) {
+            int space = record.indexOf(' ');
+            int equals = record.indexOf('=');
+            if (space > 0 && equals > space && record.substring(space + 1, equals).equals("path")) {
+                return record.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+}
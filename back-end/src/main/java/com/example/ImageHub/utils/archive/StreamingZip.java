@@ -0,0 +1,365 @@
+package com.example.ImageHub.utils.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * ZIP construido al vuelo a partir de archivos en disco, sin compresion (STORED).
+ *
+ * La disposicion del archivo (offsets de cabeceras, datos y directorio central)
+ * se calcula solo con nombres y tamanos, asi que la longitud total se conoce
+ * antes de escribir un byte y cualquier rango puede generarse de forma
+ * independiente. El CRC y los tamanos van en la cabecera local, sin descriptor de
+ * datos: ZipInputStream y los demas lectores en streaming rechazan el bit 3 en
+ * entradas STORED. El CRC se calcula leyendo el archivo justo antes de escribir
+ * su cabecera y se anota en un manifiesto para que una descarga reanudada no
+ * vuelva a leer lo ya enviado.
+ *
+ * Usa ZIP64 cuando algun tamano, offset o el numero de entradas lo requiere.
+ */
+public class StreamingZip {
+
+    private static final long LIMIT_32 = 0xFFFFFFFFL;
+    private static final int LIMIT_16 = 0xFFFF;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Nombres en UTF-8
+    private static final int FLAGS = 0x0800;
+
+    // Archivo que se incluye en el ZIP
+    public record Entry(String name, Path path, long size, long lastModified) {
+    }
+
+    // Trozo contiguo del archivo que sabe escribir cualquier subrango de si mismo
+    private interface Part {
+        long length();
+
+        void write(OutputStream output, long from, long to) throws IOException;
+    }
+
+    private final List<Entry> entries;
+    private final byte[][] names;
+    private final long[] headerOffsets;
+    private final long[] crcs;
+    private final Path crcManifest;
+    private final List<Part> parts = new ArrayList<>();
+    private final long[] partOffsets;
+    private final long length;
+
+    public StreamingZip(List<Entry> entries, Path crcManifest) throws IOException {
+        this.entries = List.copyOf(entries);
+        this.crcManifest = crcManifest;
+        int count = this.entries.size();
+        this.names = new byte[count][];
+        this.headerOffsets = new long[count];
+        this.crcs = new long[count];
+        Arrays.fill(crcs, -1);
+        loadManifest();
+
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            Entry entry = this.entries.get(i);
+            names[i] = entry.name().getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > LIMIT_16) {
+                throw new IllegalArgumentException("Nombre de entrada demasiado largo: " + entry.name());
+            }
+            headerOffsets[i] = offset;
+            offset += add(localHeader(i));
+            offset += add(fileData(i));
+        }
+
+        long directoryOffset = offset;
+        for (int i = 0; i < count; i++) {
+            offset += add(directoryRecord(i));
+        }
+        long directorySize = offset - directoryOffset;
+        boolean zip64 = count >= LIMIT_16 || directoryOffset >= LIMIT_32 || directorySize >= LIMIT_32;
+        if (zip64) {
+            offset += add(fixed(zip64End(count, directorySize, directoryOffset)));
+            offset += add(fixed(zip64Locator(offset - 56)));
+        }
+        offset += add(fixed(end(count, directorySize, directoryOffset)));
+
+        this.length = offset;
+        this.partOffsets = new long[parts.size() + 1];
+        long position = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            partOffsets[i] = position;
+            position += parts.get(i).length();
+        }
+        partOffsets[parts.size()] = position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    // Escribe el rango [start, end] (ambos incluidos) del archivo
+    public void write(OutputStream output, long start, long end) throws IOException {
+        if (start < 0 || end >= length || start > end) {
+            throw new IllegalArgumentException("Rango fuera del archivo: " + start + "-" + end + "/" + length);
+        }
+        int index = Arrays.binarySearch(partOffsets, start);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        for (; index < parts.size() && partOffsets[index] <= end; index++) {
+            long partStart = partOffsets[index];
+            Part part = parts.get(index);
+            long from = Math.max(0, start - partStart);
+            long to = Math.min(part.length(), end - partStart + 1);
+            if (from < to) {
+                part.write(output, from, to);
+            }
+        }
+        output.flush();
+    }
+
+    private long add(Part part) {
+        parts.add(part);
+        return part.length();
+    }
+
+    private boolean entryNeedsZip64(int i) {
+        return entries.get(i).size() >= LIMIT_32;
+    }
+
+    private boolean recordNeedsZip64(int i) {
+        return entryNeedsZip64(i) || headerOffsets[i] >= LIMIT_32;
+    }
+
+    private Part localHeader(int i) {
+        Entry entry = entries.get(i);
+        boolean zip64 = entryNeedsZip64(i);
+        int headerLength = 30 + names[i].length + (zip64 ? 20 : 0);
+        return lazy(headerLength, () -> {
+            ByteBuffer buffer = buffer(headerLength);
+            buffer.putInt(0x04034b50)
+                    .putShort((short) (zip64 ? 45 : 20))
+                    .putShort((short) FLAGS)
+                    .putShort((short) 0)
+                    .putInt(dosTime(entry.lastModified()))
+                    .putInt((int) crc(i))
+                    .putInt((int) (zip64 ? LIMIT_32 : entry.size()))
+                    .putInt((int) (zip64 ? LIMIT_32 : entry.size()))
+                    .putShort((short) names[i].length)
+                    .putShort((short) (zip64 ? 20 : 0))
+                    .put(names[i]);
+            if (zip64) {
+                buffer.putShort((short) 0x0001).putShort((short) 16).putLong(entry.size()).putLong(entry.size());
+            }
+            return buffer.array();
+        });
+    }
+
+    private Part fileData(int i) {
+        Entry entry = entries.get(i);
+        return new Part() {
+            @Override
+            public long length() {
+                return entry.size();
+            }
+
+            @Override
+            public void write(OutputStream output, long from, long to) throws IOException {
+                copy(entry.path(), from, to, output, null);
+            }
+        };
+    }
+
+    private Part directoryRecord(int i) {
+        Entry entry = entries.get(i);
+        boolean zip64 = recordNeedsZip64(i);
+        int recordLength = 46 + names[i].length + (zip64 ? 28 : 0);
+        return lazy(recordLength, () -> {
+            ByteBuffer buffer = buffer(recordLength);
+            buffer.putInt(0x02014b50)
+                    .putShort((short) (zip64 ? 45 : 20))
+                    .putShort((short) (zip64 ? 45 : 20))
+                    .putShort((short) FLAGS)
+                    .putShort((short) 0)
+                    .putInt(dosTime(entry.lastModified()))
+                    .putInt((int) crc(i))
+                    .putInt((int) (zip64 ? LIMIT_32 : entry.size()))
+                    .putInt((int) (zip64 ? LIMIT_32 : entry.size()))
+                    .putShort((short) names[i].length)
+                    .putShort((short) (zip64 ? 28 : 0))
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) (zip64 ? LIMIT_32 : headerOffsets[i]))
+                    .put(names[i]);
+            if (zip64) {
+                buffer.putShort((short) 0x0001).putShort((short) 24)
+                        .putLong(entry.size()).putLong(entry.size()).putLong(headerOffsets[i]);
+            }
+            return buffer.array();
+        });
+    }
+
+    private static byte[] zip64End(int count, long directorySize, long directoryOffset) {
+        return buffer(56)
+                .putInt(0x06064b50)
+                .putLong(44)
+                .putShort((short) 45)
+                .putShort((short) 45)
+                .putInt(0)
+                .putInt(0)
+                .putLong(count)
+                .putLong(count)
+                .putLong(directorySize)
+                .putLong(directoryOffset)
+                .array();
+    }
+
+    private static byte[] zip64Locator(long zip64EndOffset) {
+        return buffer(20)
+                .putInt(0x07064b50)
+                .putInt(0)
+                .putLong(zip64EndOffset)
+                .putInt(1)
+                .array();
+    }
+
+    private static byte[] end(int count, long directorySize, long directoryOffset) {
+        return buffer(22)
+                .putInt(0x06054b50)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(count, LIMIT_16))
+                .putShort((short) Math.min(count, LIMIT_16))
+                .putInt((int) Math.min(directorySize, LIMIT_32))
+                .putInt((int) Math.min(directoryOffset, LIMIT_32))
+                .putShort((short) 0)
+                .array();
+    }
+
+    // CRC de una entrada: del manifiesto o leyendo el archivo
+    private long crc(int i) throws IOException {
+        if (crcs[i] < 0) {
+            CRC32 crc = new CRC32();
+            copy(entries.get(i).path(), 0, entries.get(i).size(), OutputStream.nullOutputStream(), crc);
+            recordCrc(i, crc.getValue());
+        }
+        return crcs[i];
+    }
+
+    private void recordCrc(int i, long value) throws IOException {
+        crcs[i] = value;
+        if (crcManifest != null) {
+            try (Writer writer = Files.newBufferedWriter(crcManifest, StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(i + " " + value + "\n");
+            }
+        }
+    }
+
+    private void loadManifest() throws IOException {
+        if (crcManifest == null || !Files.exists(crcManifest)) {
+            return;
+        }
+        for (String line : Files.readAllLines(crcManifest, StandardCharsets.US_ASCII)) {
+            String[] fields = line.split(" ");
+            if (fields.length != 2) {
+                continue;
+            }
+            try {
+                int index = Integer.parseInt(fields[0]);
+                if (index >= 0 && index < crcs.length) {
+                    crcs[index] = Long.parseLong(fields[1]);
+                }
+            } catch (NumberFormatException e) {
+                // Linea truncada por una escritura interrumpida
+            }
+        }
+    }
+
+    // Copia [from, to) del archivo; el tamano se fijo al calcular la disposicion
+    private static void copy(Path path, long from, long to, OutputStream output, CRC32 crc) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            long position = from;
+            while (position < to) {
+                buffer.clear().limit((int) Math.min(BUFFER_BYTES, to - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("El archivo cambio de tamano durante la exportacion: " + path);
+                }
+                output.write(buffer.array(), 0, read);
+                if (crc != null) {
+                    crc.update(buffer.array(), 0, read);
+                }
+                position += read;
+            }
+        }
+    }
+
+    private static Part fixed(byte[] bytes) {
+        return new Part() {
+            @Override
+            public long length() {
+                return bytes.length;
+            }
+
+            @Override
+            public void write(OutputStream output, long from, long to) throws IOException {
+                output.write(bytes, (int) from, (int) (to - from));
+            }
+        };
+    }
+
+    // Bytes que dependen del CRC: se construyen al escribirlos
+    private interface BytesSupplier {
+        byte[] get() throws IOException;
+    }
+
+    private static Part lazy(int length, BytesSupplier supplier) {
+        return new Part() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            public void write(OutputStream output, long from, long to) throws IOException {
+                output.write(supplier.get(), (int) from, (int) (to - from));
+            }
+        };
+    }
+
+    private static ByteBuffer buffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.ImageHub.utils.blob;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*
+ * Almacen de blobs pequenos (miniaturas, LQIP) empaquetados en segmentos de solo anexado.
+ *
+ * Registro: MAGIC (int) | longitud de la clave (short) | longitud de los datos (int,
+ * -1 = borrado) | clave UTF-8 | datos. El indice clave -> (segmento, offset, longitud)
+ * vive en memoria y se reconstruye al abrir recorriendo las cabeceras; un registro
+ * truncado al final de un segmento (caida a mitad de escritura) se descarta.
+ *
+ * Las lecturas devuelven vistas de solo lectura sobre el segmento mapeado en memoria,
+ * sin copiar los datos al heap. Cada segmento se mapea una sola vez: el activo con
+ * su tamano maximo (el archivo crece disperso hasta ese tamano y se recorta al
+ * cerrarlo) y los cerrados con su tamano final; asi el numero de mapeos no crece
+ * con las lecturas. La compactacion toma el cerrojo de escritura antes de cerrar un
+ * segmento para que ninguna lectura en curso lo encuentre cerrado.
+ *
+ * Los borrados anexan una marca y la compactacion reescribe los registros vivos de
+ * los segmentos cerrados con mas espacio muerto que el umbral y elimina el archivo. No hay fsync por escritura: el contenido es
+ * una cache que se puede regenerar.
+ */
+@Slf4j
+public class BlobSegmentStore implements Closeable {
+
+    private static final int MAGIC = 0x49484231;
+    private static final int HEADER_BYTES = 4 + 2 + 4;
+    private static final int TOMBSTONE = -1;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+
+    // Ubicacion de los datos de un blob vivo
+    private record Location(Segment segment, long offset, int length) {
+    }
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // Lecturas frente al cierre de segmentos (compactacion y close)
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private volatile Segment active;
+
+    public BlobSegmentStore(Path directory, long maxSegmentBytes) throws IOException {
+        if (maxSegmentBytes <= HEADER_BYTES || maxSegmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamano de segmento invalido: " + maxSegmentBytes);
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(BlobSegmentStore::isSegmentFile).sorted().toList()) {
+                Segment segment = new Segment(segmentId(file), file);
+                segments.put(segment.id, segment);
+                load(segment);
+            }
+        }
+        active = segments.isEmpty() ? newSegment(1) : segments.lastEntry().getValue();
+        log.info("Almacen de blobs abierto en {}: {} segmentos, {} blobs", directory, segments.size(), index.size());
+    }
+
+    // Vista de solo lectura sobre los datos del blob o null si no existe
+    public ByteBuffer get(String key) throws IOException {
+        segmentLock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            return location.segment.slice(location.offset, location.length, location.segment == active);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public synchronized void put(String key, byte[] data) throws IOException {
+        put(key, ByteBuffer.wrap(data));
+    }
+
+    public synchronized void put(String key, ByteBuffer data) throws IOException {
+        byte[] keyBytes = encodeKey(key);
+        int length = data.remaining();
+        long recordBytes = HEADER_BYTES + keyBytes.length + (long) length;
+        if (recordBytes > maxSegmentBytes) {
+            throw new IllegalArgumentException("El blob excede el tamano de segmento: " + length + " bytes");
+        }
+        if (active.size + recordBytes > maxSegmentBytes) {
+            rollOver();
+        }
+
+        long offset = active.append(keyBytes, data);
+        replace(key, new Location(active, offset, length));
+        active.liveBytes += recordBytes;
+    }
+
+    // Marca como borrados todos los blobs cuya clave empieza por el prefijo
+    public synchronized int deleteByPrefix(String prefix) throws IOException {
+        int deleted = 0;
+        for (String key : List.copyOf(index.keySet())) {
+            if (key.startsWith(prefix)) {
+                delete(key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    public synchronized boolean delete(String key) throws IOException {
+        if (!index.containsKey(key)) {
+            return false;
+        }
+        byte[] keyBytes = encodeKey(key);
+        if (active.size + HEADER_BYTES + keyBytes.length > maxSegmentBytes) {
+            rollOver();
+        }
+        active.append(keyBytes, null);
+        active.tombstones.add(key);
+        replace(key, null);
+        return true;
+    }
+
+    /*
+     * Reescribe los segmentos cerrados cuya fraccion de bytes muertos supera minDeadRatio.
+     * Las marcas de borrado se conservan mientras quede un segmento mas antiguo que pueda
+     * contener datos de esa clave. Devuelve los bytes recuperados.
+     */
+    public synchronized long compact(double minDeadRatio) throws IOException {
+        long reclaimed = 0;
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment == active || segment.deadRatio() < minDeadRatio) {
+                continue;
+            }
+
+            for (Map.Entry<String, Location> entry : List.copyOf(index.entrySet())) {
+                Location location = entry.getValue();
+                if (location.segment == segment) {
+                    put(entry.getKey(), segment.slice(location.offset, location.length, false));
+                }
+            }
+            boolean olderSegmentsRemain = segments.firstKey() < segment.id;
+            if (olderSegmentsRemain) {
+                for (String key : segment.tombstones) {
+                    if (!index.containsKey(key)) {
+                        byte[] keyBytes = encodeKey(key);
+                        if (active.size + HEADER_BYTES + keyBytes.length > maxSegmentBytes) {
+                            rollOver();
+                        }
+                        active.append(keyBytes, null);
+                        active.tombstones.add(key);
+                    }
+                }
+            }
+
+            segments.remove(segment.id);
+            reclaimed += segment.size;
+            segmentLock.writeLock().lock();
+            try {
+                segment.close();
+            } finally {
+                segmentLock.writeLock().unlock();
+            }
+            // En Linux las vistas mapeadas que sigan en uso continuan siendo validas
+            if (!segment.file.toFile().delete()) {
+                log.warn("No se pudo eliminar el segmento compactado {}", segment.file);
+            }
+            log.info("Segmento {} compactado", segment.file.getFileName());
+        }
+        return reclaimed;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public int getBlobCount() {
+        return index.size();
+    }
+
+    // Bytes ocupados por registros que ya no son alcanzables
+    public synchronized long getDeadBytes() {
+        long dead = 0;
+        for (Segment segment : segments.values()) {
+            dead += segment.size - segment.liveBytes;
+        }
+        return dead;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segmentLock.writeLock().lock();
+        try {
+            active.trim();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    private void replace(String key, Location location) {
+        Location previous = location == null ? index.remove(key) : index.put(key, location);
+        if (previous != null) {
+            previous.segment.liveBytes -= HEADER_BYTES + encodeKey(key).length + (long) previous.length;
+        }
+    }
+
+    // Cierra el segmento activo a nuevas escrituras y abre el siguiente
+    private void rollOver() throws IOException {
+        Segment previous = active;
+        active = newSegment(previous.id + 1);
+        previous.trim();
+    }
+
+    private Segment newSegment(int id) throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, id, SUFFIX));
+        Segment segment = new Segment(id, file);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // Recorre las cabeceras de un segmento y actualiza el indice; trunca un final corrupto
+    private void load(Segment segment) throws IOException {
+        FileChannel channel = segment.channel;
+        long fileSize = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= fileSize) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int magic = header.getInt();
+            int keyLength = header.getShort() & 0xffff;
+            int dataLength = header.getInt();
+            long dataOffset = position + HEADER_BYTES + keyLength;
+            long end = dataOffset + Math.max(0, dataLength);
+            if (magic != MAGIC || dataLength < TOMBSTONE || end > fileSize) {
+                // Ceros al final: espacio reservado por el mapeo del segmento activo
+                segment.padded = magic == 0;
+                break;
+            }
+
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+            channel.read(keyBuffer, position + HEADER_BYTES);
+            String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+
+            segment.size = end;
+            if (dataLength == TOMBSTONE) {
+                segment.tombstones.add(key);
+                replace(key, null);
+            } else {
+                replace(key, new Location(segment, dataOffset, dataLength));
+                segment.liveBytes += end - position;
+            }
+            position = end;
+        }
+
+        if (segment.size < fileSize) {
+            if (!segment.padded) {
+                log.warn("Segmento {} truncado en {} de {} bytes", segment.file.getFileName(), segment.size, fileSize);
+            }
+            channel.truncate(segment.size);
+        }
+    }
+
+    private static byte[] encodeKey(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > 0xffff) {
+            throw new IllegalArgumentException("Clave de blob invalida: " + key);
+        }
+        return bytes;
+    }
+
+    private static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Archivo de segmento con su mapeo de lectura
+    private final class Segment {
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final List<String> tombstones = new ArrayList<>();
+        private volatile long size;
+        private long liveBytes;
+        private boolean padded;
+        private volatile MappedByteBuffer mapping;
+
+        private Segment(int id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        // Escribe un registro al final; devuelve el offset de los datos
+        private long append(byte[] key, ByteBuffer data) throws IOException {
+            int length = data == null ? TOMBSTONE : data.remaining();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + key.length);
+            header.putInt(MAGIC).putShort((short) key.length).putInt(length).put(key).flip();
+
+            long position = size;
+            long dataOffset = position + header.remaining();
+            writeFully(header, position);
+            if (data != null) {
+                writeFully(data.duplicate(), dataOffset);
+            }
+            size = dataOffset + Math.max(0, length);
+            return dataOffset;
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        /*
+         * Se mapea una sola vez, en la primera lectura. Un segmento que aun recibe
+         * escrituras se mapea con el tamano maximo para que las que lleguen despues
+         * ya queden dentro del mapeo; solo se leen offsets ya escritos.
+         */
+        private ByteBuffer slice(long offset, int length, boolean growing) throws IOException {
+            MappedByteBuffer current = mapping;
+            if (current == null) {
+                synchronized (this) {
+                    current = mapping;
+                    if (current == null) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, growing ? maxSegmentBytes : size);
+                        mapping = current;
+                    }
+                }
+            }
+            return current.slice((int) offset, length).asReadOnlyBuffer();
+        }
+
+        // Recorta el espacio reservado por el mapeo; Windows no lo permite con el mapeo abierto
+        private void trim() {
+            try {
+                if (channel.size() > size) {
+                    channel.truncate(size);
+                }
+            } catch (IOException e) {
+                log.debug("No se pudo recortar el segmento {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+
+        private double deadRatio() {
+            return size == 0 ? 0 : (double) (size - liveBytes) / size;
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ImageHub.utils.blob;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/*
+ * Recurso de Spring sobre un blob mapeado en memoria.
+ *
+ * El flujo lee directamente de la vista del segmento, sin copiar el blob a un
+ * arreglo intermedio. Cada llamada a getInputStream parte de una vista propia.
+ */
+public class MappedBlobResource extends AbstractResource {
+
+    private final ByteBuffer data;
+    private final String fileName;
+
+    public MappedBlobResource(ByteBuffer data, String fileName) {
+        this.data = data.asReadOnlyBuffer();
+        this.fileName = fileName;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer view = data.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, view.remaining());
+                view.get(buffer, offset, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+
+    @Override
+    public long contentLength() {
+        return data.remaining();
+    }
+
+    // El blob es inmutable: no hay fecha de modificacion propia
+    @Override
+    public long lastModified() {
+        return 0;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Blob mapeado [" + fileName + "]";
+    }
+}
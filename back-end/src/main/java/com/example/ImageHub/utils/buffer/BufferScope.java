@@ -0,0 +1,104 @@
+package com.example.ImageHub.utils.buffer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.lang.ref.Cleaner;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/*
+ * Ambito de una transformacion: las imagenes creadas con allocate() usan
+ * arreglos del pool y se devuelven todas al cerrar el scope. Las imagenes no
+ * deben usarse despues de close().
+ */
+public class BufferScope implements AutoCloseable {
+
+    private static final DirectColorModel RGB = new DirectColorModel(24, 0xff0000, 0x00ff00, 0x0000ff);
+    private static final DirectColorModel ARGB = (DirectColorModel) ColorModel.getRGBdefault();
+
+    private final RasterBufferPool pool;
+    private final Map<BufferedImage, int[]> leased = new IdentityHashMap<>();
+    private final LeakState state;
+    private Cleaner.Cleanable cleanable;
+
+    BufferScope(RasterBufferPool pool) {
+        this.pool = pool;
+        this.state = new LeakState(pool, Thread.currentThread().getName());
+    }
+
+    // Scope sin pool: asigna memoria normalmente (pruebas y usos puntuales)
+    public static BufferScope unpooled() {
+        return new BufferScope(null);
+    }
+
+    void registerCleanup(Cleaner cleaner) {
+        this.cleanable = cleaner.register(this, state);
+    }
+
+    // Equivalente a new BufferedImage(width, height, TYPE_INT_RGB / TYPE_INT_ARGB)
+    public BufferedImage allocate(int width, int height, boolean alpha) {
+        if (pool == null) {
+            return new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        }
+
+        int pixels = Math.multiplyExact(width, height);
+        int[] array = pool.borrow(pixels);
+        DirectColorModel colorModel = alpha ? ARGB : RGB;
+        WritableRaster raster = Raster.createPackedRaster(
+                new DataBufferInt(array, pixels), width, height, width, colorModel.getMasks(), null);
+        BufferedImage image = new BufferedImage(colorModel, raster, false, null);
+
+        leased.put(image, array);
+        state.leased++;
+        return image;
+    }
+
+    // Devuelve una imagen intermedia antes de cerrar el scope
+    public void release(BufferedImage image) {
+        int[] array = leased.remove(image);
+        if (array != null) {
+            state.leased--;
+            pool.giveBack(array);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            for (int[] array : leased.values()) {
+                pool.giveBack(array);
+            }
+        }
+        leased.clear();
+        state.leased = 0;
+        state.closed = true;
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+    }
+
+    // No debe referenciar al scope: el Cleaner solo se ejecuta si el scope es inalcanzable
+    private static final class LeakState implements Runnable {
+        private final RasterBufferPool pool;
+        private final String owner;
+        private volatile boolean closed;
+        private volatile int leased;
+
+        private LeakState(RasterBufferPool pool, String owner) {
+            this.pool = pool;
+            this.owner = owner;
+        }
+
+        @Override
+        public void run() {
+            if (!closed && pool != null) {
+                pool.reportLeak(owner, leased);
+            }
+        }
+    }
+}
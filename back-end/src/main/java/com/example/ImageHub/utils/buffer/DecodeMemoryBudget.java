@@ -0,0 +1,137 @@
+package com.example.ImageHub.utils.buffer;
+
+import com.example.ImageHub.exceptions.DecodeBudgetExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Control de admision por memoria de pixeles decodificados.
+ *
+ * El tamano del archivo no acota la memoria: un PNG de pocos KB puede
+ * declarar dimensiones de gigapixeles. Antes de decodificar, el coste se estima
+ * con las dimensiones de la cabecera y se reserva contra un presupuesto global.
+ * Si no hay espacio la solicitud espera un tiempo acotado y luego se rechaza.
+ */
+@Slf4j
+@Component
+public class DecodeMemoryBudget {
+
+    // Bytes por pixel de un raster int ARGB
+    public static final int BYTES_PER_PIXEL = 4;
+
+    private final long capacityBytes;
+    private final long maxPixels;
+    private final long waitMillis;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private long usedBytes;
+
+    private final Counter rejections;
+
+    public DecodeMemoryBudget(MeterRegistry meterRegistry,
+                              @Value("${image.decode-budget.megabytes:512}") long capacityMegabytes,
+                              @Value("${image.max-megapixels:100}") long maxMegapixels,
+                              @Value("${image.decode-budget.wait-ms:5000}") long waitMillis) {
+        this.capacityBytes = capacityMegabytes * 1024 * 1024;
+        this.maxPixels = maxMegapixels * 1_000_000;
+        this.waitMillis = waitMillis;
+        this.rejections = meterRegistry.counter("imagehub.decode.budget.rejections");
+        Gauge.builder("imagehub.decode.budget.used", this, DecodeMemoryBudget::getUsedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Limite por imagen, independiente de la carga del nodo
+    public void checkDimensions(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Dimensiones de imagen invalidas: " + width + "x" + height);
+        }
+        if ((long) width * height > maxPixels) {
+            throw new IllegalArgumentException(String.format(
+                    "La imagen (%dx%d) excede el maximo permitido de %d megapixeles",
+                    width, height, maxPixels / 1_000_000));
+        }
+    }
+
+    public Permit acquirePixels(long pixels) {
+        return acquire(pixels * BYTES_PER_PIXEL);
+    }
+
+    public Permit acquire(long bytes) {
+        if (bytes > capacityBytes) {
+            rejections.increment();
+            throw new IllegalArgumentException(String.format(
+                    "La operacion requiere %d MB, mas que el presupuesto total de %d MB",
+                    bytes / (1024 * 1024), capacityBytes / (1024 * 1024)));
+        }
+
+        long remaining = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        lock.lock();
+        try {
+            while (usedBytes + bytes > capacityBytes) {
+                if (remaining <= 0) {
+                    rejections.increment();
+                    log.warn("[DECODE-BUDGET] Rechazada reserva de {} bytes ({} de {} en uso)",
+                            bytes, usedBytes, capacityBytes);
+                    throw new DecodeBudgetExceededException(
+                            "El servidor esta procesando demasiadas imagenes, intente de nuevo mas tarde");
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            usedBytes += bytes;
+            return new Permit(bytes);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DecodeBudgetExceededException("Espera de memoria interrumpida");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long bytes) {
+        lock.lock();
+        try {
+            usedBytes -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reserva activa; se libera una sola vez al cerrarla
+    public final class Permit implements AutoCloseable {
+        private final long bytes;
+        private boolean closed;
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(bytes);
+            }
+        }
+    }
+}
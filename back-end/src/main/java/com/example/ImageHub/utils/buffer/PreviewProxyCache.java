@@ -0,0 +1,91 @@
+package com.example.ImageHub.utils.buffer;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * Proxies reducidos de las imagenes que se estan editando, limitados por bytes.
+ *
+ * Cada entrada guarda la version del original (fecha de modificacion) para no
+ * servir un proxy de un archivo reemplazado. Al superar la capacidad se expulsan
+ * las entradas menos usadas.
+ */
+public class PreviewProxyCache {
+
+    // Proxy sin orientar y version del original del que sale
+    public static final class Proxy {
+        private final BufferedImage image;
+        private final long version;
+
+        public Proxy(BufferedImage image, long version) {
+            this.image = image;
+            this.version = version;
+        }
+
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        long getBytes() {
+            return (long) image.getWidth() * image.getHeight() * DecodeMemoryBudget.BYTES_PER_PIXEL;
+        }
+    }
+
+    private final long capacityBytes;
+    private final LinkedHashMap<UUID, Proxy> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public PreviewProxyCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    // Proxy vigente para esa version del original o null
+    public synchronized Proxy get(UUID imageId, long version) {
+        Proxy proxy = entries.get(imageId);
+        if (proxy == null) {
+            return null;
+        }
+        if (proxy.getVersion() != version) {
+            remove(imageId);
+            return null;
+        }
+        return proxy;
+    }
+
+    public synchronized void put(UUID imageId, Proxy proxy) {
+        if (proxy.getBytes() > capacityBytes) {
+            return;
+        }
+        remove(imageId);
+        entries.put(imageId, proxy);
+        usedBytes += proxy.getBytes();
+
+        Iterator<Map.Entry<UUID, Proxy>> eldest = entries.entrySet().iterator();
+        while (usedBytes > capacityBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().getValue().getBytes();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void remove(UUID imageId) {
+        Proxy removed = entries.remove(imageId);
+        if (removed != null) {
+            usedBytes -= removed.getBytes();
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ImageHub.utils.buffer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Pool acotado de arreglos de pixeles (int ARGB) agrupados por clase de tamano.
+ *
+ * Cada transformacion crea rasters del tamano de la imagen completa; sin pool
+ * esos arreglos grandes van directo a la generacion vieja y alargan las pausas
+ * de GC. Los arreglos se piden a traves de un BufferScope y vuelven al pool al
+ * cerrarlo. Un scope recolectado sin cerrarse se reporta como fuga.
+ */
+@Slf4j
+@Component
+public class RasterBufferPool {
+
+    // Por debajo de este tamano asignar es mas barato que sincronizar el pool
+    private static final int MIN_POOLED_PIXELS = 1 << 14;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ConcurrentHashMap<Integer, Deque<int[]>> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, AtomicInteger> bucketSizes = new ConcurrentHashMap<>();
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final long maxPooledBytes;
+    private final int maxPerSize;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter leaks;
+
+    public RasterBufferPool(MeterRegistry meterRegistry,
+                            @Value("${image.buffer-pool.max-megabytes:256}") long maxMegabytes,
+                            @Value("${image.buffer-pool.max-per-size:8}") int maxPerSize) {
+        this.maxPooledBytes = maxMegabytes * 1024 * 1024;
+        this.maxPerSize = maxPerSize;
+        this.hits = meterRegistry.counter("imagehub.buffer.pool.hits");
+        this.misses = meterRegistry.counter("imagehub.buffer.pool.misses");
+        this.leaks = meterRegistry.counter("imagehub.buffer.pool.leaks");
+        Gauge.builder("imagehub.buffer.pool.bytes", pooledBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public BufferScope openScope() {
+        BufferScope scope = new BufferScope(this);
+        scope.registerCleanup(CLEANER);
+        return scope;
+    }
+
+    int[] borrow(int pixels) {
+        if (pixels < MIN_POOLED_PIXELS) {
+            return new int[pixels];
+        }
+
+        int size = sizeClass(pixels);
+        Deque<int[]> bucket = buckets.get(size);
+        int[] array = bucket == null ? null : bucket.pollFirst();
+
+        if (array == null) {
+            misses.increment();
+            return new int[size];
+        }
+
+        bucketSizes.get(size).decrementAndGet();
+        pooledBytes.addAndGet(-4L * size);
+        hits.increment();
+        // Los pasos asumen un lienzo vacio, igual que un BufferedImage nuevo
+        Arrays.fill(array, 0, pixels, 0);
+        return array;
+    }
+
+    void giveBack(int[] array) {
+        int size = array.length;
+        if (size < MIN_POOLED_PIXELS || sizeClass(size) != size) {
+            return;
+        }
+
+        long bytes = 4L * size;
+        if (pooledBytes.addAndGet(bytes) > maxPooledBytes) {
+            pooledBytes.addAndGet(-bytes);
+            return;
+        }
+
+        AtomicInteger count = bucketSizes.computeIfAbsent(size, k -> new AtomicInteger());
+        if (count.incrementAndGet() > maxPerSize) {
+            count.decrementAndGet();
+            pooledBytes.addAndGet(-bytes);
+            return;
+        }
+        buckets.computeIfAbsent(size, k -> new ConcurrentLinkedDeque<>()).offerFirst(array);
+    }
+
+    void reportLeak(String owner, int leased) {
+        leaks.increment();
+        log.warn("[BUFFER-POOL] BufferScope abierto en el hilo {} no se cerro; {} buffers no volvieron al pool",
+                owner, leased);
+    }
+
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    // Redondea hacia arriba a cuartos de potencia de dos: desperdicio maximo del 25%
+    static int sizeClass(int pixels) {
+        int highBit = 31 - Integer.numberOfLeadingZeros(pixels);
+        if (highBit < 2) {
+            return pixels;
+        }
+        int step = 1 << (highBit - 2);
+        return (int) Math.min(Integer.MAX_VALUE, ((long) pixels + step - 1) / step * step);
+    }
+}
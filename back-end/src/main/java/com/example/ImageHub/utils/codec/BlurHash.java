@@ -0,0 +1,121 @@
+package com.example.ImageHub.utils.codec;
+
+import java.awt.image.BufferedImage;
+
+/*
+ * Codificador BlurHash (https://blurha.sh).
+ *
+ * Resume la imagen en unas pocas componentes de coseno sobre color lineal y
+ * las empaqueta en base 83; con 4x3 componentes el resultado ocupa 28
+ * caracteres. El cliente lo decodifica a un degradado borroso del tamano que
+ * quiera. Conviene pasarle una imagen ya reducida: el coste es proporcional a
+ * pixeles x componentes.
+ */
+public final class BlurHash {
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    public static String encode(BufferedImage image, int componentsX, int componentsY) {
+        if (componentsX < 1 || componentsX > 9 || componentsY < 1 || componentsY > 9) {
+            throw new IllegalArgumentException("Las componentes de BlurHash deben estar entre 1 y 9");
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        // Canales en color lineal para que el promedio no oscurezca la imagen
+        double[] red = new double[pixels.length];
+        double[] green = new double[pixels.length];
+        double[] blue = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            red[i] = srgbToLinear((pixels[i] >> 16) & 0xff);
+            green[i] = srgbToLinear((pixels[i] >> 8) & 0xff);
+            blue[i] = srgbToLinear(pixels[i] & 0xff);
+        }
+
+        double[][] factors = new double[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                factors[j * componentsX + i] = component(i, j, width, height, red, green, blue);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83((componentsX - 1) + (componentsY - 1) * 9, 1, hash);
+
+        double maximumValue = 1;
+        if (factors.length > 1) {
+            double actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double value : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(value));
+                }
+            }
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            encode83(quantisedMaximum, 1, hash);
+        } else {
+            encode83(0, 1, hash);
+        }
+
+        double[] dc = factors[0];
+        encode83((linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4, hash);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int value = quantiseAc(ac[0], maximumValue) * 19 * 19
+                    + quantiseAc(ac[1], maximumValue) * 19
+                    + quantiseAc(ac[2], maximumValue);
+            encode83(value, 2, hash);
+        }
+        return hash.toString();
+    }
+
+    private static double[] component(int i, int j, int width, int height,
+                                      double[] red, double[] green, double[] blue) {
+        double normalisation = i == 0 && j == 0 ? 1 : 2;
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        for (int y = 0; y < height; y++) {
+            double basisY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = normalisation * Math.cos(Math.PI * i * x / width) * basisY;
+                int index = y * width + x;
+                r += basis * red[index];
+                g += basis * green[index];
+                b += basis * blue[index];
+            }
+        }
+        double scale = 1.0 / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double scaled = value / maximumValue;
+        double signedRoot = Math.copySign(Math.sqrt(Math.abs(scaled)), scaled);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void encode83(int value, int length, StringBuilder target) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            target.append(BASE83.charAt(digit));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ImageHub.utils.codec;
+
+import com.example.ImageHub.dto.imgDTO.Encoding;
+
+// Parametros de codificacion ya resueltos y validados
+public final class EncodeOptions {
+
+    public static final EncodeOptions DEFAULT = new EncodeOptions(0.85f, false, 6);
+
+    private final float quality;
+    private final boolean progressive;
+    private final int compressionLevel;
+    private final boolean optimize;
+
+    public EncodeOptions(float quality, boolean progressive, int compressionLevel) {
+        this(quality, progressive, compressionLevel, false);
+    }
+
+    public EncodeOptions(float quality, boolean progressive, int compressionLevel, boolean optimize) {
+        this.quality = quality;
+        this.progressive = progressive;
+        this.compressionLevel = compressionLevel;
+        this.optimize = optimize;
+    }
+
+    // Como resolve(encoding), rechazando opciones que el formato de salida no puede aplicar
+    public static EncodeOptions resolve(Encoding encoding, String format) {
+        // El escritor WebP solo es sin perdida (VP8L): su unico ajuste es compressionLevel
+        if (encoding != null && encoding.getQuality() != null && "webp".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("WebP se codifica sin perdida: use compressionLevel en lugar de quality");
+        }
+        return resolve(encoding);
+    }
+
+    // Combina el preset solicitado con los valores explicitos de la solicitud
+    public static EncodeOptions resolve(Encoding encoding) {
+        if (encoding == null) {
+            return DEFAULT;
+        }
+
+        float quality = DEFAULT.quality;
+        boolean progressive = DEFAULT.progressive;
+        int compressionLevel = DEFAULT.compressionLevel;
+        boolean optimize = DEFAULT.optimize;
+
+        if (encoding.getPreset() != null && !encoding.getPreset().isEmpty()) {
+            EncodePreset preset;
+            try {
+                preset = EncodePreset.valueOf(encoding.getPreset().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Preset de codificacion no soportado: " + encoding.getPreset());
+            }
+            quality = preset.getQuality();
+            progressive = preset.isProgressive();
+            compressionLevel = preset.getCompressionLevel();
+            optimize = preset.isOptimize();
+        }
+
+        if (encoding.getQuality() != null) {
+            if (encoding.getQuality() < 0f || encoding.getQuality() > 1f) {
+                throw new IllegalArgumentException("Quality debe estar entre 0.0 y 1.0");
+            }
+            quality = encoding.getQuality();
+        }
+        if (encoding.getProgressive() != null) {
+            progressive = encoding.getProgressive();
+        }
+        if (encoding.getCompressionLevel() != null) {
+            if (encoding.getCompressionLevel() < 0 || encoding.getCompressionLevel() > 9) {
+                throw new IllegalArgumentException("CompressionLevel debe estar entre 0 y 9");
+            }
+            compressionLevel = encoding.getCompressionLevel();
+        }
+        if (encoding.getOptimize() != null) {
+            optimize = encoding.getOptimize();
+        }
+
+        return new EncodeOptions(quality, progressive, compressionLevel, optimize);
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calidad %.2f, compresion %d%s%s",
+                quality, compressionLevel, progressive ? ", progresivo" : "", optimize ? ", optimizado" : "");
+    }
+}
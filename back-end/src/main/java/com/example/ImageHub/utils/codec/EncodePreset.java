@@ -0,0 +1,42 @@
+package com.example.ImageHub.utils.codec;
+
+// Combinaciones predefinidas de parametros de codificacion
+public enum EncodePreset {
+
+    // Equilibrio entre tamano y calidad para servir en navegador
+    WEB(0.85f, true, 6, false),
+
+    // Maxima calidad visual
+    HIGH(0.95f, false, 9, false),
+
+    // Menor tamano posible aceptando perdida visible
+    COMPACT(0.65f, true, 9, true);
+
+    private final float quality;
+    private final boolean progressive;
+    private final int compressionLevel;
+    private final boolean optimize;
+
+    EncodePreset(float quality, boolean progressive, int compressionLevel, boolean optimize) {
+        this.quality = quality;
+        this.progressive = progressive;
+        this.compressionLevel = compressionLevel;
+        this.optimize = optimize;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.ImageHub.utils.codec;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.webp.WebPImageWriterSpi;
+import com.example.ImageHub.utils.jfr.CodecEvent;
+import com.example.ImageHub.utils.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Capa de codificacion y decodificacion de imagenes.
+ *
+ * ImageIO.read/write buscan los proveedores SPI en cada llamada y usan los
+ * parametros por defecto del codificador. Aqui los ImageReader/ImageWriter se
+ * reutilizan por formato y por hilo (no son thread-safe) y los parametros de
+ * calidad, compresion y modo progresivo se aplican de forma explicita.
+ */
+@Slf4j
+@Component
+public class ImageCodec {
+
+    private static final ThreadLocal<Map<String, ImageReader>> READERS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    private final MeterRegistry meterRegistry;
+    private final DecodeMemoryBudget decodeMemoryBudget;
+
+    public ImageCodec(MeterRegistry meterRegistry, DecodeMemoryBudget decodeMemoryBudget) {
+        this.meterRegistry = meterRegistry;
+        this.decodeMemoryBudget = decodeMemoryBudget;
+        // Registro explicito: el escaneo de META-INF/services depende del class loader activo
+        IIORegistry.getDefaultInstance().registerServiceProvider(new WebPImageWriterSpi(), ImageWriterSpi.class);
+    }
+
+    // Lee las dimensiones desde la cabecera sin decodificar los pixeles
+    public int[] readDimensions(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return readDimensions(input, getExtension(file.getName()));
+        }
+    }
+
+    // Dimensiones y orientacion EXIF, sin decodificar los pixeles
+    public ImageHeader readHeader(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("No se pudo abrir la imagen");
+            }
+            Orientation orientation = Orientation.read(input);
+            int[] dimensions = readDimensions(input, getExtension(file.getName()));
+            return new ImageHeader(dimensions[0], dimensions[1], orientation);
+        }
+    }
+
+    public int[] readDimensions(InputStream stream) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            return readDimensions(input, null);
+        }
+    }
+
+    private int[] readDimensions(ImageInputStream input, String formatHint) throws IOException {
+        ImageReader reader = acquireReader(input, formatHint);
+        boolean completed = false;
+        try {
+            reader.setInput(input, true, true);
+            int[] dimensions = {reader.getWidth(0), reader.getHeight(0)};
+            completed = true;
+            return dimensions;
+        } finally {
+            release(reader, completed);
+        }
+    }
+
+    public BufferedImage decode(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return decode(input, getExtension(file.getName()));
+        }
+    }
+
+    public BufferedImage decode(InputStream stream) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(stream)) {
+            return decode(input, null);
+        }
+    }
+
+    // Decodifica saltando filas y columnas para que el lado mayor quede cerca de maxEdge
+    // sin bajar de el; el lector nunca construye el raster completo
+    public BufferedImage decodeSubsampled(File file, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return decode(input, getExtension(file.getName()), maxEdge);
+        }
+    }
+
+    /*
+     * Decodifica solo una region de la imagen almacenada, saltando filas y columnas
+     * segun el factor. La memoria depende del tamano de la region y no del de la
+     * imagen; las dimensiones completas no se limitan porque nunca se reservan.
+     */
+    public BufferedImage decodeRegion(File file, Rectangle region, int subsampling) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return decode(input, getExtension(file.getName()), (width, height, param) -> {
+                Rectangle bounds = region.intersection(new Rectangle(width, height));
+                if (bounds.isEmpty()) {
+                    throw new IllegalArgumentException("Region fuera de la imagen: " + region);
+                }
+                param.setSourceRegion(bounds);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+            });
+        }
+    }
+
+    // Factor de submuestreo que aplica decodeSubsampled a una imagen de estas dimensiones
+    public static int subsampling(int width, int height, int maxEdge) {
+        return maxEdge <= 0 ? 1 : Math.max(1, Math.max(width, height) / maxEdge);
+    }
+
+    private BufferedImage decode(ImageInputStream input, String formatHint) throws IOException {
+        return decode(input, formatHint, 0);
+    }
+
+    private BufferedImage decode(ImageInputStream input, String formatHint, int maxEdge) throws IOException {
+        return decode(input, formatHint, (width, height, param) -> {
+            // Las dimensiones declaradas se validan antes de reservar el raster
+            decodeMemoryBudget.checkDimensions(width, height);
+            int factor = subsampling(width, height, maxEdge);
+            if (factor > 1) {
+                param.setSourceSubsampling(factor, factor, 0, 0);
+            }
+        });
+    }
+
+    // Ajusta los parametros de lectura una vez conocidas las dimensiones declaradas
+    @FunctionalInterface
+    private interface ReadParamCustomizer {
+        void customize(int width, int height, ImageReadParam param);
+    }
+
+    private BufferedImage decode(ImageInputStream input, String formatHint, ReadParamCustomizer customizer)
+            throws IOException {
+        CodecEvent event = new CodecEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ImageReader reader = acquireReader(input, formatHint);
+        String format = formatName(reader.getOriginatingProvider());
+        boolean completed = false;
+        try {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            customizer.customize(reader.getWidth(0), reader.getHeight(0), param);
+            BufferedImage image = reader.read(0, param);
+            long pixels = (long) image.getWidth() * image.getHeight();
+            Timer.builder("imagehub.codec.decode")
+                    .tag("format", format)
+                    .tag("size", PipelineMetrics.sizeBucket(pixels))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("imagehub.pipeline.pixels")
+                    .baseUnit("pixels")
+                    .tag("stage", "decode")
+                    .tag("size", PipelineMetrics.sizeBucket(pixels))
+                    .register(meterRegistry)
+                    .record(pixels);
+            // Bytes de entrada; los flujos sin longitud conocida no se cuentan
+            if (input.length() >= 0) {
+                DistributionSummary.builder("imagehub.codec.decode.bytes")
+                        .baseUnit("bytes")
+                        .tag("format", format)
+                        .register(meterRegistry)
+                        .record(input.length());
+            }
+            event.complete("decode", format, image.getWidth(), image.getHeight(), input.length());
+            completed = true;
+            return image;
+        } finally {
+            release(reader, completed);
+        }
+    }
+
+    /*
+     * Codifica en un archivo; devuelve los bytes escritos. Se escribe en un temporal junto
+     * al destino y se reemplaza de forma atomica: un lector concurrente o un fallo a mitad
+     * nunca ven un archivo ausente o truncado.
+     */
+    public long encode(BufferedImage image, String format, EncodeOptions options, File target) throws IOException {
+        Path destination = target.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(destination.getParent(), destination.getFileName() + ".", ".tmp");
+        try {
+            long bytes;
+            try (ImageOutputStream output = new FileImageOutputStream(temp.toFile())) {
+                bytes = encode(image, format, options, output);
+            }
+            Files.move(temp, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return bytes;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Codifica en un stream; devuelve los bytes escritos
+    public long encode(BufferedImage image, String format, EncodeOptions options, OutputStream target) throws IOException {
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target)) {
+            return encode(image, format, options, output);
+        }
+    }
+
+    private long encode(BufferedImage image, String format, EncodeOptions options, ImageOutputStream output)
+            throws IOException {
+
+        CodecEvent event = new CodecEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String key = normalize(format);
+        EncodeOptions effective = options == null ? EncodeOptions.DEFAULT : options;
+        if ("png".equals(key) && effective.isOptimize()) {
+            return encodeOptimizedPng(image, effective, output, start, event);
+        }
+
+        ImageWriter writer = acquireWriter(key);
+        boolean completed = false;
+
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            applyOptions(param, key, effective);
+
+            long initialPosition = output.getStreamPosition();
+            writer.setOutput(output);
+            // Sin metadatos: la salida no arrastra EXIF, miniaturas ni perfiles ICC de la fuente
+            writer.write(null, new IIOImage(prepare(image, key), null, null), param);
+            output.flush();
+            long bytes = output.getStreamPosition() - initialPosition;
+
+            recordEncode(key, start, event, bytes, image);
+
+            log.debug("[CODEC] Imagen codificada en {} ({}): {} bytes", key, effective, bytes);
+            completed = true;
+            return bytes;
+
+        } finally {
+            release(key, writer, completed);
+        }
+    }
+
+    // El optimizador sustituye al escritor de ImageIO dentro de la misma codificacion
+    private long encodeOptimizedPng(BufferedImage image, EncodeOptions options, ImageOutputStream output, long start,
+                                    CodecEvent event) throws IOException {
+        PngOptimizer.Result result = PngOptimizer.optimize(image, options.getCompressionLevel());
+        output.write(result.getData());
+        output.flush();
+
+        long bytes = result.getData().length;
+        recordEncode("png", start, event, bytes, image);
+        DistributionSummary.builder("imagehub.codec.png.optimizer.saved")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(Math.max(0, result.getSavedBytes()));
+
+        log.info("[CODEC] PNG optimizado como {} de {} bits: {} bytes ({} bytes ahorrados)",
+                result.getColorType(), result.getBitDepth(), bytes, result.getSavedBytes());
+        return bytes;
+    }
+
+    private void recordEncode(String format, long start, CodecEvent event, long bytes, BufferedImage image) {
+        event.complete("encode", format, image.getWidth(), image.getHeight(), bytes);
+        long pixels = (long) image.getWidth() * image.getHeight();
+        Timer.builder("imagehub.codec.encode")
+                .tag("format", format)
+                .tag("size", PipelineMetrics.sizeBucket(pixels))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("imagehub.codec.encode.bytes")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private void applyOptions(ImageWriteParam param, String format, EncodeOptions options) {
+        if (param.canWriteCompressed()) {
+            String[] types = param.getCompressionTypes();
+            switch (format) {
+                case "jpeg" -> {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(options.getQuality());
+                }
+                case "png" -> {
+                    // El codificador PNG del JDK traduce la calidad a nivel de deflate (9 = maximo)
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                        param.setCompressionType(types[0]);
+                    }
+                    param.setCompressionQuality(1f - options.getCompressionLevel() / 9f);
+                }
+                case "webp" -> {
+                    // WebP sin perdida: la calidad del escritor es el esfuerzo, igual que el nivel PNG
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                        param.setCompressionType(types[0]);
+                    }
+                    param.setCompressionQuality(options.getCompressionLevel() / 9f);
+                }
+                default -> {
+                    // gif y bmp: se mantiene la compresion por defecto del codificador
+                }
+            }
+        }
+
+        if (param.canWriteProgressive()) {
+            param.setProgressiveMode(options.isProgressive()
+                    ? ImageWriteParam.MODE_DEFAULT
+                    : ImageWriteParam.MODE_DISABLED);
+        }
+    }
+
+    // JPEG y BMP no admiten transparencia: se aplana sobre fondo blanco
+    private BufferedImage prepare(BufferedImage image, String format) {
+        if ("jpeg".equals(format) || "bmp".equals(format)) {
+            return flatten(image);
+        }
+        return image;
+    }
+
+    // Copia opaca sobre fondo blanco; una imagen sin canal alfa se devuelve tal cual
+    public static BufferedImage flatten(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage flattened = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        var g2d = flattened.createGraphics();
+        g2d.drawImage(image, 0, 0, Color.WHITE, null);
+        g2d.dispose();
+        return flattened;
+    }
+
+    private ImageReader acquireReader(ImageInputStream input, String formatHint) throws IOException {
+        if (input == null) {
+            throw new IOException("No se pudo abrir la imagen");
+        }
+
+        Map<String, ImageReader> pool = READERS.get();
+
+        // Primero el lector del formato indicado por la extension, luego cualquiera ya creado
+        ImageReader hinted = formatHint == null ? null : pool.get(normalize(formatHint));
+        if (hinted != null && hinted.getOriginatingProvider().canDecodeInput(input)) {
+            return hinted;
+        }
+        for (ImageReader pooled : pool.values()) {
+            if (pooled != hinted && pooled.getOriginatingProvider().canDecodeInput(input)) {
+                return pooled;
+            }
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Formato de imagen no reconocido");
+        }
+        ImageReader reader = readers.next();
+        pool.put(formatName(reader.getOriginatingProvider()), reader);
+        log.debug("[CODEC] Nuevo lector {} para el hilo {}", reader.getClass().getSimpleName(),
+                Thread.currentThread().getName());
+        return reader;
+    }
+
+    private ImageWriter acquireWriter(String format) throws IOException {
+        Map<String, ImageWriter> pool = WRITERS.get();
+        ImageWriter writer = pool.get(format);
+        if (writer != null) {
+            return writer;
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No hay codificador disponible para el formato: " + format);
+        }
+        writer = writers.next();
+        pool.put(format, writer);
+        log.debug("[CODEC] Nuevo escritor {} para el hilo {}", writer.getClass().getSimpleName(),
+                Thread.currentThread().getName());
+        return writer;
+    }
+
+    // Un lector o escritor que fallo puede quedar en estado inconsistente: se descarta
+    private void release(ImageReader reader, boolean completed) {
+        if (completed) {
+            reader.reset();
+        } else {
+            READERS.get().values().remove(reader);
+            reader.dispose();
+        }
+    }
+
+    private void release(String format, ImageWriter writer, boolean completed) {
+        if (completed) {
+            writer.reset();
+        } else {
+            WRITERS.get().remove(format, writer);
+            writer.dispose();
+        }
+    }
+
+    // Lector o escritor que el hilo actual tiene en su pool para el formato (pruebas)
+    static ImageReader pooledReader(String format) {
+        return READERS.get().get(normalize(format));
+    }
+
+    static ImageWriter pooledWriter(String format) {
+        return WRITERS.get().get(normalize(format));
+    }
+
+    private String formatName(ImageReaderSpi provider) {
+        return normalize(provider.getFormatNames()[0]);
+    }
+
+    private static String normalize(String format) {
+        String lower = format.toLowerCase(Locale.ROOT);
+        return "jpg".equals(lower) ? "jpeg" : lower;
+    }
+
+    private static String getExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? null : fileName.substring(dot + 1);
+    }
+}
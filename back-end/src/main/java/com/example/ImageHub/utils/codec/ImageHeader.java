@@ -0,0 +1,37 @@
+package com.example.ImageHub.utils.codec;
+
+// Datos de la cabecera de una imagen leidos sin decodificar los pixeles
+public final class ImageHeader {
+
+    private final int width;
+    private final int height;
+    private final Orientation orientation;
+
+    public ImageHeader(int width, int height, Orientation orientation) {
+        this.width = width;
+        this.height = height;
+        this.orientation = orientation;
+    }
+
+    // Dimensiones del raster almacenado
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Orientation getOrientation() {
+        return orientation;
+    }
+
+    // Dimensiones tal como se muestra la imagen
+    public int getOrientedWidth() {
+        return orientation.swapsAxes() ? height : width;
+    }
+
+    public int getOrientedHeight() {
+        return orientation.swapsAxes() ? width : height;
+    }
+}
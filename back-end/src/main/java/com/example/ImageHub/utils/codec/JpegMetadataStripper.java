@@ -0,0 +1,122 @@
+package com.example.ImageHub.utils.codec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/*
+ * Elimina de un JPEG los segmentos de metadatos (EXIF, miniatura, XMP, ICC,
+ * IPTC y comentarios) sin recodificar: los datos comprimidos se copian tal cual.
+ *
+ * Se conservan APP0 (JFIF) y APP14 (Adobe, indica la transformacion de color).
+ * Si el EXIF original tenia una orientacion distinta de NORMAL se reescribe un
+ * APP1 minimo con solo esa etiqueta, para que la imagen se siga mostrando igual.
+ * Sin el perfil ICC la imagen se interpreta como sRGB.
+ */
+public final class JpegMetadataStripper {
+
+    private static final int MARKER_APP0 = 0xE0;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_APP14 = 0xEE;
+    private static final int MARKER_APP15 = 0xEF;
+    private static final int MARKER_COM = 0xFE;
+    private static final int MARKER_SOS = 0xDA;
+
+    private JpegMetadataStripper() {
+    }
+
+    // Devuelve los bytes de metadatos eliminados
+    public static long strip(InputStream source, OutputStream target) throws IOException {
+        DataInputStream input = new DataInputStream(source);
+        if (input.readUnsignedByte() != 0xFF || input.readUnsignedByte() != 0xD8) {
+            throw new IOException("El archivo no es un JPEG valido");
+        }
+        target.write(0xFF);
+        target.write(0xD8);
+
+        long removed = 0;
+        Orientation orientation = Orientation.NORMAL;
+        boolean orientationWritten = false;
+
+        while (true) {
+            int marker = nextMarker(input);
+            if (Orientation.isStandalone(marker)) {
+                target.write(0xFF);
+                target.write(marker);
+                continue;
+            }
+
+            if (marker == MARKER_SOS) {
+                if (orientation != Orientation.NORMAL && !orientationWritten) {
+                    writeOrientationSegment(target, orientation);
+                }
+                target.write(0xFF);
+                target.write(marker);
+                // Desde aqui solo quedan datos de imagen: se copian sin analizar
+                input.transferTo(target);
+                return removed;
+            }
+
+            // La longitud incluye sus propios 2 bytes
+            int length = input.readUnsignedShort();
+            if (length < 2) {
+                throw new IOException("Segmento JPEG invalido: longitud " + length);
+            }
+            byte[] payload = new byte[length - 2];
+            input.readFully(payload);
+
+            if (isMetadata(marker)) {
+                if (marker == MARKER_APP1) {
+                    Orientation found = Orientation.fromExifSegment(payload);
+                    if (found != null) {
+                        orientation = found;
+                    }
+                }
+                removed += length + 2;
+                continue;
+            }
+
+            // El APP1 minimo va despues de APP0 para mantener el orden JFIF
+            if (marker != MARKER_APP0 && orientation != Orientation.NORMAL && !orientationWritten) {
+                writeOrientationSegment(target, orientation);
+                orientationWritten = true;
+            }
+            target.write(0xFF);
+            target.write(marker);
+            target.write(length >> 8);
+            target.write(length);
+            target.write(payload);
+        }
+    }
+
+    private static boolean isMetadata(int marker) {
+        return (marker >= MARKER_APP1 && marker <= MARKER_APP15 && marker != MARKER_APP14)
+                || marker == MARKER_COM;
+    }
+
+    private static int nextMarker(DataInputStream input) throws IOException {
+        int b = input.readUnsignedByte();
+        if (b != 0xFF) {
+            throw new IOException("Segmento JPEG mal formado");
+        }
+        while (b == 0xFF) {
+            b = input.readUnsignedByte();
+        }
+        return b;
+    }
+
+    // APP1 "Exif" big-endian con un solo IFD de una entrada (orientacion)
+    private static void writeOrientationSegment(OutputStream target, Orientation orientation) throws IOException {
+        int value = orientation.getExifValue();
+        byte[] segment = {
+                (byte) 0xFF, (byte) MARKER_APP1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) value, 0, 0,
+                0, 0, 0, 0
+        };
+        target.write(segment);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.ImageHub.utils.codec;
+
+import javax.imageio.stream.ImageInputStream;
+import java.awt.geom.AffineTransform;
+import java.io.EOFException;
+import java.io.IOException;
+
+/*
+ * Orientacion EXIF (etiqueta 0x0112) de una fotografia.
+ *
+ * Las camaras y telefonos guardan el sensor sin rotar y solo marcan como debe
+ * mostrarse. Cada valor corresponde a una transposicion exacta del raster
+ * (giros de 90 grados y espejos), que el planificador fusiona con el resto de
+ * la geometria en lugar de aplicarla como una rotacion aparte.
+ */
+public enum Orientation {
+
+    NORMAL(1),
+    FLIP_HORIZONTAL(2),
+    ROTATE_180(3),
+    FLIP_VERTICAL(4),
+    TRANSPOSE(5),
+    ROTATE_90(6),
+    TRANSVERSE(7),
+    ROTATE_270(8);
+
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+
+    private final int exifValue;
+
+    Orientation(int exifValue) {
+        this.exifValue = exifValue;
+    }
+
+    public int getExifValue() {
+        return exifValue;
+    }
+
+    public static Orientation fromExif(int value) {
+        for (Orientation orientation : values()) {
+            if (orientation.exifValue == value) {
+                return orientation;
+            }
+        }
+        return NORMAL;
+    }
+
+    // Los valores 5 a 8 intercambian ancho y alto
+    public boolean swapsAxes() {
+        return exifValue >= 5;
+    }
+
+    // Transformacion de coordenadas de la imagen almacenada a la imagen orientada
+    public AffineTransform toTransform(int width, int height) {
+        return switch (this) {
+            case NORMAL -> new AffineTransform();
+            case FLIP_HORIZONTAL -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case ROTATE_180 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case FLIP_VERTICAL -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case TRANSPOSE -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case ROTATE_90 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case TRANSVERSE -> new AffineTransform(0, -1, -1, 0, height, width);
+            case ROTATE_270 -> new AffineTransform(0, -1, 1, 0, 0, width);
+        };
+    }
+
+    /*
+     * Busca la orientacion en los segmentos APP1 de un JPEG sin decodificarlo.
+     * La posicion del stream se restaura al terminar. Cualquier otro formato,
+     * o un JPEG sin EXIF, se considera NORMAL.
+     */
+    public static Orientation read(ImageInputStream input) throws IOException {
+        input.mark();
+        try {
+            if (input.read() != 0xFF || input.read() != 0xD8) {
+                return NORMAL;
+            }
+            while (true) {
+                int marker = nextMarker(input);
+                if (marker < 0 || marker == MARKER_SOS || marker == MARKER_EOI) {
+                    return NORMAL;
+                }
+                if (isStandalone(marker)) {
+                    continue;
+                }
+                int length = input.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == MARKER_APP1) {
+                    byte[] segment = new byte[length];
+                    input.readFully(segment);
+                    Orientation orientation = fromExifSegment(segment);
+                    if (orientation != null) {
+                        return orientation;
+                    }
+                } else {
+                    input.skipBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        } finally {
+            input.reset();
+        }
+    }
+
+    // Devuelve null si el segmento APP1 no es EXIF (por ejemplo XMP)
+    static Orientation fromExifSegment(byte[] segment) {
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i'
+                || segment[3] != 'f' || segment[4] != 0 || segment[5] != 0) {
+            return null;
+        }
+
+        int tiff = 6;
+        boolean littleEndian;
+        if (segment[tiff] == 'I' && segment[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (segment[tiff] == 'M' && segment[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return NORMAL;
+        }
+
+        long ifd = tiff + readInt(segment, tiff + 4, littleEndian);
+        if (ifd < tiff || ifd + 2 > segment.length) {
+            return NORMAL;
+        }
+        int entries = readShort(segment, (int) ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > segment.length) {
+                break;
+            }
+            if (readShort(segment, entry, littleEndian) == TAG_ORIENTATION) {
+                return fromExif(readShort(segment, entry + 8, littleEndian));
+            }
+        }
+        return NORMAL;
+    }
+
+    private static int nextMarker(ImageInputStream input) throws IOException {
+        int b = input.read();
+        if (b != 0xFF) {
+            return -1;
+        }
+        // Los bytes 0xFF adicionales son relleno
+        while (b == 0xFF) {
+            b = input.read();
+        }
+        return b;
+    }
+
+    static boolean isStandalone(int marker) {
+        return marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7);
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static long readInt(byte[] data, int offset, boolean littleEndian) {
+        long hi = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+        long lo = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+        return (hi << 16) | lo;
+    }
+}
@@ -0,0 +1,461 @@
+package com.example.ImageHub.utils.codec;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/*
+ * Codificador PNG que elige la representacion mas pequena del raster final.
+ *
+ * El escritor PNG de ImageIO guarda siempre el tipo de color del BufferedImage
+ * (RGB o RGBA de 8 bits) con su propio filtrado. Aqui se analiza el contenido:
+ * - uso real del canal alfa (se descarta si todos los pixeles son opacos),
+ * - imagenes en escala de grises,
+ * - numero de colores distintos (paleta de 1, 2, 4 u 8 bits si hay 256 o menos).
+ * Para el tipo elegido se prueban varias estrategias de filtrado por fila y se
+ * conserva la salida mas pequena. La codificacion RGB/RGBA sin reducir se incluye
+ * como candidata, por lo que el resultado nunca es mayor y sirve de referencia
+ * para medir el ahorro.
+ *
+ * Los pixeles totalmente transparentes se normalizan a 0x00000000: su color no
+ * es visible y unificarlo reduce la paleta y mejora la compresion.
+ */
+public final class PngOptimizer {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int MAX_PALETTE = 256;
+    private static final int IDAT_CHUNK_SIZE = 1 << 20;
+
+    public enum ColorType {
+        GRAY(0, 1),
+        RGB(2, 3),
+        PALETTE(3, 1),
+        GRAY_ALPHA(4, 2),
+        RGBA(6, 4);
+
+        private final int code;
+        private final int channels;
+
+        ColorType(int code, int channels) {
+            this.code = code;
+            this.channels = channels;
+        }
+    }
+
+    // Estrategias de filtrado por fila; ADAPTIVE elige por fila la de menor suma de diferencias
+    enum FilterStrategy {
+        NONE, PAETH, ADAPTIVE
+    }
+
+    private PngOptimizer() {
+    }
+
+    public static final class Result {
+        private final byte[] data;
+        private final ColorType colorType;
+        private final int bitDepth;
+        private final long baselineBytes;
+
+        private Result(byte[] data, ColorType colorType, int bitDepth, long baselineBytes) {
+            this.data = data;
+            this.colorType = colorType;
+            this.bitDepth = bitDepth;
+            this.baselineBytes = baselineBytes;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public ColorType getColorType() {
+            return colorType;
+        }
+
+        public int getBitDepth() {
+            return bitDepth;
+        }
+
+        // Tamano de la codificacion RGB/RGBA sin reducir
+        public long getBaselineBytes() {
+            return baselineBytes;
+        }
+
+        public long getSavedBytes() {
+            return baselineBytes - data.length;
+        }
+    }
+
+    public static Result optimize(BufferedImage image, int compressionLevel) throws IOException {
+        Analysis analysis = analyze(image);
+
+        ColorType baselineType = analysis.alpha ? ColorType.RGBA : ColorType.RGB;
+        byte[] baseline = encode(image, analysis, baselineType, 8, FilterStrategy.ADAPTIVE, compressionLevel);
+        byte[] best = baseline;
+        ColorType bestType = baselineType;
+        int bestDepth = 8;
+
+        ColorType reduced = analysis.reducedType();
+        int depth = reduced == ColorType.PALETTE ? analysis.paletteBitDepth() : 8;
+        if (reduced != baselineType) {
+            // Con paleta o profundidad baja las diferencias entre indices no tienen
+            // significado numerico y el filtro NONE suele comprimir mejor
+            List<FilterStrategy> strategies = reduced == ColorType.PALETTE
+                    ? List.of(FilterStrategy.NONE, FilterStrategy.ADAPTIVE)
+                    : List.of(FilterStrategy.ADAPTIVE, FilterStrategy.PAETH);
+            for (FilterStrategy strategy : strategies) {
+                byte[] candidate = encode(image, analysis, reduced, depth, strategy, compressionLevel);
+                if (candidate.length < best.length) {
+                    best = candidate;
+                    bestType = reduced;
+                    bestDepth = depth;
+                }
+            }
+        } else {
+            byte[] candidate = encode(image, analysis, baselineType, 8, FilterStrategy.PAETH, compressionLevel);
+            if (candidate.length < best.length) {
+                best = candidate;
+            }
+        }
+
+        return new Result(best, bestType, bestDepth, baseline.length);
+    }
+
+    // Analisis de contenido
+
+    private static final class Analysis {
+        private boolean alpha;
+        private boolean gray = true;
+        private final IntColorTable palette = new IntColorTable();
+        private boolean paletteOverflow;
+
+        ColorType reducedType() {
+            if (!paletteOverflow) {
+                // Gris de 8 bits evita el PLTE y comprime igual que una paleta de 256 grises
+                if (gray && !alpha && palette.size() > 16) {
+                    return ColorType.GRAY;
+                }
+                return ColorType.PALETTE;
+            }
+            if (gray) {
+                return alpha ? ColorType.GRAY_ALPHA : ColorType.GRAY;
+            }
+            return alpha ? ColorType.RGBA : ColorType.RGB;
+        }
+
+        int paletteBitDepth() {
+            int size = palette.size();
+            if (size <= 2) {
+                return 1;
+            }
+            if (size <= 4) {
+                return 2;
+            }
+            return size <= 16 ? 4 : 8;
+        }
+    }
+
+    private static Analysis analyze(BufferedImage image) {
+        Analysis analysis = new Analysis();
+        int width = image.getWidth();
+        int[] row = new int[width];
+        boolean sourceAlpha = image.getColorModel().hasAlpha();
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int argb = normalize(row[x], sourceAlpha);
+                int a = argb >>> 24;
+                if (a != 0xFF) {
+                    analysis.alpha = true;
+                }
+                if (analysis.gray && a != 0) {
+                    int r = (argb >> 16) & 0xFF;
+                    int g = (argb >> 8) & 0xFF;
+                    int b = argb & 0xFF;
+                    analysis.gray = r == g && g == b;
+                }
+                if (!analysis.paletteOverflow) {
+                    analysis.palette.add(argb);
+                    analysis.paletteOverflow = analysis.palette.size() > MAX_PALETTE;
+                }
+            }
+        }
+
+        if (!analysis.paletteOverflow) {
+            analysis.palette.sortAlphaFirst();
+        }
+        return analysis;
+    }
+
+    private static int normalize(int argb, boolean sourceAlpha) {
+        if (!sourceAlpha) {
+            return argb | 0xFF000000;
+        }
+        return (argb >>> 24) == 0 ? 0 : argb;
+    }
+
+    // Escritura
+
+    private static byte[] encode(BufferedImage image, Analysis analysis, ColorType type, int bitDepth,
+                                 FilterStrategy strategy, int compressionLevel) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean sourceAlpha = image.getColorModel().hasAlpha();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        buffer.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream ihdr = new DataOutputStream(header);
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.writeByte(bitDepth);
+        ihdr.writeByte(type.code);
+        ihdr.writeByte(0);
+        ihdr.writeByte(0);
+        ihdr.writeByte(0);
+        writeChunk(buffer, "IHDR", header.toByteArray());
+
+        if (type == ColorType.PALETTE) {
+            writePalette(buffer, analysis.palette);
+        }
+
+        int rowBytes = (width * type.channels * bitDepth + 7) / 8;
+        int bpp = Math.max(1, type.channels * bitDepth / 8);
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        byte[][] filtered = new byte[5][rowBytes];
+        int[] row = new int[width];
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (DeflaterOutputStream idat = new DeflaterOutputStream(compressed, deflater, 64 * 1024)) {
+                for (int y = 0; y < height; y++) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    packRow(row, current, type, bitDepth, analysis.palette, sourceAlpha);
+
+                    int filter = switch (strategy) {
+                        case NONE -> 0;
+                        case PAETH -> 4;
+                        case ADAPTIVE -> chooseFilter(current, previous, bpp, filtered);
+                    };
+                    if (strategy != FilterStrategy.ADAPTIVE) {
+                        applyFilter(filter, current, previous, bpp, filtered[filter]);
+                    }
+                    idat.write(filter);
+                    idat.write(filtered[filter]);
+
+                    byte[] swap = previous;
+                    previous = current;
+                    current = swap;
+                }
+            }
+            byte[] data = compressed.toByteArray();
+            for (int offset = 0; offset < data.length || offset == 0; offset += IDAT_CHUNK_SIZE) {
+                int length = Math.min(IDAT_CHUNK_SIZE, data.length - offset);
+                writeChunk(buffer, "IDAT", data, offset, length);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeChunk(buffer, "IEND", new byte[0]);
+        return buffer.toByteArray();
+    }
+
+    private static void writePalette(ByteArrayOutputStream buffer, IntColorTable palette) throws IOException {
+        int size = palette.size();
+        byte[] plte = new byte[size * 3];
+        int transparent = 0;
+        for (int i = 0; i < size; i++) {
+            int argb = palette.get(i);
+            plte[i * 3] = (byte) (argb >> 16);
+            plte[i * 3 + 1] = (byte) (argb >> 8);
+            plte[i * 3 + 2] = (byte) argb;
+            if ((argb >>> 24) != 0xFF) {
+                transparent = i + 1;
+            }
+        }
+        writeChunk(buffer, "PLTE", plte);
+
+        // Los colores con alfa van primero: tRNS solo necesita cubrir ese prefijo
+        if (transparent > 0) {
+            byte[] trns = new byte[transparent];
+            for (int i = 0; i < transparent; i++) {
+                trns[i] = (byte) (palette.get(i) >>> 24);
+            }
+            writeChunk(buffer, "tRNS", trns);
+        }
+    }
+
+    private static void packRow(int[] row, byte[] target, ColorType type, int bitDepth,
+                                IntColorTable palette, boolean sourceAlpha) {
+        int p = 0;
+        switch (type) {
+            case PALETTE -> {
+                Arrays.fill(target, (byte) 0);
+                int perByte = 8 / bitDepth;
+                for (int x = 0; x < row.length; x++) {
+                    int index = palette.indexOf(normalize(row[x], sourceAlpha));
+                    int shift = 8 - bitDepth * (x % perByte + 1);
+                    target[x / perByte] |= (byte) (index << shift);
+                }
+            }
+            case GRAY -> {
+                for (int pixel : row) {
+                    target[p++] = (byte) normalize(pixel, sourceAlpha);
+                }
+            }
+            case GRAY_ALPHA -> {
+                for (int pixel : row) {
+                    int argb = normalize(pixel, sourceAlpha);
+                    target[p++] = (byte) argb;
+                    target[p++] = (byte) (argb >>> 24);
+                }
+            }
+            case RGB -> {
+                for (int pixel : row) {
+                    target[p++] = (byte) (pixel >> 16);
+                    target[p++] = (byte) (pixel >> 8);
+                    target[p++] = (byte) pixel;
+                }
+            }
+            case RGBA -> {
+                for (int pixel : row) {
+                    int argb = normalize(pixel, sourceAlpha);
+                    target[p++] = (byte) (argb >> 16);
+                    target[p++] = (byte) (argb >> 8);
+                    target[p++] = (byte) argb;
+                    target[p++] = (byte) (argb >>> 24);
+                }
+            }
+        }
+    }
+
+    // Heuristica de libpng: el filtro con menor suma de valores absolutos (con signo)
+    private static int chooseFilter(byte[] current, byte[] previous, int bpp, byte[][] filtered) {
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int filter = 0; filter < 5; filter++) {
+            applyFilter(filter, current, previous, bpp, filtered[filter]);
+            long sum = 0;
+            for (byte b : filtered[filter]) {
+                sum += Math.abs(b);
+                if (sum >= bestSum) {
+                    break;
+                }
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = filter;
+            }
+        }
+        return best;
+    }
+
+    private static void applyFilter(int filter, byte[] current, byte[] previous, int bpp, byte[] out) {
+        for (int i = 0; i < current.length; i++) {
+            int raw = current[i] & 0xFF;
+            int left = i >= bpp ? current[i - bpp] & 0xFF : 0;
+            int up = previous[i] & 0xFF;
+            int upLeft = i >= bpp ? previous[i - bpp] & 0xFF : 0;
+            int predicted = switch (filter) {
+                case 1 -> left;
+                case 2 -> up;
+                case 3 -> (left + up) >>> 1;
+                case 4 -> paeth(left, up, upLeft);
+                default -> 0;
+            };
+            out[i] = (byte) (raw - predicted);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data) throws IOException {
+        writeChunk(out, type, data, 0, data.length);
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        DataOutputStream chunk = new DataOutputStream(out);
+        chunk.writeInt(length);
+        chunk.write(typeBytes);
+        chunk.write(data, offset, length);
+        chunk.writeInt((int) crc.getValue());
+    }
+
+    /*
+     * Conjunto de colores ARGB con direccionamiento abierto; evita crear un
+     * Integer por pixel durante el analisis. Solo necesita hasta 257 entradas.
+     */
+    private static final class IntColorTable {
+        private static final int CAPACITY = 1024;
+        private final int[] keys = new int[CAPACITY];
+        private final short[] slots = new short[CAPACITY];
+        private final List<Integer> colors = new ArrayList<>();
+
+        void add(int argb) {
+            int slot = find(argb);
+            if (slots[slot] == 0) {
+                keys[slot] = argb;
+                colors.add(argb);
+                slots[slot] = (short) colors.size();
+            }
+        }
+
+        int indexOf(int argb) {
+            return slots[find(argb)] - 1;
+        }
+
+        int get(int index) {
+            return colors.get(index);
+        }
+
+        int size() {
+            return colors.size();
+        }
+
+        void sortAlphaFirst() {
+            colors.sort((a, b) -> Integer.compare(a >>> 24, b >>> 24));
+            Arrays.fill(slots, (short) 0);
+            for (int i = 0; i < colors.size(); i++) {
+                int slot = find(colors.get(i));
+                keys[slot] = colors.get(i);
+                slots[slot] = (short) (i + 1);
+            }
+        }
+
+        private int find(int argb) {
+            int slot = (argb * 0x9E3779B9) >>> 22;
+            while (slots[slot] != 0 && keys[slot] != argb) {
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            return slot;
+        }
+    }
+}
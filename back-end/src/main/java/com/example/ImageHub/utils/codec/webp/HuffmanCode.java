@@ -0,0 +1,229 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * Codigo prefijo canonico limitado en longitud, con su serializacion VP8L.
+ * Los codigos se guardan invertidos porque el flujo se escribe LSB-first.
+ */
+final class HuffmanCode {
+
+    // Orden en que se transmiten las longitudes del codigo de longitudes
+    private static final int[] CODE_LENGTH_ORDER = {17, 18, 0, 1, 2, 3, 4, 5, 16, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+    private static final int CODE_LENGTH_CODES = 19;
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int MAX_CODE_LENGTH_CODE_LENGTH = 7;
+
+    private final int[] lengths;
+    private final int[] codes;
+    private final int usedSymbols;
+
+    private HuffmanCode(int[] lengths) {
+        this.lengths = lengths;
+        this.codes = new int[lengths.length];
+        int count = 0;
+        for (int length : lengths) {
+            if (length > 0) {
+                count++;
+            }
+        }
+        this.usedSymbols = count;
+        assignCanonicalCodes();
+    }
+
+    static HuffmanCode build(int[] histogram) {
+        return build(histogram, MAX_CODE_LENGTH);
+    }
+
+    static HuffmanCode build(int[] histogram, int maxLength) {
+        int[] lengths = new int[histogram.length];
+        List<Integer> symbols = new ArrayList<>();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                symbols.add(i);
+            }
+        }
+        if (symbols.size() == 1) {
+            lengths[symbols.get(0)] = 1;
+        } else if (symbols.size() > 1) {
+            long[] weights = new long[histogram.length];
+            for (int symbol : symbols) {
+                weights[symbol] = histogram[symbol];
+            }
+            // Si el arbol excede la longitud maxima se aplanan los pesos y se reintenta
+            while (!computeLengths(weights, symbols, lengths, maxLength)) {
+                for (int symbol : symbols) {
+                    weights[symbol] = Math.max(1, weights[symbol] / 2);
+                }
+            }
+        }
+        return new HuffmanCode(lengths);
+    }
+
+    private static boolean computeLengths(long[] weights, List<Integer> symbols, int[] lengths, int maxLength) {
+        int leaves = symbols.size();
+        long[] nodeWeight = new long[leaves * 2];
+        int[] parent = new int[leaves * 2];
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> {
+            int byWeight = Long.compare(nodeWeight[a], nodeWeight[b]);
+            return byWeight != 0 ? byWeight : Integer.compare(a, b);
+        });
+
+        for (int i = 0; i < leaves; i++) {
+            nodeWeight[i] = weights[symbols.get(i)];
+            queue.add(i);
+        }
+        int next = leaves;
+        while (queue.size() > 1) {
+            int a = queue.poll();
+            int b = queue.poll();
+            nodeWeight[next] = nodeWeight[a] + nodeWeight[b];
+            parent[a] = next;
+            parent[b] = next;
+            queue.add(next++);
+        }
+
+        int root = next - 1;
+        for (int i = 0; i < leaves; i++) {
+            int depth = 0;
+            for (int node = i; node != root; node = parent[node]) {
+                depth++;
+            }
+            if (depth > maxLength) {
+                return false;
+            }
+            lengths[symbols.get(i)] = depth;
+        }
+        return true;
+    }
+
+    private void assignCanonicalCodes() {
+        int[] lengthCount = new int[MAX_CODE_LENGTH + 1];
+        for (int length : lengths) {
+            if (length > 0) {
+                lengthCount[length]++;
+            }
+        }
+        int[] nextCode = new int[MAX_CODE_LENGTH + 1];
+        int code = 0;
+        for (int bits = 1; bits <= MAX_CODE_LENGTH; bits++) {
+            code = (code + lengthCount[bits - 1]) << 1;
+            nextCode[bits] = code;
+        }
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = Integer.reverse(nextCode[length]++) >>> (32 - length);
+            }
+        }
+    }
+
+    // Un codigo con un solo simbolo no consume bits en el flujo
+    void writeSymbol(VP8LBitWriter writer, int symbol) {
+        if (usedSymbols > 1) {
+            writer.writeBits(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    void writeTo(VP8LBitWriter writer) {
+        if (usedSymbols <= 2 && fitsSimpleCode()) {
+            writeSimple(writer);
+        } else {
+            writeNormal(writer);
+        }
+    }
+
+    private boolean fitsSimpleCode() {
+        for (int symbol = 256; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Codigo simple: uno o dos simbolos menores que 256 escritos literalmente
+    private void writeSimple(VP8LBitWriter writer) {
+        List<Integer> symbols = new ArrayList<>();
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                symbols.add(symbol);
+            }
+        }
+        if (symbols.isEmpty()) {
+            symbols.add(0);
+        }
+
+        writer.writeBits(1, 1);
+        writer.writeBits(symbols.size() - 1, 1);
+        int first = symbols.get(0);
+        if (first < 2) {
+            writer.writeBits(0, 1);
+            writer.writeBits(first, 1);
+        } else {
+            writer.writeBits(1, 1);
+            writer.writeBits(first, 8);
+        }
+        if (symbols.size() == 2) {
+            writer.writeBits(symbols.get(1), 8);
+        }
+    }
+
+    // Codigo normal: longitudes comprimidas con un segundo codigo prefijo
+    private void writeNormal(VP8LBitWriter writer) {
+        int[] tokens = new int[lengths.length];
+        int[] extras = new int[lengths.length];
+        int count = 0;
+        for (int i = 0; i < lengths.length; ) {
+            int length = lengths[i];
+            int run = 1;
+            while (i + run < lengths.length && lengths[i + run] == length) {
+                run++;
+            }
+            if (length == 0 && run >= 3) {
+                int chunk = Math.min(run, 138);
+                if (chunk >= 11) {
+                    tokens[count] = 18;
+                    extras[count++] = chunk - 11;
+                } else {
+                    tokens[count] = 17;
+                    extras[count++] = chunk - 3;
+                }
+                i += chunk;
+            } else {
+                tokens[count++] = length;
+                i++;
+            }
+        }
+
+        int[] histogram = new int[CODE_LENGTH_CODES];
+        for (int t = 0; t < count; t++) {
+            histogram[tokens[t]]++;
+        }
+        HuffmanCode lengthCode = build(histogram, MAX_CODE_LENGTH_CODE_LENGTH);
+
+        int codeLengthCount = CODE_LENGTH_CODES;
+        while (codeLengthCount > 4 && lengthCode.lengths[CODE_LENGTH_ORDER[codeLengthCount - 1]] == 0) {
+            codeLengthCount--;
+        }
+
+        writer.writeBits(0, 1);
+        writer.writeBits(codeLengthCount - 4, 4);
+        for (int i = 0; i < codeLengthCount; i++) {
+            writer.writeBits(lengthCode.lengths[CODE_LENGTH_ORDER[i]], 3);
+        }
+        // Se transmiten todas las longitudes del alfabeto
+        writer.writeBits(0, 1);
+
+        for (int t = 0; t < count; t++) {
+            lengthCode.writeSymbol(writer, tokens[t]);
+            if (tokens[t] == 17) {
+                writer.writeBits(extras[t], 3);
+            } else if (tokens[t] == 18) {
+                writer.writeBits(extras[t], 7);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import java.util.Arrays;
+
+// Escritor de bits LSB-first tal como lo exige el formato VP8L
+final class VP8LBitWriter {
+
+    private byte[] buffer;
+    private int position;
+    private long accumulator;
+    private int used;
+
+    VP8LBitWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(64, initialCapacity)];
+    }
+
+    void writeBits(int value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        accumulator |= ((long) value & ((1L << bits) - 1)) << used;
+        used += bits;
+        while (used >= 8) {
+            put((byte) accumulator);
+            accumulator >>>= 8;
+            used -= 8;
+        }
+    }
+
+    byte[] toByteArray() {
+        if (used > 0) {
+            put((byte) accumulator);
+            accumulator = 0;
+            used = 0;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void put(byte b) {
+        if (position == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[position++] = b;
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Codificador WebP sin perdida (VP8L) en Java puro.
+ *
+ * Transformaciones aplicadas antes de la codificacion entropica:
+ * - resta del verde: rojo y azul se guardan como diferencia con el verde,
+ * - prediccion espacial: por bloques de 16x16 se elige el predictor con menor
+ *   residuo entre un subconjunto de los 14 modos del formato.
+ * Los residuos se comprimen con LZ77 (cadenas hash), una cache de colores
+ * recientes y cinco codigos prefijo (verde/longitud/cache, rojo, azul, alfa y
+ * distancia). No se usan codigos prefijo por regiones.
+ *
+ * El esfuerzo (0-9) controla la profundidad de busqueda de LZ77; con 0 solo se
+ * usan literales.
+ */
+public final class VP8LEncoder {
+
+    public static final int MAX_DIMENSION = 1 << 14;
+
+    private static final int SIGNATURE = 0x2F;
+    private static final int TRANSFORM_PREDICTOR = 0;
+    private static final int TRANSFORM_SUBTRACT_GREEN = 2;
+    private static final int PREDICTOR_BITS = 4;
+
+    // Predictores evaluados: L, T, TL, Average2(L, T), Select, ClampAddSubtractFull, ClampAddSubtractHalf
+    private static final int[] PREDICTOR_MODES = {1, 2, 4, 7, 11, 12, 13};
+
+    private static final int NUM_LITERAL_CODES = 256;
+    private static final int NUM_LENGTH_CODES = 24;
+    private static final int NUM_DISTANCE_CODES = 40;
+    private static final int MIN_MATCH = 3;
+    private static final int MAX_MATCH = 4096;
+    // Las distancias 1..120 del formato son codigos 2D; una distancia lineal d se escribe como d + 120
+    private static final int PLANE_CODES = 120;
+    private static final int MAX_DISTANCE = (1 << 20) - PLANE_CODES;
+    private static final int HASH_BITS = 16;
+    private static final int COLOR_CACHE_BITS = 10;
+    // Marca de token: literal sustituido por un indice de la cache de colores
+    private static final int CACHE_HIT = -1;
+
+    private VP8LEncoder() {
+    }
+
+    // Devuelve el archivo WebP completo (contenedor RIFF con un chunk VP8L)
+    public static byte[] encode(BufferedImage image, int effort) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width > MAX_DIMENSION || height > MAX_DIMENSION) {
+            throw new IOException("WebP admite como maximo " + MAX_DIMENSION + " pixeles por lado");
+        }
+
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        boolean alpha = false;
+        for (int pixel : argb) {
+            if ((pixel >>> 24) != 0xFF) {
+                alpha = true;
+                break;
+            }
+        }
+
+        VP8LBitWriter writer = new VP8LBitWriter(width * height);
+        writer.writeBits(SIGNATURE, 8);
+        writer.writeBits(width - 1, 14);
+        writer.writeBits(height - 1, 14);
+        writer.writeBits(alpha ? 1 : 0, 1);
+        writer.writeBits(0, 3);
+
+        subtractGreen(argb);
+        writer.writeBits(1, 1);
+        writer.writeBits(TRANSFORM_SUBTRACT_GREEN, 2);
+
+        int tilesX = subSampleSize(width, PREDICTOR_BITS);
+        int tilesY = subSampleSize(height, PREDICTOR_BITS);
+        int[] modes = new int[tilesX * tilesY];
+        int[] residuals = predict(argb, width, height, modes, tilesX);
+        writer.writeBits(1, 1);
+        writer.writeBits(TRANSFORM_PREDICTOR, 2);
+        writer.writeBits(PREDICTOR_BITS - 2, 3);
+        int[] modeImage = new int[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            modeImage[i] = 0xFF000000 | (modes[i] << 8);
+        }
+        writeEntropyImage(writer, modeImage, effort, false);
+
+        writer.writeBits(0, 1);
+        writeEntropyImage(writer, residuals, effort, true);
+
+        return wrapRiff(writer.toByteArray());
+    }
+
+    private static int subSampleSize(int size, int bits) {
+        return (size + (1 << bits) - 1) >> bits;
+    }
+
+    private static void subtractGreen(int[] argb) {
+        for (int i = 0; i < argb.length; i++) {
+            int pixel = argb[i];
+            int green = (pixel >> 8) & 0xFF;
+            int red = (((pixel >> 16) & 0xFF) - green) & 0xFF;
+            int blue = ((pixel & 0xFF) - green) & 0xFF;
+            argb[i] = (pixel & 0xFF00FF00) | (red << 16) | blue;
+        }
+    }
+
+    // Prediccion espacial
+
+    private static int[] predict(int[] argb, int width, int height, int[] modes, int tilesX) {
+        int[] residuals = new int[argb.length];
+        int tileSize = 1 << PREDICTOR_BITS;
+
+        for (int tileY = 0; tileY * tileSize < height; tileY++) {
+            for (int tileX = 0; tileX < tilesX; tileX++) {
+                int x0 = tileX * tileSize;
+                int y0 = tileY * tileSize;
+                int x1 = Math.min(width, x0 + tileSize);
+                int y1 = Math.min(height, y0 + tileSize);
+
+                int bestMode = PREDICTOR_MODES[0];
+                long bestCost = Long.MAX_VALUE;
+                for (int mode : PREDICTOR_MODES) {
+                    long cost = 0;
+                    for (int y = y0; y < y1 && cost < bestCost; y++) {
+                        for (int x = x0; x < x1; x++) {
+                            cost += residualCost(argb[y * width + x], predictPixel(argb, width, x, y, mode));
+                        }
+                    }
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestMode = mode;
+                    }
+                }
+                modes[tileY * tilesX + tileX] = bestMode;
+
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        int index = y * width + x;
+                        residuals[index] = subtractPixels(argb[index], predictPixel(argb, width, x, y, bestMode));
+                    }
+                }
+            }
+        }
+        return residuals;
+    }
+
+    // La primera fila usa L, la primera columna usa T y el primer pixel predice negro opaco
+    private static int predictPixel(int[] argb, int width, int x, int y, int mode) {
+        int index = y * width + x;
+        if (y == 0) {
+            return x == 0 ? 0xFF000000 : argb[index - 1];
+        }
+        if (x == 0) {
+            return argb[index - width];
+        }
+
+        int left = argb[index - 1];
+        int top = argb[index - width];
+        int topLeft = argb[index - width - 1];
+        return switch (mode) {
+            case 1 -> left;
+            case 2 -> top;
+            case 4 -> topLeft;
+            case 7 -> average2(left, top);
+            case 11 -> select(left, top, topLeft);
+            case 12 -> clampAddSubtractFull(left, top, topLeft);
+            case 13 -> clampAddSubtractHalf(average2(left, top), topLeft);
+            default -> throw new IllegalArgumentException("Predictor no soportado: " + mode);
+        };
+    }
+
+    private static int average2(int a, int b) {
+        return (((a ^ b) & 0xFEFEFEFE) >>> 1) + (a & b);
+    }
+
+    private static int select(int left, int top, int topLeft) {
+        int predictLeft = 0;
+        int predictTop = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int l = (left >>> shift) & 0xFF;
+            int t = (top >>> shift) & 0xFF;
+            int tl = (topLeft >>> shift) & 0xFF;
+            predictLeft += Math.abs(t - tl);
+            predictTop += Math.abs(l - tl);
+        }
+        return predictLeft < predictTop ? left : top;
+    }
+
+    private static int clampAddSubtractFull(int a, int b, int c) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int value = ((a >>> shift) & 0xFF) + ((b >>> shift) & 0xFF) - ((c >>> shift) & 0xFF);
+            result |= clamp(value) << shift;
+        }
+        return result;
+    }
+
+    private static int clampAddSubtractHalf(int a, int b) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int ca = (a >>> shift) & 0xFF;
+            int cb = (b >>> shift) & 0xFF;
+            result |= clamp(ca + (ca - cb) / 2) << shift;
+        }
+        return result;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(255, value);
+    }
+
+    private static int subtractPixels(int a, int b) {
+        int alpha = (((a >>> 24) - (b >>> 24)) & 0xFF) << 24;
+        int red = ((((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) & 0xFF) << 16;
+        int green = ((((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) & 0xFF) << 8;
+        int blue = ((a & 0xFF) - (b & 0xFF)) & 0xFF;
+        return alpha | red | green | blue;
+    }
+
+    // Coste aproximado del residuo: magnitud con signo de cada canal
+    private static int residualCost(int actual, int predicted) {
+        int residual = subtractPixels(actual, predicted);
+        int cost = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            cost += Math.abs((byte) (residual >>> shift));
+        }
+        return cost;
+    }
+
+    // Codificacion entropica
+
+    private static void writeEntropyImage(VP8LBitWriter writer, int[] pixels, int effort, boolean mainImage) {
+        int[] copyLengths = new int[pixels.length];
+        int[] values = new int[pixels.length];
+        int tokens = backwardReferences(pixels, effort, copyLengths, values);
+        int cacheBits = effort > 0 ? COLOR_CACHE_BITS : 0;
+        if (cacheBits > 0) {
+            applyColorCache(pixels, cacheBits, tokens, copyLengths, values);
+        }
+
+        int[] green = new int[NUM_LITERAL_CODES + NUM_LENGTH_CODES + (cacheBits > 0 ? 1 << cacheBits : 0)];
+        int[] red = new int[NUM_LITERAL_CODES];
+        int[] blue = new int[NUM_LITERAL_CODES];
+        int[] alpha = new int[NUM_LITERAL_CODES];
+        int[] distance = new int[NUM_DISTANCE_CODES];
+        for (int t = 0; t < tokens; t++) {
+            if (copyLengths[t] == CACHE_HIT) {
+                green[NUM_LITERAL_CODES + NUM_LENGTH_CODES + values[t]]++;
+            } else if (copyLengths[t] == 0) {
+                int pixel = values[t];
+                green[(pixel >> 8) & 0xFF]++;
+                red[(pixel >> 16) & 0xFF]++;
+                blue[pixel & 0xFF]++;
+                alpha[pixel >>> 24]++;
+            } else {
+                green[NUM_LITERAL_CODES + prefixCode(copyLengths[t])]++;
+                distance[prefixCode(values[t] + PLANE_CODES)]++;
+            }
+        }
+
+        HuffmanCode greenCode = HuffmanCode.build(green);
+        HuffmanCode redCode = HuffmanCode.build(red);
+        HuffmanCode blueCode = HuffmanCode.build(blue);
+        HuffmanCode alphaCode = HuffmanCode.build(alpha);
+        HuffmanCode distanceCode = HuffmanCode.build(distance);
+
+        if (cacheBits > 0) {
+            writer.writeBits(1, 1);
+            writer.writeBits(cacheBits, 4);
+        } else {
+            writer.writeBits(0, 1);
+        }
+        // La imagen principal no usa codigos prefijo por regiones
+        if (mainImage) {
+            writer.writeBits(0, 1);
+        }
+        greenCode.writeTo(writer);
+        redCode.writeTo(writer);
+        blueCode.writeTo(writer);
+        alphaCode.writeTo(writer);
+        distanceCode.writeTo(writer);
+
+        for (int t = 0; t < tokens; t++) {
+            if (copyLengths[t] == CACHE_HIT) {
+                greenCode.writeSymbol(writer, NUM_LITERAL_CODES + NUM_LENGTH_CODES + values[t]);
+            } else if (copyLengths[t] == 0) {
+                int pixel = values[t];
+                greenCode.writeSymbol(writer, (pixel >> 8) & 0xFF);
+                redCode.writeSymbol(writer, (pixel >> 16) & 0xFF);
+                blueCode.writeSymbol(writer, pixel & 0xFF);
+                alphaCode.writeSymbol(writer, pixel >>> 24);
+            } else {
+                int length = copyLengths[t];
+                greenCode.writeSymbol(writer, NUM_LITERAL_CODES + prefixCode(length));
+                writer.writeBits(prefixExtra(length), prefixExtraBits(length));
+                int code = values[t] + PLANE_CODES;
+                distanceCode.writeSymbol(writer, prefixCode(code));
+                writer.writeBits(prefixExtra(code), prefixExtraBits(code));
+            }
+        }
+    }
+
+    /*
+     * Sustituye los literales presentes en la cache por su indice. La cache
+     * replica la del decodificador: cada pixel emitido, literal o copiado, se
+     * inserta en la posicion de su hash.
+     */
+    private static void applyColorCache(int[] pixels, int cacheBits, int tokens, int[] copyLengths, int[] values) {
+        // El decodificador empieza con la cache a cero, asi que un cero inicial tambien acierta
+        int[] cache = new int[1 << cacheBits];
+        int position = 0;
+        for (int t = 0; t < tokens; t++) {
+            if (copyLengths[t] == 0) {
+                int pixel = values[t];
+                int key = cacheKey(pixel, cacheBits);
+                if (cache[key] == pixel) {
+                    copyLengths[t] = CACHE_HIT;
+                    values[t] = key;
+                }
+                cache[key] = pixel;
+                position++;
+            } else {
+                for (int end = position + copyLengths[t]; position < end; position++) {
+                    int key = cacheKey(pixels[position], cacheBits);
+                    cache[key] = pixels[position];
+                }
+            }
+        }
+    }
+
+    private static int cacheKey(int argb, int cacheBits) {
+        return (0x1E35A7BD * argb) >>> (32 - cacheBits);
+    }
+
+    /*
+     * LZ77 con cadenas hash sobre pares de pixeles. Rellena los tokens: longitud 0
+     * indica un literal (values = pixel), en otro caso una copia (values = distancia).
+     */
+    private static int backwardReferences(int[] pixels, int effort, int[] copyLengths, int[] values) {
+        int chainDepth = effort <= 0 ? 0 : 1 + effort * 8;
+        int[] head = new int[1 << HASH_BITS];
+        int[] previous = chainDepth == 0 ? null : new int[pixels.length];
+        Arrays.fill(head, -1);
+
+        int tokens = 0;
+        int i = 0;
+        while (i < pixels.length) {
+            int bestLength = 0;
+            int bestDistance = 0;
+
+            if (chainDepth > 0 && i + MIN_MATCH <= pixels.length) {
+                int maxLength = Math.min(MAX_MATCH, pixels.length - i);
+                int candidate = head[hash(pixels, i)];
+                for (int depth = 0; candidate >= 0 && depth < chainDepth && i - candidate <= MAX_DISTANCE; depth++) {
+                    int length = 0;
+                    while (length < maxLength && pixels[candidate + length] == pixels[i + length]) {
+                        length++;
+                    }
+                    if (length > bestLength) {
+                        bestLength = length;
+                        bestDistance = i - candidate;
+                        if (length == maxLength) {
+                            break;
+                        }
+                    }
+                    candidate = previous[candidate];
+                }
+            }
+
+            if (bestLength >= MIN_MATCH) {
+                copyLengths[tokens] = bestLength;
+                values[tokens++] = bestDistance;
+                for (int end = i + bestLength; i < end; i++) {
+                    insert(pixels, i, head, previous);
+                }
+            } else {
+                copyLengths[tokens] = 0;
+                values[tokens++] = pixels[i];
+                if (chainDepth > 0) {
+                    insert(pixels, i, head, previous);
+                }
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void insert(int[] pixels, int position, int[] head, int[] previous) {
+        if (position + 1 < pixels.length) {
+            int h = hash(pixels, position);
+            previous[position] = head[h];
+            head[h] = position;
+        }
+    }
+
+    private static int hash(int[] pixels, int position) {
+        long key = ((long) pixels[position] << 32) ^ (pixels[position + 1] & 0xFFFFFFFFL);
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - HASH_BITS));
+    }
+
+    // Codificacion prefijo + bits extra de longitudes y distancias (valor >= 1)
+
+    static int prefixCode(int value) {
+        int d = value - 1;
+        if (d < 4) {
+            return d;
+        }
+        int highBit = 31 - Integer.numberOfLeadingZeros(d);
+        int second = (d >> (highBit - 1)) & 1;
+        return 2 * highBit + second;
+    }
+
+    static int prefixExtraBits(int value) {
+        int d = value - 1;
+        return d < 4 ? 0 : 31 - Integer.numberOfLeadingZeros(d) - 1;
+    }
+
+    static int prefixExtra(int value) {
+        int d = value - 1;
+        return d < 4 ? 0 : d & ((1 << prefixExtraBits(value)) - 1);
+    }
+
+    private static byte[] wrapRiff(byte[] vp8l) {
+        int padding = vp8l.length & 1;
+        int riffSize = 4 + 8 + vp8l.length + padding;
+        byte[] file = new byte[8 + riffSize];
+        put(file, 0, "RIFF");
+        putInt(file, 4, riffSize);
+        put(file, 8, "WEBP");
+        put(file, 12, "VP8L");
+        putInt(file, 16, vp8l.length);
+        System.arraycopy(vp8l, 0, file, 20, vp8l.length);
+        return file;
+    }
+
+    private static void put(byte[] target, int offset, String fourCc) {
+        System.arraycopy(fourCc.getBytes(StandardCharsets.US_ASCII), 0, target, offset, 4);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+        target[offset + 2] = (byte) (value >> 16);
+        target[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.util.Locale;
+
+/*
+ * ImageWriter de WebP sin perdida. Como en libwebp, en modo sin perdida la
+ * "calidad" de compresion indica el esfuerzo: 0 es lo mas rapido, 1 lo mas compacto.
+ * No se escriben metadatos.
+ */
+public class WebPImageWriter extends ImageWriter {
+
+    static final String LOSSLESS = "Lossless";
+    private static final int DEFAULT_EFFORT = 6;
+
+    public WebPImageWriter(ImageWriterSpi originatingProvider) {
+        super(originatingProvider);
+    }
+
+    @Override
+    public ImageWriteParam getDefaultWriteParam() {
+        return new WebPWriteParam(getLocale());
+    }
+
+    @Override
+    public void write(IIOMetadata streamMetadata, IIOImage image, ImageWriteParam param) throws IOException {
+        if (!(getOutput() instanceof ImageOutputStream output)) {
+            throw new IllegalStateException("No se ha establecido la salida del escritor WebP");
+        }
+        if (image.hasRaster()) {
+            throw new UnsupportedOperationException("El escritor WebP requiere una RenderedImage");
+        }
+
+        int effort = DEFAULT_EFFORT;
+        if (param != null && param.getCompressionMode() == ImageWriteParam.MODE_EXPLICIT) {
+            effort = Math.round(param.getCompressionQuality() * 9);
+        }
+
+        processImageStarted(0);
+        byte[] data = VP8LEncoder.encode(toBufferedImage(image.getRenderedImage()), effort);
+        output.write(data);
+        processImageComplete();
+    }
+
+    private static BufferedImage toBufferedImage(RenderedImage image) {
+        if (image instanceof BufferedImage buffered) {
+            return buffered;
+        }
+        BufferedImage copy = new BufferedImage(image.getColorModel(),
+                image.copyData(null), image.getColorModel().isAlphaPremultiplied(), null);
+        return copy;
+    }
+
+    @Override
+    public IIOMetadata getDefaultStreamMetadata(ImageWriteParam param) {
+        return null;
+    }
+
+    @Override
+    public IIOMetadata getDefaultImageMetadata(ImageTypeSpecifier imageType, ImageWriteParam param) {
+        return null;
+    }
+
+    @Override
+    public IIOMetadata convertStreamMetadata(IIOMetadata inData, ImageWriteParam param) {
+        return null;
+    }
+
+    @Override
+    public IIOMetadata convertImageMetadata(IIOMetadata inData, ImageTypeSpecifier imageType,
+                                           ImageWriteParam param) {
+        return null;
+    }
+
+    static final class WebPWriteParam extends ImageWriteParam {
+        WebPWriteParam(Locale locale) {
+            super(locale);
+            canWriteCompressed = true;
+            compressionTypes = new String[]{LOSSLESS};
+            compressionType = LOSSLESS;
+            compressionQuality = DEFAULT_EFFORT / 9f;
+        }
+
+        @Override
+        public boolean isCompressionLossless() {
+            return true;
+        }
+    }
+}
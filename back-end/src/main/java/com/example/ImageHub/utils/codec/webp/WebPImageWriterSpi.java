@@ -0,0 +1,39 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import java.util.Locale;
+
+// Proveedor SPI que registra el escritor WebP en ImageIO
+public class WebPImageWriterSpi extends ImageWriterSpi {
+
+    public WebPImageWriterSpi() {
+        super("ImageHub", "1.0",
+                new String[]{"webp", "WEBP"},
+                new String[]{"webp"},
+                new String[]{"image/webp"},
+                WebPImageWriter.class.getName(),
+                new Class<?>[]{ImageOutputStream.class},
+                null,
+                false, null, null, null, null,
+                false, null, null, null, null);
+    }
+
+    @Override
+    public boolean canEncodeImage(ImageTypeSpecifier type) {
+        int bands = type.getSampleModel().getNumBands();
+        return bands >= 1 && bands <= 4;
+    }
+
+    @Override
+    public ImageWriter createWriterInstance(Object extension) {
+        return new WebPImageWriter(this);
+    }
+
+    @Override
+    public String getDescription(Locale locale) {
+        return "Codificador WebP sin perdida (VP8L)";
+    }
+}
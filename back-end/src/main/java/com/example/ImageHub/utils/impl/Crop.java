@@ -2,10 +2,11 @@ package com.example.ImageHub.utils.impl;
 
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -14,6 +15,12 @@ import java.io.IOException;
 @Component
 public class Crop implements ImageTransform {
 
+    private final ImageCodec imageCodec;
+
+    public Crop(ImageCodec imageCodec) {
+        this.imageCodec = imageCodec;
+    }
+
     @Override
     public void transform(String imagePath, TransformRequestDto request) throws IOException {
         log.info("[CROP] Iniciando recorte de imagen: {}", imagePath);
@@ -41,7 +48,7 @@ public class Crop implements ImageTransform {
         }
 
         try {
-            BufferedImage originalImage = ImageIO.read(new File(imagePath));
+            BufferedImage originalImage = imageCodec.decode(new File(imagePath));
 
             if (originalImage == null) {
                 log.error("[CROP] No se pudo leer la imagen");
@@ -69,7 +76,7 @@ public class Crop implements ImageTransform {
             BufferedImage croppedImage = originalImage.getSubimage(x, y, width, height);
             String format = getImageFormat(imagePath);
 
-            ImageIO.write(croppedImage, format, new File(imagePath));
+            imageCodec.encode(croppedImage, format, EncodeOptions.DEFAULT, new File(imagePath));
             log.info("[CROP] Recorte completado. Nuevas dimensiones: {}x{}", width, height);
 
         } catch (IOException e) {
@@ -2,10 +2,13 @@ package com.example.ImageHub.utils.impl;
 
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -14,6 +17,14 @@ import java.io.IOException;
 @Component
 public class Filter implements ImageTransform {
 
+    private final ImageCodec imageCodec;
+    private final RasterBufferPool rasterBufferPool;
+
+    public Filter(ImageCodec imageCodec, RasterBufferPool rasterBufferPool) {
+        this.imageCodec = imageCodec;
+        this.rasterBufferPool = rasterBufferPool;
+    }
+
     @Override
     public void transform(String imagePath, TransformRequestDto request) throws IOException {
         log.info("[FILTER] Iniciando aplicacion de filtro a imagen: {}", imagePath);
@@ -32,18 +43,18 @@ public class Filter implements ImageTransform {
             throw new IllegalArgumentException("Debe habilitar al menos un filtro (grayscale o sepia)");
         }
 
-        try {
-            BufferedImage originalImage = ImageIO.read(new File(imagePath));
+        try (BufferScope scope = rasterBufferPool.openScope()) {
+            BufferedImage originalImage = imageCodec.decode(new File(imagePath));
 
             if (originalImage == null) {
                 log.error("[FILTER] No se pudo leer la imagen");
                 throw new IOException("No se pudo leer la imagen");
             }
 
-            BufferedImage filteredImage = new BufferedImage(
+            BufferedImage filteredImage = scope.allocate(
                     originalImage.getWidth(),
                     originalImage.getHeight(),
-                    BufferedImage.TYPE_INT_RGB
+                    false
             );
 
             // Aplicar el filtro seleccionado
@@ -56,7 +67,7 @@ public class Filter implements ImageTransform {
             }
 
             String format = getImageFormat(imagePath);
-            ImageIO.write(filteredImage, format, new File(imagePath));
+            imageCodec.encode(filteredImage, format, EncodeOptions.DEFAULT, new File(imagePath));
 
             log.info("[FILTER] Filtro aplicado exitosamente");
 
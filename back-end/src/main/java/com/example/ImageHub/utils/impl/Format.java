@@ -2,10 +2,11 @@ package com.example.ImageHub.utils.impl;
 
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -14,6 +15,12 @@ import java.io.IOException;
 @Component
 public class Format implements ImageTransform {
 
+    private final ImageCodec imageCodec;
+
+    public Format(ImageCodec imageCodec) {
+        this.imageCodec = imageCodec;
+    }
+
     private static final String[] SUPPORTED_FORMATS = {"jpg", "jpeg", "png", "gif", "bmp", "webp"};
 
     @Override
@@ -35,7 +42,7 @@ public class Format implements ImageTransform {
         }
 
         try {
-            BufferedImage originalImage = ImageIO.read(new File(imagePath));
+            BufferedImage originalImage = imageCodec.decode(new File(imagePath));
 
             if (originalImage == null) {
                 log.error("[FORMAT] No se pudo leer la imagen");
@@ -67,12 +74,7 @@ public class Format implements ImageTransform {
             log.info("[FORMAT] Nueva ruta: {}", newPath);
 
             // Guardar la imagen en el nuevo formato
-            boolean written = ImageIO.write(originalImage, newFormat, new File(newPath));
-
-            if (!written) {
-                log.error("[FORMAT] No se pudo escribir la imagen en formato {}", newFormat);
-                throw new IOException("No se pudo guardar la imagen en formato: " + newFormat);
-            }
+            imageCodec.encode(originalImage, newFormat, EncodeOptions.DEFAULT, new File(newPath));
 
             log.info("[FORMAT] Archivo nuevo creado correctamente");
 
@@ -106,7 +108,7 @@ public class Format implements ImageTransform {
     }
 
     // Validar que el formato sea soportado por la aplicacion
-    private boolean isSupportedFormat(String format) {
+    public static boolean isSupportedFormat(String format) {
         for (String supported : SUPPORTED_FORMATS) {
             if (supported.equals(format.toLowerCase())) {
                 return true;
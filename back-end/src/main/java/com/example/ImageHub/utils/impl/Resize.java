@@ -2,10 +2,13 @@ package com.example.ImageHub.utils.impl;
 
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -14,6 +17,14 @@ import java.io.IOException;
 @Component
 public class Resize implements ImageTransform {
 
+    private final ImageCodec imageCodec;
+    private final RasterBufferPool rasterBufferPool;
+
+    public Resize(ImageCodec imageCodec, RasterBufferPool rasterBufferPool) {
+        this.imageCodec = imageCodec;
+        this.rasterBufferPool = rasterBufferPool;
+    }
+
     @Override
     public void transform(String imagePath, TransformRequestDto request) throws IOException {
         log.info("[RESIZE] Iniciando redimensionamiento de imagen: {}", imagePath);
@@ -46,9 +57,9 @@ public class Resize implements ImageTransform {
             throw new IllegalArgumentException("Width y Height deben ser mayores a 0");
         }
 
-        try {
+        try (BufferScope scope = rasterBufferPool.openScope()) {
             // Leer imagen original
-            BufferedImage originalImage = ImageIO.read(imageFile);
+            BufferedImage originalImage = imageCodec.decode(imageFile);
 
             if (originalImage == null) {
                 log.error("[RESIZE] No se pudo leer la imagen. Archivo corrupto o formato no soportado");
@@ -62,10 +73,10 @@ public class Resize implements ImageTransform {
             log.info("[RESIZE] Nuevas dimensiones solicitadas: {}x{}", newWidth, newHeight);
 
             // Crear imagen redimensionada con las nuevas dimensiones
-            BufferedImage resizedImage = new BufferedImage(
+            BufferedImage resizedImage = scope.allocate(
                     newWidth,
                     newHeight,
-                    BufferedImage.TYPE_INT_RGB
+                    false
             );
 
             log.debug("[RESIZE] BufferedImage creado con dimensiones: {}x{}", newWidth, newHeight);
@@ -89,14 +100,8 @@ public class Resize implements ImageTransform {
             log.info("[RESIZE] Formato detectado: {}", format);
 
             // Guardar imagen redimensionada en el mismo archivo
-            boolean written = ImageIO.write(resizedImage, format, imageFile);
-
-            if (written) {
-                log.info("[RESIZE] Imagen redimensionada exitosamente. Nuevas dimensiones: {}x{}", newWidth, newHeight);
-            } else {
-                log.error("[RESIZE] ImageIO.write() retorno false. No se escribio el archivo");
-                throw new IOException("ImageIO no pudo escribir la imagen con formato: " + format);
-            }
+            imageCodec.encode(resizedImage, format, EncodeOptions.DEFAULT, imageFile);
+            log.info("[RESIZE] Imagen redimensionada exitosamente. Nuevas dimensiones: {}x{}", newWidth, newHeight);
 
         } catch (IOException e) {
             log.error("[RESIZE] Error IOException: {}", e.getMessage(), e);
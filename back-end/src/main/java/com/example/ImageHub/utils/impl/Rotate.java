@@ -2,10 +2,13 @@ package com.example.ImageHub.utils.impl;
 
 import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
 import com.example.ImageHub.utils.ImageTransform;
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.buffer.RasterBufferPool;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -15,6 +18,14 @@ import java.io.IOException;
 @Component
 public class Rotate implements ImageTransform {
 
+    private final ImageCodec imageCodec;
+    private final RasterBufferPool rasterBufferPool;
+
+    public Rotate(ImageCodec imageCodec, RasterBufferPool rasterBufferPool) {
+        this.imageCodec = imageCodec;
+        this.rasterBufferPool = rasterBufferPool;
+    }
+
     @Override
     public void transform(String imagePath, TransformRequestDto request) throws IOException {
         log.info("[ROTATE] Iniciando rotacion de imagen: {}", imagePath);
@@ -27,8 +38,8 @@ public class Rotate implements ImageTransform {
         double angle = request.getRotate();
         log.info("[ROTATE] Angulo de rotacion: {} grados", angle);
 
-        try {
-            BufferedImage originalImage = ImageIO.read(new File(imagePath));
+        try (BufferScope scope = rasterBufferPool.openScope()) {
+            BufferedImage originalImage = imageCodec.decode(new File(imagePath));
 
             if (originalImage == null) {
                 log.error("[ROTATE] No se pudo leer la imagen");
@@ -39,7 +50,7 @@ public class Rotate implements ImageTransform {
             int height = originalImage.getHeight();
             log.info("[ROTATE] Dimensiones originales: {}x{}", width, height);
 
-            BufferedImage rotatedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            BufferedImage rotatedImage = scope.allocate(width, height, false);
             Graphics2D g2d = rotatedImage.createGraphics();
 
             // Configurar opciones de calidad de renderizado
@@ -53,7 +64,7 @@ public class Rotate implements ImageTransform {
             g2d.dispose();
 
             String format = getImageFormat(imagePath);
-            ImageIO.write(rotatedImage, format, new File(imagePath));
+            imageCodec.encode(rotatedImage, format, EncodeOptions.DEFAULT, new File(imagePath));
 
             log.info("[ROTATE] Rotacion completada. Angulo: {} grados", angle);
 
@@ -0,0 +1,48 @@
+package com.example.ImageHub.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Llamada a ImageCodec: decodificacion (bytes leidos) o codificacion (bytes escritos)
+@Name("com.example.ImageHub.Codec")
+@Label("Codec")
+@Category({"ImageHub", "Codec"})
+@Description("Decodificacion o codificacion de una imagen con ImageIO")
+@StackTrace(false)
+public class CodecEvent extends Event {
+
+    @Label("Operation")
+    @Description("decode o encode")
+    String operation;
+
+    @Label("Format")
+    String format;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Bytes")
+    @Description("-1 si el flujo no tiene longitud conocida")
+    @DataAmount
+    long bytes;
+
+    public void complete(String operation, String format, int width, int height, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
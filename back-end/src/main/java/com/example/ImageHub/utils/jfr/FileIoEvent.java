@@ -0,0 +1,41 @@
+package com.example.ImageHub.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.file.Path;
+
+// Escritura de un archivo recibido; la duracion incluye la lectura del cuerpo de la peticion
+@Name("com.example.ImageHub.FileIo")
+@Label("File I/O")
+@Category({"ImageHub", "Storage"})
+@Description("Escritura en disco de una subida, importacion o bloque de subida reanudable")
+@StackTrace(false)
+public class FileIoEvent extends Event {
+
+    @Label("Source")
+    @Description("upload, import, resumable o append")
+    String source;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    public void complete(String source, Path path, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.path = path.toString();
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ImageHub.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Paso de un plan (ResampleStep, CropStep...) o estrategia clasica (Resize, Rotate...)
+@Name("com.example.ImageHub.PipelineStep")
+@Label("Pipeline Step")
+@Category({"ImageHub", "Pipeline"})
+@Description("Ejecucion de un paso del plan o de una estrategia ImageTransform")
+@StackTrace(false)
+public class PipelineStepEvent extends Event {
+
+    @Label("Kind")
+    @Description("plan o strategy")
+    String kind;
+
+    @Label("Step")
+    String step;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    public void complete(String kind, String step, int width, int height) {
+        end();
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.step = step;
+            this.width = width;
+            this.height = height;
+            commit();
+        }
+    }
+}
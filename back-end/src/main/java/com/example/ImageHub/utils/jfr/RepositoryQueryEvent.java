@@ -0,0 +1,48 @@
+package com.example.ImageHub.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+// Llamada a un repositorio de Spring Data (ver RepositoryQueryInterceptor)
+@Name("com.example.ImageHub.RepositoryQuery")
+@Label("Repository Query")
+@Category({"ImageHub", "Database"})
+@Description("Invocacion de un metodo de repositorio, incluida la espera de conexion")
+@StackTrace(false)
+public class RepositoryQueryEvent extends Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Image Id")
+    @Description("Primer argumento UUID de la llamada, si lo hay")
+    String imageId;
+
+    @Label("Failed")
+    boolean failed;
+
+    public void complete(String repository, String method, Object[] arguments, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.repository = repository;
+            this.method = method;
+            this.failed = failed;
+            for (Object argument : arguments) {
+                if (argument instanceof UUID id) {
+                    this.imageId = id.toString();
+                    break;
+                }
+            }
+            commit();
+        }
+    }
+}
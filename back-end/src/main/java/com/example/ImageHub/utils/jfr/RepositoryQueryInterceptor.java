@@ -0,0 +1,28 @@
+package com.example.ImageHub.utils.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+// Consejo anadido al proxy de cada repositorio: un RepositoryQueryEvent por llamada
+public class RepositoryQueryInterceptor implements MethodInterceptor {
+
+    private final String repository;
+
+    public RepositoryQueryInterceptor(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryQueryEvent event = new RepositoryQueryEvent();
+        event.begin();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.complete(repository, invocation.getMethod().getName(), invocation.getArguments(), failed);
+        }
+    }
+}
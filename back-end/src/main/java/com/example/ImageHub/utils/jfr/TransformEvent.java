@@ -0,0 +1,50 @@
+package com.example.ImageHub.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.File;
+
+// Peticion de transformacion completa: plan o estrategias, codificacion y escritura del resultado
+@Name("com.example.ImageHub.Transform")
+@Label("Transform Request")
+@Category({"ImageHub", "Pipeline"})
+@Description("Transformacion de una imagen, desde la lectura de la cabecera hasta el archivo final")
+@StackTrace(false)
+public class TransformEvent extends Event {
+
+    @Label("Image Id")
+    String imageId;
+
+    @Label("Mode")
+    @Description("planner, strategies o pipeline")
+    String mode;
+
+    @Label("Source Width")
+    int width;
+
+    @Label("Source Height")
+    int height;
+
+    @Label("Output Bytes")
+    @DataAmount
+    long bytes;
+
+    // Cierra el evento; el tamano del resultado solo se consulta si se va a registrar
+    public void complete(Object imageId, String mode, int width, int height, File output) {
+        end();
+        if (shouldCommit()) {
+            this.imageId = String.valueOf(imageId);
+            this.mode = mode;
+            this.width = width;
+            this.height = height;
+            this.bytes = output.length();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ImageHub.utils.metrics;
+
+import com.example.ImageHub.utils.plan.TransformPlan;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Metricas por etapa del pipeline de imagenes.
+ *
+ * Decodificacion y codificacion se miden en ImageCodec (imagehub.codec.*). Aqui
+ * se registran los pasos del plan, las estrategias clasicas y las escrituras a
+ * disco, etiquetados por formato y por tramo de tamano (megapixeles), junto con
+ * los pixeles procesados. Las consultas de metadata las mide Spring Data
+ * (spring.data.repository.invocations).
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Tramo de tamano con cardinalidad fija para usarlo como etiqueta
+    public static String sizeBucket(long pixels) {
+        if (pixels < 250_000) {
+            return "lt_0.25mp";
+        }
+        if (pixels < 1_000_000) {
+            return "0.25-1mp";
+        }
+        if (pixels < 4_000_000) {
+            return "1-4mp";
+        }
+        if (pixels < 16_000_000) {
+            return "4-16mp";
+        }
+        return "ge_16mp";
+    }
+
+    // Paso de un plan del planificador (ResampleStep, CropStep, ColorFilterStep...)
+    public void recordStep(String step, String format, long pixels, long nanos) {
+        record("imagehub.pipeline.step", "step", step, format, pixels, nanos);
+    }
+
+    // Observador que mide cada paso de un plan que codifica en format
+    public TransformPlan.StepObserver stepObserver(String format) {
+        return (step, nanos) -> recordStep(step.getClass().getSimpleName(), format, step.getCost(), nanos);
+    }
+
+    // Estrategia ImageTransform de la ejecucion clasica (Resize, Crop, Rotate...)
+    public void recordStrategy(String strategy, String format, long pixels, long nanos) {
+        record("imagehub.pipeline.strategy", "strategy", strategy, format, pixels, nanos);
+    }
+
+    // Escritura de un archivo recibido (subida, importacion, subida reanudable)
+    public void recordWrite(String source, String format, long bytes, long nanos) {
+        Timer.builder("imagehub.storage.write")
+                .tag("source", source)
+                .tag("format", format)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("imagehub.storage.write.bytes")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .tag("format", format)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private void record(String name, String key, String value, String format, long pixels, long nanos) {
+        String size = sizeBucket(pixels);
+        Timer.builder(name)
+                .tag(key, value)
+                .tag("format", format)
+                .tag("size", size)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("imagehub.pipeline.pixels")
+                .baseUnit("pixels")
+                .tag("stage", value)
+                .tag("size", size)
+                .register(meterRegistry)
+                .record(pixels);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.ImageHub.utils.plan;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * Cabeceras con las que el cliente describe lo que puede mostrar: Accept y las
+ * client hints Width, DPR, Viewport-Width y Save-Data (con o sin prefijo Sec-CH-).
+ */
+public final class ClientHints {
+
+    // Cabeceras que cambian la respuesta negociada; deben ir en Vary
+    public static final String[] VARY_HEADERS = {
+            "Accept", "Width", "Sec-CH-Width", "DPR", "Sec-CH-DPR",
+            "Viewport-Width", "Sec-CH-Viewport-Width", "Save-Data"
+    };
+
+    // Hints que se piden al navegador para las siguientes solicitudes
+    public static final String ACCEPT_CH = "Sec-CH-Width, Sec-CH-DPR, Sec-CH-Viewport-Width, Width, DPR, Viewport-Width";
+
+    private final Map<String, Double> accepted;
+    private final Integer width;
+    private final Double dpr;
+    private final Integer viewportWidth;
+    private final boolean saveData;
+
+    private ClientHints(Map<String, Double> accepted, Integer width, Double dpr, Integer viewportWidth,
+                        boolean saveData) {
+        this.accepted = accepted;
+        this.width = width;
+        this.dpr = dpr;
+        this.viewportWidth = viewportWidth;
+        this.saveData = saveData;
+    }
+
+    // Lee las cabeceras con la funcion dada; los valores malformados se ignoran
+    public static ClientHints from(Function<String, String> headers) {
+        return new ClientHints(
+                parseAccept(headers.apply("Accept")),
+                parsePositiveInt(first(headers, "Sec-CH-Width", "Width")),
+                parsePositiveDouble(first(headers, "Sec-CH-DPR", "DPR")),
+                parsePositiveInt(first(headers, "Sec-CH-Viewport-Width", "Viewport-Width")),
+                "on".equalsIgnoreCase(trim(headers.apply("Save-Data"))));
+    }
+
+    // True si el cliente nombra el tipo de forma explicita con q > 0. Los comodines
+    // no cuentan: los navegadores envian */* aunque no sepan decodificar WebP
+    public boolean accepts(String mimeType) {
+        Double q = accepted.get(mimeType.toLowerCase(Locale.ROOT));
+        return q != null && q > 0;
+    }
+
+    // Ancho en pixeles fisicos que necesita el cliente o null si no lo indico.
+    // Con Save-Data se sirve la version 1x aunque la pantalla tenga mas densidad
+    public Integer getTargetWidth() {
+        double density = dpr == null ? 1.0 : dpr;
+        Double physical = null;
+        if (width != null) {
+            physical = width.doubleValue();
+        } else if (viewportWidth != null) {
+            physical = viewportWidth * density;
+        }
+        if (physical == null) {
+            return null;
+        }
+        if (saveData && density > 1.0) {
+            physical = physical / density;
+        }
+        return Math.max(1, (int) Math.ceil(physical));
+    }
+
+    public boolean isSaveData() {
+        return saveData;
+    }
+
+    private static Map<String, Double> parseAccept(String header) {
+        Map<String, Double> result = new HashMap<>();
+        if (header == null) {
+            return result;
+        }
+        for (String range : header.split(",")) {
+            String[] parts = range.split(";");
+            String type = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (type.isEmpty()) {
+                continue;
+            }
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            result.merge(type, q, Math::max);
+        }
+        return result;
+    }
+
+    private static String first(Function<String, String> headers, String name, String fallback) {
+        String value = headers.apply(name);
+        return value != null ? value : headers.apply(fallback);
+    }
+
+    private static Integer parsePositiveInt(String value) {
+        Double parsed = parsePositiveDouble(value);
+        return parsed == null ? null : (int) Math.ceil(parsed);
+    }
+
+    private static Double parsePositiveDouble(String value) {
+        String trimmed = trim(value);
+        if (trimmed == null || trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            double parsed = Double.parseDouble(trimmed);
+            return parsed > 0 && Double.isFinite(parsed) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String trim(String value) {
+        // Las hints estructuradas pueden llegar entre comillas
+        return value == null ? null : value.trim().replace("\"", "");
+    }
+}
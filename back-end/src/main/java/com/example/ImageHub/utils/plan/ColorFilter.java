@@ -0,0 +1,32 @@
+package com.example.ImageHub.utils.plan;
+
+// Filtros de color por pixel. Conservan el canal alpha para que puedan
+// aplicarse en cualquier punto del plan sin alterar la transparencia.
+public enum ColorFilter {
+
+    GRAYSCALE {
+        @Override
+        public int apply(int argb) {
+            int r = (argb >> 16) & 0xff;
+            int g = (argb >> 8) & 0xff;
+            int b = argb & 0xff;
+            int gray = (r + g + b) / 3;
+            return (argb & 0xff000000) | (gray << 16) | (gray << 8) | gray;
+        }
+    },
+
+    SEPIA {
+        @Override
+        public int apply(int argb) {
+            int r = (argb >> 16) & 0xff;
+            int g = (argb >> 8) & 0xff;
+            int b = argb & 0xff;
+            int tr = Math.min(255, (int) (0.393 * r + 0.769 * g + 0.189 * b));
+            int tg = Math.min(255, (int) (0.349 * r + 0.686 * g + 0.168 * b));
+            int tb = Math.min(255, (int) (0.272 * r + 0.534 * g + 0.131 * b));
+            return (argb & 0xff000000) | (tr << 16) | (tg << 8) | tb;
+        }
+    };
+
+    public abstract int apply(int argb);
+}
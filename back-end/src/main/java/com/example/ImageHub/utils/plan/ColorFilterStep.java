@@ -0,0 +1,64 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Aplica una cadena de filtros de color en una sola pasada por fila.
+public class ColorFilterStep implements PlanStep {
+
+    private final List<ColorFilter> filters;
+    private final int width;
+    private final int height;
+
+    public ColorFilterStep(List<ColorFilter> filters, int width, int height) {
+        this.filters = List.copyOf(filters);
+        this.width = width;
+        this.height = height;
+    }
+
+    // Escribe en un raster nuevo: la entrada puede ser la fuente que comparten varios planes
+    @Override
+    public BufferedImage apply(BufferedImage image, BufferScope scope) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        BufferedImage target = scope.allocate(w, h, image.getColorModel().hasAlpha());
+        int[] row = new int[w];
+
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                int argb = row[x];
+                for (ColorFilter filter : filters) {
+                    argb = filter.apply(argb);
+                }
+                row[x] = argb;
+            }
+            target.setRGB(0, y, w, 1, row, 0, w);
+        }
+        return target;
+    }
+
+    @Override
+    public int getOutputWidth() {
+        return width;
+    }
+
+    @Override
+    public int getOutputHeight() {
+        return height;
+    }
+
+    @Override
+    public long getCost() {
+        return (long) width * height;
+    }
+
+    @Override
+    public String describe() {
+        return String.format("FILTER %s sobre %dx%d",
+                filters.stream().map(Enum::name).collect(Collectors.joining(" -> ")), width, height);
+    }
+}
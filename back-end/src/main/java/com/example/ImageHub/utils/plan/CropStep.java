@@ -0,0 +1,48 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+
+import java.awt.image.BufferedImage;
+
+// Recorte sobre la imagen actual. Usa getSubimage, que comparte el raster
+// con la imagen de origen, por lo que no copia pixeles.
+public class CropStep implements PlanStep {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+    public CropStep(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public BufferedImage apply(BufferedImage image, BufferScope scope) {
+        return image.getSubimage(x, y, width, height);
+    }
+
+    @Override
+    public int getOutputWidth() {
+        return width;
+    }
+
+    @Override
+    public int getOutputHeight() {
+        return height;
+    }
+
+    // Comparte el raster de origen, no procesa pixeles
+    @Override
+    public long getCost() {
+        return 0;
+    }
+
+    @Override
+    public String describe() {
+        return String.format("CROP region (%d, %d) %dx%d", x, y, width, height);
+    }
+}
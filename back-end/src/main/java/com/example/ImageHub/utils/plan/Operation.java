@@ -0,0 +1,61 @@
+package com.example.ImageHub.utils.plan;
+
+// Operacion elemental que el planificador convierte en pasos de ejecucion.
+// Las coordenadas de CROP y las dimensiones de RESIZE se expresan sobre la
+// imagen tal como queda despues de las operaciones anteriores.
+public final class Operation {
+
+    public enum Type { CROP, RESIZE, ROTATE, FILTER }
+
+    private final Type type;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final double angle;
+    private final ColorFilter filter;
+
+    private Operation(Type type, int x, int y, int width, int height, double angle, ColorFilter filter) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.angle = angle;
+        this.filter = filter;
+    }
+
+    public static Operation crop(int x, int y, int width, int height) {
+        return new Operation(Type.CROP, x, y, width, height, 0, null);
+    }
+
+    public static Operation resize(int width, int height) {
+        return new Operation(Type.RESIZE, 0, 0, width, height, 0, null);
+    }
+
+    public static Operation rotate(double angle) {
+        return new Operation(Type.ROTATE, 0, 0, 0, 0, angle, null);
+    }
+
+    public static Operation filter(ColorFilter filter) {
+        return new Operation(Type.FILTER, 0, 0, 0, 0, 0, filter);
+    }
+
+    public Type getType() { return type; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public double getAngle() { return angle; }
+    public ColorFilter getFilter() { return filter; }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case CROP -> "CROP(" + x + ", " + y + ", " + width + "x" + height + ")";
+            case RESIZE -> "RESIZE(" + width + "x" + height + ")";
+            case ROTATE -> "ROTATE(" + angle + ")";
+            case FILTER -> "FILTER(" + filter + ")";
+        };
+    }
+}
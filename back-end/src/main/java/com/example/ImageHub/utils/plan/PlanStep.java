@@ -0,0 +1,24 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+
+import java.awt.image.BufferedImage;
+
+// Paso ejecutable de un TransformPlan.
+// Los pasos pueden modificar la imagen recibida: el plan es dueño de los
+// rasters intermedios desde que la imagen fuente se decodifica. Las imagenes
+// nuevas se piden al BufferScope para reutilizar la memoria de pixeles.
+public interface PlanStep {
+
+    BufferedImage apply(BufferedImage image, BufferScope scope);
+
+    int getOutputWidth();
+
+    int getOutputHeight();
+
+    // Pixeles que el paso lee o escribe; base de la estimacion de coste del plan
+    long getCost();
+
+    // Descripcion legible del paso, usada para depurar planes
+    String describe();
+}
@@ -0,0 +1,222 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.EncodePreset;
+import com.example.ImageHub.utils.impl.Format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Parametros de un render bajo demanda (w, h, fit, fmt, q) ya normalizados.
+ *
+ * Dos solicitudes que producen la misma imagen comparten la misma clave
+ * canonica: una dimension ausente vale 0, fit solo cuenta cuando se dan
+ * ancho y alto, y la calidad solo cuenta en formatos con perdida.
+ */
+public final class RenderSpec {
+
+    public enum Fit {
+        // Cabe dentro de la caja conservando la proporcion, sin ampliar
+        CONTAIN,
+        // Cubre la caja conservando la proporcion y recorta el sobrante centrado
+        COVER,
+        // Escala exactamente a la caja aunque deforme la imagen
+        FILL
+    }
+
+    public static final int DEFAULT_QUALITY = 85;
+
+    private final int width;
+    private final int height;
+    private final Fit fit;
+    private final String format;
+    private final int quality;
+
+    private RenderSpec(int width, int height, Fit fit, String format, int quality) {
+        this.width = width;
+        this.height = height;
+        this.fit = fit;
+        this.format = format;
+        this.quality = quality;
+    }
+
+    // Valida y normaliza los parametros de la URL; sourceFormat se usa si no se pide fmt
+    public static RenderSpec of(Integer width, Integer height, String fit, String format, Integer quality,
+                                String sourceFormat) {
+        int w = width == null ? 0 : width;
+        int h = height == null ? 0 : height;
+        if (w < 0 || h < 0) {
+            throw new IllegalArgumentException("Las dimensiones de render no pueden ser negativas");
+        }
+
+        Fit resolvedFit = Fit.CONTAIN;
+        if (fit != null && !fit.isEmpty()) {
+            try {
+                resolvedFit = Fit.valueOf(fit.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Fit no soportado: " + fit + ". Use contain, cover o fill");
+            }
+        }
+        // Con una sola dimension la otra se deduce de la proporcion y fit no influye
+        if (w == 0 || h == 0) {
+            resolvedFit = Fit.CONTAIN;
+        }
+
+        String resolvedFormat = format == null || format.isEmpty() ? sourceFormat : format;
+        resolvedFormat = resolvedFormat.toLowerCase(Locale.ROOT);
+        if (!Format.isSupportedFormat(resolvedFormat)) {
+            throw new IllegalArgumentException("Formato no soportado: " + resolvedFormat);
+        }
+        if ("jpeg".equals(resolvedFormat)) {
+            resolvedFormat = "jpg";
+        }
+
+        int q = quality == null ? DEFAULT_QUALITY : quality;
+        if (q < 1 || q > 100) {
+            throw new IllegalArgumentException("La calidad debe estar entre 1 y 100");
+        }
+        // PNG, GIF, BMP y WebP (sin perdida) ignoran la calidad
+        if (!isLossy(resolvedFormat)) {
+            q = 0;
+        }
+
+        return new RenderSpec(w, h, resolvedFit, resolvedFormat, q);
+    }
+
+    /*
+     * Elige la variante mas compacta que el cliente puede mostrar, o null si lo
+     * mejor es servir el original tal cual.
+     *
+     * - Las fuentes con perdida se mantienen en JPEG: el codificador WebP es sin
+     *   perdida y produce archivos mayores que un JPEG para fotografias.
+     * - Las fuentes sin perdida pasan a WebP si el cliente lo acepta y si no a PNG.
+     * - El ancho es el menor tamano permitido que cubre el ancho pedido.
+     * - Con Save-Data los JPEG usan la menor calidad permitida.
+     * - Los GIF se sirven sin cambios para no perder la animacion.
+     */
+    public static RenderSpec negotiate(ClientHints hints, String sourceFormat, List<Integer> allowedSizes,
+                                       List<Integer> allowedQualities) {
+        String source = sourceFormat.toLowerCase(Locale.ROOT);
+        if ("jpeg".equals(source)) {
+            source = "jpg";
+        }
+        if ("gif".equals(source) || !Format.isSupportedFormat(source)) {
+            return null;
+        }
+
+        String format;
+        if (isLossy(source)) {
+            format = "jpg";
+        } else {
+            format = hints.accepts("image/webp") ? "webp" : "png";
+        }
+
+        Integer width = null;
+        Integer target = hints.getTargetWidth();
+        if (target != null) {
+            width = allowedSizes.stream()
+                    .filter(size -> size >= target)
+                    .min(Integer::compare)
+                    .orElse(null);
+        }
+
+        Integer quality = null;
+        if (hints.isSaveData() && isLossy(format) && !allowedQualities.isEmpty()) {
+            quality = allowedQualities.stream().min(Integer::compare).get();
+        }
+
+        if (width == null && quality == null && format.equals(source)) {
+            return null;
+        }
+        return of(width, null, null, format, quality, source);
+    }
+
+    public static boolean isLossy(String format) {
+        return "jpg".equals(format) || "jpeg".equals(format);
+    }
+
+    // Operaciones que producen el render sobre la imagen fuente ya orientada
+    public List<Operation> toOperations(int sourceWidth, int sourceHeight) {
+        List<Operation> operations = new ArrayList<>();
+        if (width == 0 && height == 0) {
+            return operations;
+        }
+
+        if (fit == Fit.FILL) {
+            if (width != sourceWidth || height != sourceHeight) {
+                operations.add(Operation.resize(width, height));
+            }
+            return operations;
+        }
+
+        if (fit == Fit.COVER) {
+            double scale = Math.max((double) width / sourceWidth, (double) height / sourceHeight);
+            int cropWidth = Math.min(sourceWidth, Math.max(1, (int) Math.round(width / scale)));
+            int cropHeight = Math.min(sourceHeight, Math.max(1, (int) Math.round(height / scale)));
+            if (cropWidth != sourceWidth || cropHeight != sourceHeight) {
+                operations.add(Operation.crop((sourceWidth - cropWidth) / 2, (sourceHeight - cropHeight) / 2,
+                        cropWidth, cropHeight));
+            }
+            addResize(operations, cropWidth, cropHeight, Math.min(1.0, scale));
+            return operations;
+        }
+
+        double scale;
+        if (width == 0) {
+            scale = (double) height / sourceHeight;
+        } else if (height == 0) {
+            scale = (double) width / sourceWidth;
+        } else {
+            scale = Math.min((double) width / sourceWidth, (double) height / sourceHeight);
+        }
+        addResize(operations, sourceWidth, sourceHeight, Math.min(1.0, scale));
+        return operations;
+    }
+
+    private static void addResize(List<Operation> operations, int width, int height, double scale) {
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        if (targetWidth != width || targetHeight != height) {
+            operations.add(Operation.resize(targetWidth, targetHeight));
+        }
+    }
+
+    // Parametros de codificacion: los del preset web con la calidad solicitada
+    public EncodeOptions toEncodeOptions() {
+        EncodePreset web = EncodePreset.WEB;
+        float resolvedQuality = quality == 0 ? web.getQuality() : quality / 100f;
+        return new EncodeOptions(resolvedQuality, web.isProgressive(), web.getCompressionLevel(), web.isOptimize());
+    }
+
+    // Clave estable usada como nombre del archivo en cache y como base del ETag
+    public String canonicalKey() {
+        return "w" + width + "-h" + height + "-" + fit.name().toLowerCase(Locale.ROOT) + "-q" + quality + "." + format;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Fit getFit() {
+        return fit;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    @Override
+    public String toString() {
+        return canonicalKey();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+// Remuestreo unico que combina escalado, traslacion y rotacion en una sola
+// transformacion afin. Sustituye las pasadas separadas de Resize y Rotate.
+public class ResampleStep implements PlanStep {
+
+    private final AffineTransform transform;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int width;
+    private final int height;
+    private final boolean keepAlpha;
+
+    public ResampleStep(AffineTransform transform, int inputWidth, int inputHeight,
+                        int width, int height, boolean keepAlpha) {
+        this.transform = new AffineTransform(transform);
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.width = width;
+        this.height = height;
+        this.keepAlpha = keepAlpha;
+    }
+
+    @Override
+    public BufferedImage apply(BufferedImage image, BufferScope scope) {
+        // Giros de 90 grados y espejos sin escalado (orientacion EXIF) solo mueven
+        // pixeles: se copian sin interpolar y el resultado es exacto
+        if (isTransposition()) {
+            return draw(image, transform, width, height,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, scope);
+        }
+
+        BufferedImage source = image;
+        AffineTransform at = new AffineTransform(transform);
+
+        // Para reducciones grandes se reduce a la mitad de forma progresiva:
+        // una sola pasada bicubica pierde detalle y genera aliasing
+        double scaleX = Math.hypot(at.getScaleX(), at.getShearY());
+        double scaleY = Math.hypot(at.getShearX(), at.getScaleY());
+        while (scaleX < 0.5 || scaleY < 0.5) {
+            int halfWidth = scaleX < 0.5 ? Math.max(1, (source.getWidth() + 1) / 2) : source.getWidth();
+            int halfHeight = scaleY < 0.5 ? Math.max(1, (source.getHeight() + 1) / 2) : source.getHeight();
+            double fx = (double) source.getWidth() / halfWidth;
+            double fy = (double) source.getHeight() / halfHeight;
+
+            BufferedImage half = draw(source, AffineTransform.getScaleInstance(1 / fx, 1 / fy),
+                    halfWidth, halfHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR, scope);
+            if (source != image) {
+                scope.release(source);
+            }
+            source = half;
+            at.concatenate(AffineTransform.getScaleInstance(fx, fy));
+            scaleX *= fx;
+            scaleY *= fy;
+        }
+
+        BufferedImage result = draw(source, at, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC, scope);
+        if (source != image) {
+            scope.release(source);
+        }
+        return result;
+    }
+
+    private BufferedImage draw(BufferedImage source, AffineTransform at, int w, int h,
+                               Object interpolation, BufferScope scope) {
+        BufferedImage target = scope.allocate(w, h, keepAlpha && source.getColorModel().hasAlpha());
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(source, at, null);
+        g2d.dispose();
+        return target;
+    }
+
+    public boolean isTransposition() {
+        double eps = 1e-9;
+        double[] m = new double[6];
+        transform.getMatrix(m);
+        for (int i = 0; i < 4; i++) {
+            double abs = Math.abs(m[i]);
+            if (abs > eps && Math.abs(abs - 1) > eps) {
+                return false;
+            }
+        }
+        boolean axisAligned = Math.abs(m[1]) < eps && Math.abs(m[2]) < eps;
+        boolean swapped = Math.abs(m[0]) < eps && Math.abs(m[3]) < eps;
+        return (axisAligned || swapped)
+                && Math.abs(m[4] - Math.rint(m[4])) < eps && Math.abs(m[5] - Math.rint(m[5])) < eps;
+    }
+
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    @Override
+    public int getOutputWidth() {
+        return width;
+    }
+
+    @Override
+    public int getOutputHeight() {
+        return height;
+    }
+
+    // Pixeles del resultado mas los de cada reduccion intermedia a la mitad
+    @Override
+    public long getCost() {
+        long cost = (long) width * height;
+        double scaleX = Math.hypot(transform.getScaleX(), transform.getShearY());
+        double scaleY = Math.hypot(transform.getShearX(), transform.getScaleY());
+        int w = inputWidth;
+        int h = inputHeight;
+        while (scaleX < 0.5 || scaleY < 0.5) {
+            if (scaleX < 0.5) {
+                w = Math.max(1, (w + 1) / 2);
+                scaleX *= 2;
+            }
+            if (scaleY < 0.5) {
+                h = Math.max(1, (h + 1) / 2);
+                scaleY *= 2;
+            }
+            cost += (long) w * h;
+        }
+        return cost;
+    }
+
+    @Override
+    public String describe() {
+        double scaleX = Math.hypot(transform.getScaleX(), transform.getShearY());
+        double scaleY = Math.hypot(transform.getShearX(), transform.getScaleY());
+        double angle = Math.toDegrees(Math.atan2(transform.getShearY(), transform.getScaleX()));
+        return String.format("RESAMPLE -> %dx%d [escala %.3fx%.3f, rotacion %.1f grados]",
+                width, height, scaleX, scaleY, angle);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.ImageHub.utils.plan;
+
+import java.awt.Rectangle;
+
+/*
+ * Geometria de una piramide Deep Zoom (DZI) sobre la imagen orientada.
+ *
+ * El nivel maximo es la resolucion completa y cada nivel inferior divide ancho
+ * y alto entre dos (redondeando hacia arriba) hasta llegar a 1x1 en el nivel 0.
+ * Cada nivel se corta en teselas de tileSize pixeles; las teselas interiores
+ * se amplian overlap pixeles hacia cada vecino, como espera el visor.
+ */
+public final class TilePyramid {
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int overlap;
+    private final String format;
+    private final int maxLevel;
+
+    public TilePyramid(int width, int height, int tileSize, int overlap, String format) {
+        if (width <= 0 || height <= 0 || tileSize <= 0 || overlap < 0) {
+            throw new IllegalArgumentException("Parametros de piramide invalidos");
+        }
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.overlap = overlap;
+        this.format = format;
+        this.maxLevel = 32 - Integer.numberOfLeadingZeros(Math.max(width, height) - 1);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getOverlap() {
+        return overlap;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    // Factor de reduccion del nivel respecto a la resolucion completa
+    public int scale(int level) {
+        return 1 << (maxLevel - level);
+    }
+
+    public int levelWidth(int level) {
+        return ceilDiv(width, scale(level));
+    }
+
+    public int levelHeight(int level) {
+        return ceilDiv(height, scale(level));
+    }
+
+    public int columns(int level) {
+        return ceilDiv(levelWidth(level), tileSize);
+    }
+
+    public int rows(int level) {
+        return ceilDiv(levelHeight(level), tileSize);
+    }
+
+    // Rectangulo de la tesela en pixeles del nivel, incluido el solapamiento
+    public Rectangle tileBounds(int level, int column, int row) {
+        checkTile(level, column, row);
+        int x0 = Math.max(0, column * tileSize - overlap);
+        int y0 = Math.max(0, row * tileSize - overlap);
+        int x1 = Math.min(levelWidth(level), (column + 1) * tileSize + overlap);
+        int y1 = Math.min(levelHeight(level), (row + 1) * tileSize + overlap);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    // Region de la imagen orientada a resolucion completa que cubre la tesela
+    public Rectangle sourceRegion(int level, int column, int row) {
+        Rectangle tile = tileBounds(level, column, row);
+        int scale = scale(level);
+        int x = tile.x * scale;
+        int y = tile.y * scale;
+        return new Rectangle(x, y,
+                Math.min(width - x, tile.width * scale),
+                Math.min(height - y, tile.height * scale));
+    }
+
+    public void checkTile(int level, int column, int row) {
+        if (level < 0 || level > maxLevel) {
+            throw new IllegalArgumentException("Nivel fuera de rango: " + level + " (0-" + maxLevel + ")");
+        }
+        if (column < 0 || column >= columns(level) || row < 0 || row >= rows(level)) {
+            throw new IllegalArgumentException(
+                    "Tesela fuera de rango en el nivel " + level + ": " + column + "_" + row);
+        }
+    }
+
+    // Descriptor .dzi que leen visores como OpenSeadragon
+    public String toDzi() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\" TileSize=\"" + tileSize
+                + "\" Overlap=\"" + overlap + "\" Format=\"" + format + "\">"
+                + "<Size Width=\"" + width + "\" Height=\"" + height + "\"/></Image>";
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.utils.buffer.BufferScope;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.jfr.PipelineStepEvent;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+// Plan de ejecucion optimizado generado por TransformPlanner.
+// Se ejecuta sobre una unica imagen decodificada y produce el raster final
+// listo para codificarse una sola vez en el formato indicado.
+public class TransformPlan {
+
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final String format;
+    private final EncodeOptions encodeOptions;
+    private final List<PlanStep> steps;
+
+    public TransformPlan(int sourceWidth, int sourceHeight, String format,
+                         EncodeOptions encodeOptions, List<PlanStep> steps) {
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.format = format;
+        this.encodeOptions = encodeOptions;
+        this.steps = List.copyOf(steps);
+    }
+
+    public BufferedImage execute(BufferedImage source) {
+        return execute(source, BufferScope.unpooled());
+    }
+
+    // Recibe la duracion de cada paso ejecutado (metricas)
+    @FunctionalInterface
+    public interface StepObserver {
+        StepObserver NONE = (step, nanos) -> {
+        };
+
+        void stepCompleted(PlanStep step, long nanos);
+    }
+
+    // El resultado puede pertenecer al scope: debe codificarse antes de cerrarlo
+    public BufferedImage execute(BufferedImage source, BufferScope scope) {
+        return execute(source, scope, StepObserver.NONE);
+    }
+
+    public BufferedImage execute(BufferedImage source, BufferScope scope, StepObserver observer) {
+        BufferedImage image = source;
+        for (PlanStep step : steps) {
+            PipelineStepEvent event = new PipelineStepEvent();
+            event.begin();
+            long start = System.nanoTime();
+            BufferedImage next = step.apply(image, scope);
+            observer.stepCompleted(step, System.nanoTime() - start);
+            event.complete("plan", step.getClass().getSimpleName(), image.getWidth(), image.getHeight());
+            // Un recorte comparte el raster de su origen: solo se libera si ya no se usa
+            if (image != source && next.getRaster().getDataBuffer() != image.getRaster().getDataBuffer()) {
+                scope.release(image);
+            }
+            image = next;
+        }
+        return image;
+    }
+
+    public static boolean supportsAlpha(String format) {
+        return "png".equals(format) || "gif".equals(format) || "webp".equals(format);
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    public int getOutputWidth() {
+        return steps.isEmpty() ? sourceWidth : steps.get(steps.size() - 1).getOutputWidth();
+    }
+
+    public int getOutputHeight() {
+        return steps.isEmpty() ? sourceHeight : steps.get(steps.size() - 1).getOutputHeight();
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public EncodeOptions getEncodeOptions() {
+        return encodeOptions;
+    }
+
+    public List<PlanStep> getSteps() {
+        return steps;
+    }
+
+    // Coste estimado en pixeles: decodificacion, pasos y codificacion
+    public long getEstimatedCost() {
+        long cost = (long) sourceWidth * sourceHeight;
+        for (PlanStep step : steps) {
+            cost += step.getCost();
+        }
+        return cost + (long) getOutputWidth() * getOutputHeight();
+    }
+
+    // Pixeles vivos en el peor momento: la fuente mas la entrada y salida del paso mayor
+    public long getPeakPixels() {
+        long largestStep = 0;
+        for (PlanStep step : steps) {
+            largestStep = Math.max(largestStep, (long) step.getOutputWidth() * step.getOutputHeight());
+        }
+        return (long) sourceWidth * sourceHeight + 2 * largestStep;
+    }
+
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("DECODE %dx%d", sourceWidth, sourceHeight));
+        for (PlanStep step : steps) {
+            lines.add(step.describe());
+        }
+        lines.add(String.format("ENCODE %s %dx%d (%s)", format, getOutputWidth(), getOutputHeight(), encodeOptions));
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" | ", describe());
+    }
+}
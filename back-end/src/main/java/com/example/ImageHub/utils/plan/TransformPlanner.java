@@ -0,0 +1,385 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.dto.imgDTO.TransformOperationDto;
+import com.example.ImageHub.dto.imgDTO.TransformPipelineRequestDto;
+import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.Orientation;
+import com.example.ImageHub.utils.impl.Format;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Convierte una solicitud de transformacion en un TransformPlan optimizado.
+ *
+ * - Los recortes se empujan hacia la imagen fuente: solo se remuestrea la region
+ *   que sobrevive al recorte.
+ * - Escalado, recorte y rotacion consecutivos se fusionan en un unico remuestreo afin.
+ * - Los filtros de color se agrupan en una sola pasada y se aplican en el punto
+ *   del plan con menos pixeles.
+ * - La orientacion EXIF de la fuente se aplica como una transposicion que se
+ *   fusiona con la primera geometria; las coordenadas de la solicitud se
+ *   interpretan sobre la imagen ya orientada.
+ */
+@Slf4j
+@Component
+public class TransformPlanner {
+
+    // Maximo de operaciones por solicitud de pipeline
+    @Value("${image.pipeline.max-operations:20}")
+    private int maxOperations = 20;
+
+    // Coste maximo de un plan en megapixeles procesados
+    @Value("${image.pipeline.max-cost-megapixels:400}")
+    private long maxCostMegapixels = 400;
+
+    // Convierte la solicitud clasica respetando su orden fijo: resize, crop, rotate, filter
+    public TransformPlan plan(TransformRequestDto request, int sourceWidth, int sourceHeight, String sourceFormat) {
+        return plan(request, sourceWidth, sourceHeight, sourceFormat, Orientation.NORMAL);
+    }
+
+    public TransformPlan plan(TransformRequestDto request, int sourceWidth, int sourceHeight, String sourceFormat,
+                              Orientation orientation) {
+        List<Operation> operations = operations(request);
+
+        String format = request.getFormat() != null && !request.getFormat().isEmpty()
+                ? request.getFormat()
+                : sourceFormat;
+
+        return plan(operations, sourceWidth, sourceHeight, format,
+                EncodeOptions.resolve(request.getEncoding(), format), orientation);
+    }
+
+    /*
+     * Plan de vista previa: la misma solicitud ejecutada sobre un proxy reducido de
+     * la fuente (proxyWidth x proxyHeight, sin orientar). Las coordenadas de la
+     * solicitud siguen siendo las de la imagen completa; el proxy se escala a ese
+     * espacio y el resultado se reduce en la misma proporcion, todo dentro del
+     * mismo remuestreo afin. La codificacion prioriza la velocidad.
+     */
+    public TransformPlan planPreview(TransformRequestDto request, int sourceWidth, int sourceHeight,
+                                     String sourceFormat, Orientation orientation,
+                                     int proxyWidth, int proxyHeight) {
+        // El plan completo valida la solicitud y da el tamano final sin tocar pixeles
+        TransformPlan full = plan(request, sourceWidth, sourceHeight, sourceFormat, orientation);
+
+        boolean swap = orientation != null && orientation.swapsAxes();
+        int orientedWidth = swap ? sourceHeight : sourceWidth;
+        int orientedHeight = swap ? sourceWidth : sourceHeight;
+        double scale = Math.min(1.0, (double) Math.max(proxyWidth, proxyHeight) / Math.max(sourceWidth, sourceHeight));
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(Operation.resize(orientedWidth, orientedHeight));
+        operations.addAll(operations(request));
+        operations.add(Operation.resize(
+                Math.max(1, (int) Math.round(full.getOutputWidth() * scale)),
+                Math.max(1, (int) Math.round(full.getOutputHeight() * scale))));
+
+        EncodeOptions fast = new EncodeOptions(full.getEncodeOptions().getQuality(), false, 1, false);
+        return plan(operations, proxyWidth, proxyHeight, full.getFormat(), fast, orientation);
+    }
+
+    // Operaciones de la solicitud clasica en su orden fijo
+    private List<Operation> operations(TransformRequestDto request) {
+        if (request == null) {
+            throw new IllegalArgumentException("La solicitud de transformacion no puede ser nula");
+        }
+
+        List<Operation> operations = new ArrayList<>();
+
+        if (request.getResize() != null) {
+            Integer width = request.getResize().getWidth();
+            Integer height = request.getResize().getHeight();
+            if (width == null || height == null) {
+                throw new IllegalArgumentException("Width y Height no pueden ser nulos");
+            }
+            operations.add(Operation.resize(width, height));
+        }
+
+        if (request.getCrop() != null) {
+            Integer x = request.getCrop().getX();
+            Integer y = request.getCrop().getY();
+            Integer width = request.getCrop().getWidth();
+            Integer height = request.getCrop().getHeight();
+            if (x == null || y == null || width == null || height == null) {
+                throw new IllegalArgumentException("X, Y, Width y Height no pueden ser nulos");
+            }
+            operations.add(Operation.crop(x, y, width, height));
+        }
+
+        if (request.getRotate() != null) {
+            operations.add(Operation.rotate(request.getRotate()));
+        }
+
+        if (request.getFilters() != null) {
+            Boolean grayscale = request.getFilters().getGrayscale();
+            Boolean sepia = request.getFilters().getSepia();
+            if (grayscale != null && grayscale) {
+                operations.add(Operation.filter(ColorFilter.GRAYSCALE));
+            } else if (sepia != null && sepia) {
+                operations.add(Operation.filter(ColorFilter.SEPIA));
+            } else {
+                throw new IllegalArgumentException("Debe habilitar al menos un filtro (grayscale o sepia)");
+            }
+        }
+
+        return operations;
+    }
+
+    // Convierte un pipeline ordenado; las operaciones pueden repetirse
+    public TransformPlan plan(TransformPipelineRequestDto request, int sourceWidth, int sourceHeight, String sourceFormat) {
+        return plan(request, sourceWidth, sourceHeight, sourceFormat, Orientation.NORMAL);
+    }
+
+    public TransformPlan plan(TransformPipelineRequestDto request, int sourceWidth, int sourceHeight,
+                              String sourceFormat, Orientation orientation) {
+        if (request == null || request.getOperations() == null || request.getOperations().isEmpty()) {
+            throw new IllegalArgumentException("El pipeline debe contener al menos una operacion");
+        }
+        if (request.getOperations().size() > maxOperations) {
+            throw new IllegalArgumentException("El pipeline excede el maximo de " + maxOperations + " operaciones");
+        }
+
+        List<Operation> operations = new ArrayList<>();
+        for (TransformOperationDto dto : request.getOperations()) {
+            operations.add(toOperation(dto));
+        }
+
+        String format = request.getFormat() != null && !request.getFormat().isEmpty()
+                ? request.getFormat()
+                : sourceFormat;
+
+        return plan(operations, sourceWidth, sourceHeight, format,
+                EncodeOptions.resolve(request.getEncoding(), format), orientation);
+    }
+
+    private Operation toOperation(TransformOperationDto dto) {
+        if (dto == null || dto.getType() == null) {
+            throw new IllegalArgumentException("Cada operacion debe indicar su tipo");
+        }
+
+        switch (dto.getType().toLowerCase()) {
+            case "resize" -> {
+                if (dto.getWidth() == null || dto.getHeight() == null) {
+                    throw new IllegalArgumentException("Width y Height no pueden ser nulos");
+                }
+                return Operation.resize(dto.getWidth(), dto.getHeight());
+            }
+            case "crop" -> {
+                if (dto.getX() == null || dto.getY() == null || dto.getWidth() == null || dto.getHeight() == null) {
+                    throw new IllegalArgumentException("X, Y, Width y Height no pueden ser nulos");
+                }
+                return Operation.crop(dto.getX(), dto.getY(), dto.getWidth(), dto.getHeight());
+            }
+            case "rotate" -> {
+                if (dto.getAngle() == null) {
+                    throw new IllegalArgumentException("Rotate debe indicar el angulo");
+                }
+                return Operation.rotate(dto.getAngle());
+            }
+            case "filter" -> {
+                if (dto.getFilter() == null) {
+                    throw new IllegalArgumentException("Filter debe indicar grayscale o sepia");
+                }
+                try {
+                    return Operation.filter(ColorFilter.valueOf(dto.getFilter().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Filtro no soportado: " + dto.getFilter());
+                }
+            }
+            default -> throw new IllegalArgumentException("Tipo de operacion no soportado: " + dto.getType());
+        }
+    }
+
+    public TransformPlan plan(List<Operation> operations, int sourceWidth, int sourceHeight, String format) {
+        return plan(operations, sourceWidth, sourceHeight, format, EncodeOptions.DEFAULT);
+    }
+
+    public TransformPlan plan(List<Operation> operations, int sourceWidth, int sourceHeight, String format,
+                              EncodeOptions encodeOptions) {
+        return plan(operations, sourceWidth, sourceHeight, format, encodeOptions, Orientation.NORMAL);
+    }
+
+    public TransformPlan plan(List<Operation> operations, int sourceWidth, int sourceHeight, String format,
+                              EncodeOptions encodeOptions, Orientation orientation) {
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            throw new IllegalArgumentException("Dimensiones de imagen invalidas: " + sourceWidth + "x" + sourceHeight);
+        }
+
+        String outputFormat = format == null ? "" : format.toLowerCase();
+        if (!Format.isSupportedFormat(outputFormat)) {
+            throw new IllegalArgumentException("Formato no soportado: " + format);
+        }
+        boolean keepAlpha = TransformPlan.supportsAlpha(outputFormat);
+
+        List<PlanStep> steps = new ArrayList<>();
+        List<ColorFilter> filters = new ArrayList<>();
+        GeometryRun run = new GeometryRun(sourceWidth, sourceHeight);
+        if (orientation != null && orientation != Orientation.NORMAL) {
+            run.orient(orientation);
+        }
+
+        for (Operation operation : operations) {
+            switch (operation.getType()) {
+                case RESIZE -> run.resize(operation.getWidth(), operation.getHeight());
+                case CROP -> run.crop(operation.getX(), operation.getY(), operation.getWidth(), operation.getHeight());
+                case ROTATE -> {
+                    // Una segunda rotacion no puede fusionarse: la primera recorta las
+                    // esquinas al lienzo y la segunda las volveria a mostrar
+                    if (run.rotated) {
+                        run.emit(steps, keepAlpha);
+                        run = new GeometryRun(run.width, run.height);
+                    }
+                    run.rotate(operation.getAngle());
+                }
+                case FILTER -> filters.add(operation.getFilter());
+            }
+        }
+        run.emit(steps, keepAlpha);
+
+        if (!filters.isEmpty()) {
+            placeFilters(steps, filters, sourceWidth, sourceHeight);
+        }
+
+        TransformPlan plan = new TransformPlan(sourceWidth, sourceHeight, outputFormat, encodeOptions, steps);
+        if (plan.getEstimatedCost() > maxCostMegapixels * 1_000_000) {
+            throw new IllegalArgumentException("La transformacion excede el coste maximo permitido ("
+                    + maxCostMegapixels + " megapixeles)");
+        }
+        log.debug("[PLANNER] Operaciones {} -> plan {}", operations, plan);
+        return plan;
+    }
+
+    // Los filtros de color conmutan con las operaciones geometricas, asi que la
+    // cadena completa se inserta en la frontera del plan con menos pixeles
+    private void placeFilters(List<PlanStep> steps, List<ColorFilter> filters, int sourceWidth, int sourceHeight) {
+        int bestIndex = 0;
+        int bestWidth = sourceWidth;
+        int bestHeight = sourceHeight;
+
+        for (int i = 0; i < steps.size(); i++) {
+            PlanStep step = steps.get(i);
+            long pixels = (long) step.getOutputWidth() * step.getOutputHeight();
+            if (pixels <= (long) bestWidth * bestHeight) {
+                bestIndex = i + 1;
+                bestWidth = step.getOutputWidth();
+                bestHeight = step.getOutputHeight();
+            }
+        }
+
+        steps.add(bestIndex, new ColorFilterStep(filters, bestWidth, bestHeight));
+    }
+
+    /*
+     * Acumula operaciones geometricas consecutivas en una transformacion afin
+     * (coordenadas de la entrada del tramo -> coordenadas del lienzo actual).
+     * Mientras no haya rotacion la transformacion solo escala y traslada, por lo
+     * que los recortes pueden proyectarse a un rectangulo de la entrada.
+     */
+    private static class GeometryRun {
+        private final int inputWidth;
+        private final int inputHeight;
+        private final AffineTransform transform = new AffineTransform();
+        private Rectangle2D clip;
+        private int width;
+        private int height;
+        private boolean rotated;
+
+        GeometryRun(int inputWidth, int inputHeight) {
+            this.inputWidth = inputWidth;
+            this.inputHeight = inputHeight;
+            this.width = inputWidth;
+            this.height = inputHeight;
+            this.clip = new Rectangle2D.Double(0, 0, inputWidth, inputHeight);
+        }
+
+        // Transposicion exacta del raster: no recorta esquinas, asi que no cuenta como rotacion
+        void orient(Orientation orientation) {
+            transform.preConcatenate(orientation.toTransform(width, height));
+            if (orientation.swapsAxes()) {
+                int previousWidth = width;
+                width = height;
+                height = previousWidth;
+            }
+        }
+
+        void resize(int newWidth, int newHeight) {
+            if (newWidth <= 0 || newHeight <= 0) {
+                throw new IllegalArgumentException("Width y Height deben ser mayores a 0");
+            }
+            transform.preConcatenate(AffineTransform.getScaleInstance(
+                    (double) newWidth / width, (double) newHeight / height));
+            width = newWidth;
+            height = newHeight;
+        }
+
+        void crop(int x, int y, int cropWidth, int cropHeight) {
+            if (cropWidth <= 0 || cropHeight <= 0) {
+                throw new IllegalArgumentException("Width y Height deben ser mayores a 0");
+            }
+            if (x < 0 || y < 0) {
+                throw new IllegalArgumentException("X e Y no pueden ser negativos");
+            }
+            if ((long) x + cropWidth > width || (long) y + cropHeight > height) {
+                throw new IllegalArgumentException("El rectangulo de corte excede los limites de la imagen");
+            }
+
+            if (!rotated) {
+                try {
+                    Rectangle2D region = transform.createInverse()
+                            .createTransformedShape(new Rectangle(x, y, cropWidth, cropHeight))
+                            .getBounds2D();
+                    clip = clip.createIntersection(region);
+                } catch (NoninvertibleTransformException e) {
+                    throw new IllegalStateException("Transformacion no invertible", e);
+                }
+            }
+
+            transform.preConcatenate(AffineTransform.getTranslateInstance(-x, -y));
+            width = cropWidth;
+            height = cropHeight;
+        }
+
+        void rotate(double angle) {
+            if (angle % 360 == 0) {
+                return;
+            }
+            transform.preConcatenate(AffineTransform.getRotateInstance(
+                    Math.toRadians(angle), width / 2.0, height / 2.0));
+            rotated = true;
+        }
+
+        void emit(List<PlanStep> steps, boolean keepAlpha) {
+            int clipX = Math.max(0, (int) Math.floor(clip.getMinX() + 1e-9));
+            int clipY = Math.max(0, (int) Math.floor(clip.getMinY() + 1e-9));
+            int clipMaxX = Math.min(inputWidth, (int) Math.ceil(clip.getMaxX() - 1e-9));
+            int clipMaxY = Math.min(inputHeight, (int) Math.ceil(clip.getMaxY() - 1e-9));
+
+            AffineTransform resample = new AffineTransform(transform);
+            if (clipX > 0 || clipY > 0 || clipMaxX < inputWidth || clipMaxY < inputHeight) {
+                steps.add(new CropStep(clipX, clipY, clipMaxX - clipX, clipMaxY - clipY));
+                resample.concatenate(AffineTransform.getTranslateInstance(clipX, clipY));
+            }
+
+            if (!isIdentity(resample)) {
+                steps.add(new ResampleStep(resample, clipMaxX - clipX, clipMaxY - clipY,
+                        width, height, keepAlpha));
+            }
+        }
+
+        private static boolean isIdentity(AffineTransform at) {
+            double eps = 1e-9;
+            return Math.abs(at.getScaleX() - 1) < eps && Math.abs(at.getScaleY() - 1) < eps
+                    && Math.abs(at.getShearX()) < eps && Math.abs(at.getShearY()) < eps
+                    && Math.abs(at.getTranslateX()) < eps && Math.abs(at.getTranslateY()) < eps;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ImageHub.utils.sign;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/*
+ * Firma HMAC-SHA256 de tokens para URLs: "<payload en base64url>.<firma en base64url>".
+ *
+ * Mac no es seguro entre hilos, asi que cada hilo usa su propia instancia.
+ * La verificacion compara en tiempo constante.
+ */
+public class UrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> macs;
+
+    public UrlSigner(byte[] key) {
+        if (key.length < 32) {
+            throw new IllegalArgumentException("La clave de firma debe tener al menos 32 bytes");
+        }
+        SecretKeySpec spec = new SecretKeySpec(key, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(spec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public String sign(String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(data) + "." + ENCODER.encodeToString(macs.get().doFinal(data));
+    }
+
+    // Payload del token si la firma es valida; null en cualquier otro caso
+    public String verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+        try {
+            byte[] data = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(macs.get().doFinal(data), signature)) {
+                return null;
+            }
+            return new String(data, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
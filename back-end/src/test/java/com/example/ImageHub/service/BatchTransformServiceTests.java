@@ -0,0 +1,148 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.BatchProgressEvent;
+import com.example.ImageHub.dto.imgDTO.BatchTransformRequestDto;
+import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchTransformServiceTests {
+
+    private final ImageMetadataRepository repository = mock(ImageMetadataRepository.class);
+    private final ImageProcService imageProcService = mock(ImageProcService.class);
+    // 3 trabajadores, guardado cada 2 imagenes, maximo 10 por lote
+    private final BatchTransformService service =
+            new BatchTransformService(repository, imageProcService, 3, 2, 10, 60_000);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void metadataIsSavedInBatchesAndFailuresAreIsolated() throws IOException {
+        List<ImageMetadata> images = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            images.add(ImageMetadata.builder().id(UUID.randomUUID()).userName("ana").build());
+        }
+        UUID foreign = UUID.randomUUID();
+        List<UUID> ids = new ArrayList<>(images.stream().map(ImageMetadata::getId).toList());
+        ids.add(foreign);
+
+        when(repository.findAllById(anyIterable())).thenReturn(images);
+        when(imageProcService.applyTransform(any(), any())).thenAnswer(invocation -> {
+            ImageMetadata image = invocation.getArgument(0);
+            if (image == images.get(2)) {
+                throw new IOException("fallo de disco");
+            }
+            return image.getId() + "_transform.png";
+        });
+
+        service.start("ana", BatchTransformRequestDto.builder()
+                .imageIds(ids)
+                .transform(new TransformRequestDto())
+                .build());
+
+        // 4 correctas en lotes de 2; la fallida y la ajena no se guardan
+        verify(repository, timeout(5_000).times(2)).saveAll(argThat(batch -> {
+            int size = 0;
+            for (Object ignored : batch) {
+                size++;
+            }
+            return size == 2;
+        }));
+        verify(imageProcService, timeout(5_000).times(5)).applyTransform(any(), any());
+    }
+
+    @Test
+    void imagesAreReportedDoneOnlyAfterTheirBatchIsSaved() throws IOException, InterruptedException {
+        List<BatchProgressEvent> events = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        BatchTransformService recording = new BatchTransformService(repository, imageProcService, 1, 2, 10, 60_000) {
+            @Override
+            SseEmitter createEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        builder.build().stream()
+                                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                                .filter(BatchProgressEvent.class::isInstance)
+                                .forEach(data -> events.add((BatchProgressEvent) data));
+                    }
+
+                    @Override
+                    public void complete() {
+                        finished.countDown();
+                    }
+                };
+            }
+        };
+
+        List<ImageMetadata> images = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            images.add(ImageMetadata.builder().id(UUID.randomUUID()).userName("ana")
+                    .transformPath("old" + i + ".jpg").build());
+        }
+        when(repository.findAllById(anyIterable())).thenReturn(images);
+        when(imageProcService.applyTransform(any(), any())).thenReturn("out.png");
+        // Falla el guardado del primer lote de 2
+        when(repository.saveAll(anyIterable()))
+                .thenThrow(new IllegalStateException("BD caida"))
+                .thenReturn(List.of());
+
+        try {
+            recording.start("ana", BatchTransformRequestDto.builder()
+                    .imageIds(images.stream().map(ImageMetadata::getId).toList())
+                    .transform(new TransformRequestDto())
+                    .build());
+
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+            verify(repository, times(2)).saveAll(anyIterable());
+            assertEquals(4, events.size());
+            assertEquals(List.of(BatchProgressEvent.Status.FAILED, BatchProgressEvent.Status.FAILED,
+                            BatchProgressEvent.Status.DONE, BatchProgressEvent.Status.DONE),
+                    events.stream().map(BatchProgressEvent::getStatus).toList());
+            assertEquals(List.of(images.get(2).getId(), images.get(3).getId()),
+                    events.subList(2, 4).stream().map(BatchProgressEvent::getImageId).toList());
+            // Solo se borran las transformaciones anteriores del lote que se guardo
+            verify(imageProcService).deleteReplacedTransform("old2.jpg", "out.png");
+            verify(imageProcService).deleteReplacedTransform("old3.jpg", "out.png");
+            verify(imageProcService, times(2)).deleteReplacedTransform(any(), any());
+        } finally {
+            recording.shutdown();
+        }
+    }
+
+    @Test
+    void oversizedOrEmptyBatchesAreRejected() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        TransformRequestDto transform = new TransformRequestDto();
+
+        assertThrows(IllegalArgumentException.class, () -> service.start("ana",
+                BatchTransformRequestDto.builder().imageIds(ids).transform(transform).build()));
+        assertThrows(IllegalArgumentException.class, () -> service.start("ana",
+                BatchTransformRequestDto.builder().imageIds(List.of()).transform(transform).build()));
+        assertThrows(IllegalArgumentException.class, () -> service.start("ana",
+                BatchTransformRequestDto.builder().imageIds(ids.subList(0, 1)).build()));
+        verifyNoInteractions(imageProcService);
+    }
+}
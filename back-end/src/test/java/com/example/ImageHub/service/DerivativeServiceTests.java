@@ -0,0 +1,29 @@
+package com.example.ImageHub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivativeServiceTests {
+
+    private final List<Integer> allowedSizes = List.of(160, 640, 1920);
+
+    @Test
+    void presetsKeepConfiguredOrder() {
+        Map<String, Integer> presets = DerivativeService.parsePresets(" thumb=160, full=1920 ,card=640", allowedSizes);
+
+        assertEquals(List.of("thumb", "full", "card"), List.copyOf(presets.keySet()));
+        assertEquals(1920, presets.get("full"));
+        assertTrue(DerivativeService.parsePresets("", allowedSizes).isEmpty());
+    }
+
+    @Test
+    void presetsOutsideTheRenderAllowListAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DerivativeService.parsePresets("thumb=150", allowedSizes));
+        assertThrows(IllegalArgumentException.class, () -> DerivativeService.parsePresets("thumb", allowedSizes));
+        assertThrows(IllegalArgumentException.class, () -> DerivativeService.parsePresets("thumb=abc", allowedSizes));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import com.example.ImageHub.utils.jfr.RepositoryQueryInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrRecordingServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private JfrRecordingService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stoppedRecordingContainsPipelineEvents() throws Exception {
+        service = new JfrRecordingService(dir.toString(), false, 60, 64);
+        JfrRecordingService.RecordingInfo started = service.start("prueba", "default", null);
+        assertEquals(1, service.list().size());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ImageCodec codec = new ImageCodec(registry, new DecodeMemoryBudget(registry, 64, 100, 0));
+        File png = dir.resolve("foto.png").toFile();
+        codec.encode(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), "png", EncodeOptions.DEFAULT, png);
+        codec.decode(png);
+
+        // Un repositorio cualquiera detras del mismo consejo que anade JfrConfig
+        ProxyFactory proxyFactory = new ProxyFactory((Function<UUID, String>) UUID::toString);
+        proxyFactory.addAdvice(new RepositoryQueryInterceptor("ImageMetadataRepository"));
+        UUID id = UUID.randomUUID();
+        ((Function<UUID, String>) proxyFactory.getProxy()).apply(id);
+
+        JfrRecordingService.RecordingInfo stopped = service.stop(started.id());
+        assertNotNull(stopped.file());
+        assertTrue(stopped.bytes() > 0);
+        assertTrue(service.list().isEmpty());
+        assertNull(service.stop(started.id()));
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of(stopped.file()));
+        List<RecordedEvent> codecEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.example.ImageHub.Codec"))
+                .toList();
+        assertEquals(2, codecEvents.size());
+        for (RecordedEvent event : codecEvents) {
+            assertEquals("png", event.getString("format"));
+            assertEquals(40, event.getInt("width"));
+            assertEquals(30, event.getInt("height"));
+            assertTrue(event.getLong("bytes") > 0);
+        }
+        assertTrue(events.stream().anyMatch(event ->
+                event.getEventType().getName().equals("com.example.ImageHub.RepositoryQuery")
+                        && id.toString().equals(event.getString("imageId"))
+                        && event.getString("method").equals("apply")));
+    }
+
+    @Test
+    void unknownSettingsAreRejected() {
+        service = new JfrRecordingService(dir.toString(), false, 60, 64);
+        assertThrows(IllegalArgumentException.class, () -> service.start("prueba", "custom", null));
+        assertTrue(service.list().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.dto.imgDTO.SignedUrlResponse;
+import com.example.ImageHub.model.ImageMetadata;
+import com.example.ImageHub.repository.ImageMetadataRepository;
+import com.example.ImageHub.utils.sign.UrlSigner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SignedUrlServiceTests {
+
+    private static final String SECRET = "clave-de-prueba-de-al-menos-32-bytes!";
+
+    @TempDir
+    Path root;
+
+    private final ImageMetadataRepository repository = mock(ImageMetadataRepository.class);
+
+    @Test
+    void issuedUrlResolvesToTheStoredFile() throws IOException {
+        SignedUrlService service = new SignedUrlService(repository, root.toString(), SECRET, 300, 3600, 3600);
+        UUID id = UUID.randomUUID();
+        Path file = root.resolve("ana").resolve(id.toString()).resolve("foto.jpg");
+        when(repository.findByIdAndUserName(eq(id), eq("ana"))).thenReturn(Optional.of(
+                ImageMetadata.builder().id(id).userName("ana").inputPath(file.toString()).build()));
+
+        SignedUrlResponse response = service.issue("ana", id.toString(), "input", 60L, false);
+        String token = response.getUrl().substring(SignedUrlService.PATH_PREFIX.length());
+
+        SignedUrlService.SignedFile resolved = service.resolve(token);
+        assertNotNull(resolved);
+        assertEquals(file.toAbsolutePath().normalize(), resolved.path());
+        assertFalse(resolved.attachment());
+
+        // Otra clave o un token alterado no se aceptan
+        SignedUrlService other = new SignedUrlService(repository, root.toString(), SECRET + "x", 300, 3600, 3600);
+        assertNull(other.resolve(token));
+        assertNull(service.resolve(token.substring(0, token.length() - 2) + "AA"));
+        assertThrows(IllegalArgumentException.class, () -> service.issue("ana", id.toString(), "input", 7200L, true));
+    }
+
+    @Test
+    void expiredOrEscapingTokensAreRejected() {
+        SignedUrlService service = new SignedUrlService(repository, root.toString(), SECRET, 300, 3600, 3600);
+        UrlSigner signer = new UrlSigner(SECRET.getBytes(StandardCharsets.UTF_8));
+        long future = Instant.now().getEpochSecond() + 60;
+
+        assertNull(service.resolve(signer.sign((future - 120) + "|a|ana/foto.jpg")));
+        assertNull(service.resolve(signer.sign(future + "|a|../../etc/passwd")));
+        assertNotNull(service.resolve(signer.sign(future + "|a|ana/foto.jpg")));
+    }
+
+    @Test
+    void renderTokensOnlyAuthorizeTheirRender() {
+        SignedUrlService service = new SignedUrlService(repository, root.toString(), SECRET, 300, 3600, 3600);
+        UUID id = UUID.randomUUID();
+
+        String url = service.signRender(id, 160);
+        assertTrue(url.startsWith(SignedUrlService.RENDER_PREFIX));
+        String token = url.substring(SignedUrlService.RENDER_PREFIX.length());
+
+        SignedUrlService.SignedRender render = service.resolveRender(token);
+        assertNotNull(render);
+        assertEquals(id, render.imageId());
+        assertEquals(160, render.width());
+        assertTrue(render.expiresAt() > Instant.now().getEpochSecond() + 3600 - 1);
+
+        // La URL es estable dentro de la ventana de caducidad para que el navegador la cachee
+        assertEquals(url, service.signRender(id, 160));
+
+        // Un token de render no sirve archivos y uno de archivo no sirve renders
+        assertNull(service.resolve(token));
+        UrlSigner signer = new UrlSigner(SECRET.getBytes(StandardCharsets.UTF_8));
+        assertNull(service.resolveRender(signer.sign((Instant.now().getEpochSecond() + 60) + "|a|ana/foto.jpg")));
+    }
+}
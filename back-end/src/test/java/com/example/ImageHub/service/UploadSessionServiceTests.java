@@ -0,0 +1,140 @@
+package com.example.ImageHub.service;
+
+import com.example.ImageHub.exceptions.UploadConflictException;
+import com.example.ImageHub.exceptions.UploadSessionNotFoundException;
+import com.example.ImageHub.utils.ImageValidationUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UploadSessionServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final ImageValidationUtils imageValidationUtils = mock(ImageValidationUtils.class);
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(imageValidationUtils.hasValidExtension(anyString())).thenReturn(true);
+        service = new UploadSessionService(fileStorageService, imageValidationUtils, new ObjectMapper(),
+                new SimpleMeterRegistry(), dir.toString(), 1, 24);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void interruptedChunkIsConfirmedAndUploadResumes() throws IOException {
+        byte[] data = new byte[300_000];
+        new Random(7).nextBytes(data);
+        UploadSessionService.Session session = service.create("ana", "foto.jpg", data.length);
+
+        // La conexion se corta tras 100000 bytes del primer bloque
+        assertThrows(IOException.class, () -> service.append("ana", session.id(), 0,
+                failingAfter(Arrays.copyOfRange(data, 0, 200_000), 100_000)));
+        assertEquals(100_000, service.get("ana", session.id()).offset());
+
+        UploadConflictException conflict = assertThrows(UploadConflictException.class, () ->
+                service.append("ana", session.id(), 200_000, new ByteArrayInputStream(new byte[1])));
+        assertEquals(100_000, conflict.getOffset());
+
+        service.append("ana", session.id(), 100_000,
+                new ByteArrayInputStream(Arrays.copyOfRange(data, 100_000, data.length)));
+
+        when(fileStorageService.saveUploadedFile(any(), eq("foto.jpg"), eq("ana"), anyLong()))
+                .thenAnswer(invocation -> {
+                    assertArrayEquals(data, Files.readAllBytes(invocation.getArgument(0)));
+                    return "b6f1e0a2-8d0c-4b3e-9d55-2f7c1f0e9a11";
+                });
+        assertEquals("b6f1e0a2-8d0c-4b3e-9d55-2f7c1f0e9a11", service.complete("ana", session.id()));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.get("ana", session.id()));
+    }
+
+    @Test
+    void incompleteOrForeignSessionsAreRejected() throws IOException {
+        UploadSessionService.Session session = service.create("ana", "foto.png", 10);
+
+        assertThrows(UploadConflictException.class, () -> service.complete("ana", session.id()));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.get("luis", session.id()));
+        assertThrows(IllegalArgumentException.class, () ->
+                service.append("ana", session.id(), 0, new ByteArrayInputStream(new byte[11])));
+        assertThrows(IllegalArgumentException.class, () -> service.create("ana", "foto.png", 2L * 1024 * 1024));
+
+        service.delete("ana", session.id());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void failedSaveKeepsTheSessionForAnotherAttempt() throws IOException {
+        UploadSessionService.Session session = service.create("ana", "foto.png", 4);
+        service.append("ana", session.id(), 0, new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+
+        when(fileStorageService.saveUploadedFile(any(), eq("foto.png"), eq("ana"), anyLong()))
+                .thenThrow(new IOException("BD caida"))
+                .thenReturn("b6f1e0a2-8d0c-4b3e-9d55-2f7c1f0e9a11");
+        assertThrows(IOException.class, () -> service.complete("ana", session.id()));
+        assertTrue(Files.exists(dir.resolve(session.id() + ".part")));
+
+        assertEquals("b6f1e0a2-8d0c-4b3e-9d55-2f7c1f0e9a11", service.complete("ana", session.id()));
+        assertFalse(Files.exists(dir.resolve(session.id() + ".part")));
+        assertEquals(0, service.lockCount());
+    }
+
+    @Test
+    void unknownSessionsDoNotLeaveLocksBehind() throws IOException {
+        UploadSessionService.Session session = service.create("ana", "foto.png", 4);
+        for (int i = 0; i < 100; i++) {
+            String id = String.format("%032x", i);
+            assertThrows(UploadSessionNotFoundException.class, () -> service.append("ana", id, 0,
+                    new ByteArrayInputStream(new byte[1])));
+        }
+        assertThrows(UploadSessionNotFoundException.class, () -> service.delete("ana", "../../etc/passwd"));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.complete("luis", session.id()));
+        assertEquals(1, service.lockCount());
+
+        service.delete("ana", session.id());
+        assertEquals(0, service.lockCount());
+    }
+
+    private static InputStream failingAfter(byte[] data, int limit) {
+        ByteArrayInputStream input = new ByteArrayInputStream(data, 0, limit);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = input.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("conexion cortada");
+                }
+                return read;
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.ImageHub.utils.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveReaderTests {
+
+    private static final String LONG_NAME = "fotos/" + "a".repeat(120) + ".jpg";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTarEntriesIncludingLongNames() throws IOException {
+        byte[] tar = tar();
+        assertEquals(List.of("fotos/|d", "fotos/uno.jpg|1000", LONG_NAME + "|3"), read(tar));
+    }
+
+    @Test
+    void unreadDataIsSkippedBetweenEntries() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(tar()))) {
+            ArchiveReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                names.add(entry.name());
+            }
+        }
+        assertEquals(List.of("fotos/", "fotos/uno.jpg", LONG_NAME), names);
+    }
+
+    @Test
+    void readsGzippedTarAndZip() throws IOException {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+            output.write(tar());
+        }
+        assertEquals(List.of("fotos/|d", "fotos/uno.jpg|1000", LONG_NAME + "|3"), read(gzip.toByteArray()));
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream output = new ZipOutputStream(zip)) {
+            output.putNextEntry(new ZipEntry("fotos/"));
+            output.putNextEntry(new ZipEntry("fotos/uno.jpg"));
+            output.write(data(1000));
+            output.putNextEntry(new ZipEntry("dos.png"));
+            output.write(data(3));
+        }
+        assertEquals(List.of("fotos/|d", "fotos/uno.jpg|1000", "dos.png|3"), read(zip.toByteArray()));
+    }
+
+    @Test
+    void readsAnExportedZip() throws IOException {
+        Path first = Files.write(dir.resolve("uno.jpg"), data(1000));
+        Path second = Files.write(dir.resolve("dos.png"), data(70_000));
+        StreamingZip export = new StreamingZip(List.of(
+                new StreamingZip.Entry("a/uno.jpg", first, 1000, 0),
+                new StreamingZip.Entry("b/dos.png", second, 70_000, 0)), null);
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        export.write(zip, 0, export.getLength() - 1);
+
+        assertEquals(List.of("a/uno.jpg|1000", "b/dos.png|70000"), read(zip.toByteArray()));
+    }
+
+    @Test
+    void oversizedAuxiliaryHeaderIsRejected() throws IOException {
+        // Declara 3 GB de nombre largo sin enviarlos
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        header(tar, "././@LongLink", 'L', 3_000_000_000L);
+        tar.write(new byte[1024]);
+
+        try (ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(tar.toByteArray()))) {
+            IOException error = assertThrows(IOException.class, reader::next);
+            assertTrue(error.getMessage().contains("3000000000"));
+        }
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        byte[] text = "no es un archivo".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> ArchiveReader.open(new ByteArrayInputStream(text)));
+    }
+
+    // Nombre y bytes leidos de cada entrada ("d" para las que no son archivos)
+    private static List<String> read(byte[] archive) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(archive))) {
+            ArchiveReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (!entry.file()) {
+                    entries.add(entry.name() + "|d");
+                    continue;
+                }
+                try (InputStream data = reader.data()) {
+                    byte[] content = data.readAllBytes();
+                    assertArrayEquals(data(content.length), content);
+                    entries.add(entry.name() + "|" + content.length);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] tar() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        entry(tar, "fotos/", '5', new byte[0]);
+        entry(tar, "fotos/uno.jpg", '0', data(1000));
+        byte[] longName = (LONG_NAME + "\0").getBytes(StandardCharsets.UTF_8);
+        entry(tar, "././@LongLink", 'L', longName);
+        entry(tar, LONG_NAME.substring(0, 99), '0', data(3));
+        tar.write(new byte[1024]);
+        return tar.toByteArray();
+    }
+
+    private static void entry(ByteArrayOutputStream tar, String name, char type, byte[] data) throws IOException {
+        header(tar, name, type, data.length);
+        tar.write(data);
+        tar.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void header(ByteArrayOutputStream tar, String name, char type, long size) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", size));
+        put(header, 136, String.format("%011o", 0));
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o", sum));
+        tar.write(header);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.ImageHub.utils.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingZipTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void archiveIsReadableAndMatchesTheDeclaredLength() throws IOException {
+        List<StreamingZip.Entry> entries = entries();
+        StreamingZip zip = new StreamingZip(entries, null);
+
+        byte[] archive = write(zip, 0, zip.getLength() - 1);
+        assertEquals(zip.getLength(), archive.length);
+
+        Path file = dir.resolve("export.zip");
+        Files.write(file, archive);
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            assertEquals(3, zipFile.size());
+            for (StreamingZip.Entry entry : entries) {
+                ZipEntry zipEntry = zipFile.getEntry(entry.name());
+                byte[] expected = Files.readAllBytes(entry.path());
+                assertEquals(ZipEntry.STORED, zipEntry.getMethod());
+                assertEquals(crc(expected), zipEntry.getCrc());
+                try (InputStream input = zipFile.getInputStream(zipEntry)) {
+                    assertArrayEquals(expected, input.readAllBytes());
+                }
+            }
+        }
+    }
+
+    @Test
+    void archiveIsReadableAsAStream() throws IOException {
+        List<StreamingZip.Entry> entries = entries();
+        StreamingZip zip = new StreamingZip(entries, null);
+
+        // Un lector en streaming necesita CRC y tamanos en la cabecera local
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(write(zip, 0, zip.getLength() - 1)))) {
+            for (StreamingZip.Entry entry : entries) {
+                ZipEntry zipEntry = input.getNextEntry();
+                assertNotNull(zipEntry);
+                assertEquals(entry.name(), zipEntry.getName());
+                assertArrayEquals(Files.readAllBytes(entry.path()), input.readAllBytes());
+            }
+            assertNull(input.getNextEntry());
+        }
+    }
+
+    @Test
+    void resumedRangeContinuesTheSameBytes() throws IOException {
+        List<StreamingZip.Entry> entries = entries();
+        Path manifest = dir.resolve("export.crc");
+        StreamingZip first = new StreamingZip(entries, manifest);
+        byte[] full = write(new StreamingZip(entries, null), 0, first.getLength() - 1);
+
+        // Se corta a mitad de los datos de la segunda entrada
+        long cut = 30 + entries.get(0).name().length() + entries.get(0).size() + 40;
+        ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+        resumed.write(write(first, 0, cut - 1));
+        resumed.write(write(new StreamingZip(entries, manifest), cut, first.getLength() - 1));
+        assertArrayEquals(full, resumed.toByteArray());
+
+        // Sin manifiesto los CRC que faltan se recalculan leyendo los archivos
+        StreamingZip cold = new StreamingZip(entries, null);
+        long tail = first.getLength() - 200;
+        byte[] expectedTail = new byte[200];
+        System.arraycopy(full, (int) tail, expectedTail, 0, 200);
+        assertArrayEquals(expectedTail, write(cold, tail, first.getLength() - 1));
+    }
+
+    @Test
+    void rangesOutsideTheArchiveAreRejected() throws IOException {
+        StreamingZip zip = new StreamingZip(entries(), null);
+        assertThrows(IllegalArgumentException.class, () -> write(zip, 0, zip.getLength()));
+        assertThrows(IllegalArgumentException.class, () -> write(zip, 10, 5));
+    }
+
+    private List<StreamingZip.Entry> entries() throws IOException {
+        Random random = new Random(42);
+        List<StreamingZip.Entry> entries = new ArrayList<>();
+        int[] sizes = {1_000, 150_000, 0};
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] data = new byte[sizes[i]];
+            random.nextBytes(data);
+            Path file = dir.resolve("image" + i + ".jpg");
+            Files.write(file, data);
+            entries.add(new StreamingZip.Entry("id" + i + "/image" + i + ".jpg", file, data.length,
+                    Files.getLastModifiedTime(file).toMillis()));
+        }
+        return entries;
+    }
+
+    private static byte[] write(StreamingZip zip, long start, long end) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        zip.write(output, start, end);
+        return output.toByteArray();
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.ImageHub.utils.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobSegmentStoreTests {
+
+    // Cada blob de prueba ocupa unos 1 000 bytes; caben cuatro por segmento
+    private static final long SEGMENT_BYTES = 4_200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storedBlobIsReadFromMapping() throws IOException {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            store.put("a/thumb.jpg", blob(1));
+            store.put("b/thumb.jpg", blob(2));
+
+            assertArrayEquals(blob(1), bytes(store.get("a/thumb.jpg")));
+            assertArrayEquals(blob(2), bytes(store.get("b/thumb.jpg")));
+            assertTrue(store.get("a/thumb.jpg").isReadOnly());
+            assertNull(store.get("c/thumb.jpg"));
+        }
+    }
+
+    @Test
+    void indexIsRebuiltOnReopen() throws IOException {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 6; i++) {
+                store.put("img" + i + "/card.png", blob(i));
+            }
+            store.put("img0/card.png", blob(9));
+            store.deleteByPrefix("img1/");
+        }
+
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(5, store.getBlobCount());
+            assertArrayEquals(blob(9), bytes(store.get("img0/card.png")));
+            assertNull(store.get("img1/card.png"));
+            assertArrayEquals(blob(5), bytes(store.get("img5/card.png")));
+        }
+    }
+
+    @Test
+    void compactionReclaimsDeletedBlobs() throws IOException {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 8; i++) {
+                store.put("img" + i + "/thumb.jpg", blob(i));
+            }
+            store.deleteByPrefix("img0/");
+            store.deleteByPrefix("img1/");
+            store.deleteByPrefix("img2/");
+
+            assertTrue(store.compact(0.5) > 0);
+            assertArrayEquals(blob(3), bytes(store.get("img3/thumb.jpg")));
+            assertArrayEquals(blob(7), bytes(store.get("img7/thumb.jpg")));
+            assertFalse(Files.exists(dir.resolve("segment-00000001.dat")));
+        }
+
+        // Los borrados siguen vigentes tras compactar y reabrir
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            assertEquals(5, store.getBlobCount());
+            assertNull(store.get("img0/thumb.jpg"));
+            assertArrayEquals(blob(3), bytes(store.get("img3/thumb.jpg")));
+        }
+    }
+
+    @Test
+    void activeSegmentIsReadWhileItGrows() throws IOException {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            for (int i = 0; i < 6; i++) {
+                store.put("img" + i + "/thumb.jpg", blob(i));
+                assertArrayEquals(blob(i), bytes(store.get("img" + i + "/thumb.jpg")));
+                assertArrayEquals(blob(0), bytes(store.get("img0/thumb.jpg")));
+            }
+        }
+
+        // Al cerrar se recorta el espacio reservado por el mapeo del segmento activo
+        assertTrue(Files.size(dir.resolve("segment-00000002.dat")) < SEGMENT_BYTES);
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            assertEquals(6, store.getBlobCount());
+            assertArrayEquals(blob(5), bytes(store.get("img5/thumb.jpg")));
+        }
+    }
+
+    @Test
+    void readsDuringCompactionNeverSeeAClosedSegment() throws Exception {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        ByteBuffer data = store.get("live/thumb.jpg");
+                        if (data != null && data.remaining() != 1_000) {
+                            throw new IllegalStateException("Lectura incompleta");
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                        return;
+                    }
+                }
+            });
+            reader.start();
+
+            for (int round = 0; round < 50; round++) {
+                store.put("live/thumb.jpg", blob(round));
+                for (int i = 0; i < 4; i++) {
+                    store.put("tmp" + i + "/thumb.jpg", blob(i));
+                }
+                store.deleteByPrefix("tmp");
+                store.compact(0.5);
+            }
+            running.set(false);
+            reader.join();
+
+            assertNull(failure.get());
+            assertArrayEquals(blob(49), bytes(store.get("live/thumb.jpg")));
+        }
+    }
+
+    @Test
+    void truncatedTailIsDiscarded() throws IOException {
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            store.put("a/thumb.jpg", blob(1));
+            store.put("b/thumb.jpg", blob(2));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        try (BlobSegmentStore store = new BlobSegmentStore(dir, SEGMENT_BYTES)) {
+            assertArrayEquals(blob(1), bytes(store.get("a/thumb.jpg")));
+            assertNull(store.get("b/thumb.jpg"));
+
+            store.put("c/thumb.jpg", blob(3));
+            assertArrayEquals(blob(3), bytes(store.get("c/thumb.jpg")));
+        }
+    }
+
+    private static byte[] blob(int seed) {
+        byte[] data = new byte[1_000];
+        Arrays.fill(data, (byte) seed);
+        data[0] = (byte) (seed * 31);
+        return data;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+}
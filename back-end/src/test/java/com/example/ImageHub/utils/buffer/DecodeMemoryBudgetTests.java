@@ -0,0 +1,47 @@
+package com.example.ImageHub.utils.buffer;
+
+import com.example.ImageHub.exceptions.DecodeBudgetExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodeMemoryBudgetTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    // 8 MB de presupuesto, 1 megapixel por imagen, 50 ms de espera
+    private final DecodeMemoryBudget budget = new DecodeMemoryBudget(registry, 8, 1, 50);
+
+    @Test
+    void oversizedDimensionsAreRejectedBeforeDecoding() {
+        assertDoesNotThrow(() -> budget.checkDimensions(1000, 1000));
+        assertThrows(IllegalArgumentException.class, () -> budget.checkDimensions(1001, 1000));
+        assertThrows(IllegalArgumentException.class, () -> budget.checkDimensions(0, 10));
+    }
+
+    @Test
+    void permitsAreReleasedOnClose() {
+        try (DecodeMemoryBudget.Permit permit = budget.acquirePixels(1_000_000)) {
+            assertEquals(4_000_000, budget.getUsedBytes());
+            permit.close();
+            assertEquals(0, budget.getUsedBytes());
+        }
+        assertEquals(0, budget.getUsedBytes());
+    }
+
+    @Test
+    void saturatedBudgetTimesOut() {
+        try (DecodeMemoryBudget.Permit held = budget.acquire(6 * 1024 * 1024)) {
+            assertThrows(DecodeBudgetExceededException.class, () -> budget.acquire(4 * 1024 * 1024));
+            assertEquals(1.0, registry.counter("imagehub.decode.budget.rejections").count());
+        }
+        try (DecodeMemoryBudget.Permit permit = budget.acquire(4 * 1024 * 1024)) {
+            assertEquals(4 * 1024 * 1024, budget.getUsedBytes());
+        }
+    }
+
+    @Test
+    void requestLargerThanCapacityFailsImmediately() {
+        assertThrows(IllegalArgumentException.class, () -> budget.acquire(9L * 1024 * 1024));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ImageHub.utils.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewProxyCacheTests {
+
+    // Cada proxy de 100x100 ocupa 40 000 bytes; caben dos
+    private final PreviewProxyCache cache = new PreviewProxyCache(100_000);
+
+    @Test
+    void leastRecentlyUsedProxyIsEvicted() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+
+        cache.put(a, proxy(1));
+        cache.put(b, proxy(1));
+        assertNotNull(cache.get(a, 1));
+        cache.put(c, proxy(1));
+
+        assertNotNull(cache.get(a, 1));
+        assertNull(cache.get(b, 1));
+        assertNotNull(cache.get(c, 1));
+        assertEquals(80_000, cache.getUsedBytes());
+    }
+
+    @Test
+    void staleVersionIsDropped() {
+        UUID id = UUID.randomUUID();
+        cache.put(id, proxy(1));
+
+        assertNull(cache.get(id, 2));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    private PreviewProxyCache.Proxy proxy(long version) {
+        return new PreviewProxyCache.Proxy(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), version);
+    }
+}
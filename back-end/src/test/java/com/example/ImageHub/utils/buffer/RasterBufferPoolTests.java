@@ -0,0 +1,69 @@
+package com.example.ImageHub.utils.buffer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RasterBufferPoolTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RasterBufferPool pool = new RasterBufferPool(registry, 64, 2);
+
+    @Test
+    void buffersAreReusedAcrossScopes() {
+        int[] first;
+        try (BufferScope scope = pool.openScope()) {
+            BufferedImage image = scope.allocate(300, 200, false);
+            assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+            image.setRGB(10, 10, 0xffffff);
+            first = ((java.awt.image.DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        assertTrue(pool.getPooledBytes() > 0);
+
+        try (BufferScope scope = pool.openScope()) {
+            BufferedImage image = scope.allocate(290, 205, true);
+            assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+            assertSame(first, ((java.awt.image.DataBufferInt) image.getRaster().getDataBuffer()).getData());
+            assertEquals(0, image.getRGB(10, 10));
+        }
+        assertEquals(1.0, registry.counter("imagehub.buffer.pool.hits").count());
+    }
+
+    @Test
+    void poolIsBoundedPerSize() {
+        try (BufferScope scope = pool.openScope()) {
+            for (int i = 0; i < 5; i++) {
+                scope.allocate(256, 256, false);
+            }
+        }
+        assertEquals(2L * 4 * 256 * 256, pool.getPooledBytes());
+    }
+
+    @Test
+    void unclosedScopeIsReportedAsLeak() throws InterruptedException {
+        leakScope();
+        for (int i = 0; i < 50 && registry.counter("imagehub.buffer.pool.leaks").count() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(1.0, registry.counter("imagehub.buffer.pool.leaks").count());
+    }
+
+    private void leakScope() {
+        pool.openScope().allocate(512, 512, false);
+    }
+
+    @Test
+    void sizeClassesWasteAtMostAQuarter() {
+        assertEquals(1 << 16, RasterBufferPool.sizeClass(1 << 16));
+        assertEquals(5 << 14, RasterBufferPool.sizeClass((1 << 16) + 1));
+        for (int pixels = 4; pixels < 5_000_000; pixels += 9973) {
+            int size = RasterBufferPool.sizeClass(pixels);
+            assertTrue(size >= pixels && size <= pixels * 1.25 + 1);
+            assertEquals(size, RasterBufferPool.sizeClass(size));
+        }
+    }
+}
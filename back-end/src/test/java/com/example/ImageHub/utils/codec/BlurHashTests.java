@@ -0,0 +1,54 @@
+package com.example.ImageHub.utils.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlurHashTests {
+
+    @Test
+    void solidColorHasOnlyTheAverage() {
+        BufferedImage red = image(new Color(255, 0, 0), new Color(255, 0, 0));
+
+        // Bandera 1x1, maximo 0 y 0xFF0000 en cuatro digitos base 83
+        assertEquals("00TI:j", BlurHash.encode(red, 1, 1));
+    }
+
+    @Test
+    void lengthDependsOnTheComponents() {
+        BufferedImage gradient = image(Color.BLACK, Color.WHITE);
+
+        String hash = BlurHash.encode(gradient, 4, 3);
+        assertEquals(28, hash.length());
+        // Primer caracter: (4 - 1) + (3 - 1) * 9 = 21
+        assertEquals('L', hash.charAt(0));
+        assertEquals(hash, BlurHash.encode(gradient, 4, 3));
+    }
+
+    @Test
+    void horizontalGradientDiffersFromItsMirror() {
+        assertNotEquals(BlurHash.encode(image(Color.BLACK, Color.WHITE), 4, 3),
+                BlurHash.encode(image(Color.WHITE, Color.BLACK), 4, 3));
+    }
+
+    @Test
+    void componentsOutOfRangeAreRejected() {
+        BufferedImage image = image(Color.BLACK, Color.WHITE);
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 4, 10));
+    }
+
+    private static BufferedImage image(Color left, Color right) {
+        BufferedImage image = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, left, 32, 0, right));
+        graphics.fillRect(0, 0, 32, 24);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.ImageHub.utils.codec;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageCodecTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ImageCodec codec = new ImageCodec(registry, new DecodeMemoryBudget(registry, 64, 100, 0));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readersAndWritersAreReusedPerThread() throws IOException {
+        byte[] png = encode(gradient(32, 32), "png", EncodeOptions.DEFAULT);
+        ImageWriter writer = ImageCodec.pooledWriter("png");
+        assertNotNull(writer);
+        encode(gradient(16, 16), "png", EncodeOptions.DEFAULT);
+        assertSame(writer, ImageCodec.pooledWriter("png"));
+
+        codec.decode(new ByteArrayInputStream(png));
+        ImageReader reader = ImageCodec.pooledReader("png");
+        assertNotNull(reader);
+        codec.decode(new ByteArrayInputStream(png));
+        assertSame(reader, ImageCodec.pooledReader("png"));
+
+        // Cada hilo tiene su propio pool
+        ImageWriter[] other = new ImageWriter[1];
+        Thread thread = new Thread(() -> other[0] = ImageCodec.pooledWriter("png"));
+        thread.start();
+        assertDoesNotThrow(() -> thread.join());
+        assertNull(other[0]);
+    }
+
+    @Test
+    void failedReaderIsDisposedAndReplaced() throws IOException {
+        byte[] png = encode(gradient(64, 64), "png", EncodeOptions.DEFAULT);
+        codec.decode(new ByteArrayInputStream(png));
+        ImageReader reader = ImageCodec.pooledReader("png");
+
+        // Firma y cabecera validas, sin datos de imagen: falla dentro de read()
+        byte[] truncated = Arrays.copyOf(png, 40);
+        assertThrows(IOException.class, () -> codec.decode(new ByteArrayInputStream(truncated)));
+        assertNull(ImageCodec.pooledReader("png"));
+
+        codec.decode(new ByteArrayInputStream(png));
+        assertNotSame(reader, ImageCodec.pooledReader("png"));
+    }
+
+    @Test
+    void failedWriterIsDisposedAndReplaced() throws IOException {
+        encode(gradient(32, 32), "png", EncodeOptions.DEFAULT);
+        ImageWriter writer = ImageCodec.pooledWriter("png");
+
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disco lleno");
+            }
+        };
+        assertThrows(IOException.class, () -> codec.encode(gradient(32, 32), "png", EncodeOptions.DEFAULT, broken));
+        assertNull(ImageCodec.pooledWriter("png"));
+
+        encode(gradient(32, 32), "png", EncodeOptions.DEFAULT);
+        assertNotSame(writer, ImageCodec.pooledWriter("png"));
+    }
+
+    @Test
+    void jpegQualityIsApplied() throws IOException {
+        BufferedImage image = noise(128, 128);
+        byte[] low = encode(image, "jpg", new EncodeOptions(0.2f, false, 6));
+        byte[] high = encode(image, "jpg", new EncodeOptions(0.95f, false, 6));
+
+        assertTrue(low.length * 2 < high.length);
+    }
+
+    @Test
+    void pngCompressionLevelIsApplied() throws IOException {
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                image.setRGB(x, y, (x / 8 + y / 8) % 2 == 0 ? 0xffffff : 0x204080);
+            }
+        }
+        byte[] stored = encode(image, "png", new EncodeOptions(0.85f, false, 0));
+        byte[] deflated = encode(image, "png", new EncodeOptions(0.85f, false, 9));
+
+        // Nivel 0 guarda los bloques sin comprimir
+        assertTrue(stored.length > 256 * 256 * 3);
+        assertTrue(deflated.length * 10 < stored.length);
+    }
+
+    @Test
+    void progressiveModeIsApplied() throws IOException {
+        BufferedImage image = gradient(64, 64);
+
+        // SOF2 marca un JPEG progresivo y SOF0 uno secuencial
+        assertTrue(containsMarker(encode(image, "jpg", new EncodeOptions(0.85f, true, 6)), 0xC2));
+        assertTrue(containsMarker(encode(image, "jpg", new EncodeOptions(0.85f, false, 6)), 0xC0));
+
+        // Byte de entrelazado de la cabecera IHDR: 1 = Adam7
+        assertEquals(1, encode(image, "png", new EncodeOptions(0.85f, true, 6))[28]);
+        assertEquals(0, encode(image, "png", new EncodeOptions(0.85f, false, 6))[28]);
+    }
+
+    @Test
+    void transparentPixelsAreFlattenedOnWhite() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0x00000000);
+        image.setRGB(1, 0, 0xff204080);
+
+        BufferedImage flattened = ImageCodec.flatten(image);
+        assertFalse(flattened.getColorModel().hasAlpha());
+        assertEquals(0xffffffff, flattened.getRGB(0, 0));
+        assertEquals(0xff204080, flattened.getRGB(1, 0));
+
+        BufferedImage opaque = gradient(4, 4);
+        assertSame(opaque, ImageCodec.flatten(opaque));
+    }
+
+    @Test
+    void formatWithoutWriterFailsExplicitly() {
+        IOException error = assertThrows(IOException.class,
+                () -> encode(gradient(8, 8), "heic", EncodeOptions.DEFAULT));
+        assertTrue(error.getMessage().contains("heic"));
+    }
+
+    @Test
+    void fileIsReplacedOnlyWhenEncodingSucceeds() throws IOException {
+        File target = dir.resolve("thumb.png").toFile();
+        long bytes = codec.encode(gradient(32, 32), "png", EncodeOptions.DEFAULT, target);
+        assertEquals(bytes, target.length());
+        byte[] previous = Files.readAllBytes(target.toPath());
+
+        // Un fallo a mitad deja intacto el archivo anterior y no deja temporales
+        assertThrows(IOException.class, () -> codec.encode(gradient(8, 8), "heic", EncodeOptions.DEFAULT, target));
+        assertArrayEquals(previous, Files.readAllBytes(target.toPath()));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+
+        codec.encode(gradient(16, 16), "png", EncodeOptions.DEFAULT, target);
+        assertEquals(16, ImageIO.read(target).getWidth());
+    }
+
+    private byte[] encode(BufferedImage image, String format, EncodeOptions options) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long bytes = codec.encode(image, format, options, output);
+        assertEquals(bytes, output.size());
+        return output.toByteArray();
+    }
+
+    private static boolean containsMarker(byte[] jpeg, int marker) {
+        for (int i = 0; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xff) == 0xff && (jpeg[i + 1] & 0xff) == marker) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BufferedImage gradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+}
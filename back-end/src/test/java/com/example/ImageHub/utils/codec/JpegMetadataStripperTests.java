@@ -0,0 +1,95 @@
+package com.example.ImageHub.utils.codec;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JpegMetadataStripperTests {
+
+    @Test
+    void metadataIsRemovedButOrientationIsKept() throws IOException {
+        byte[] original = withMetadata(encodeJpeg(), Orientation.ROTATE_90);
+        assertEquals(Orientation.ROTATE_90, readOrientation(original));
+
+        ByteArrayOutputStream stripped = new ByteArrayOutputStream();
+        long removed = JpegMetadataStripper.strip(new ByteArrayInputStream(original), stripped);
+
+        byte[] result = stripped.toByteArray();
+        assertTrue(removed > 0);
+        assertTrue(result.length < original.length);
+        assertEquals(Orientation.ROTATE_90, readOrientation(result));
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result));
+        assertNotNull(decoded);
+        assertEquals(16, decoded.getWidth());
+        assertEquals(8, decoded.getHeight());
+    }
+
+    @Test
+    void imagesWithoutExifAreNormal() throws IOException {
+        assertEquals(Orientation.NORMAL, readOrientation(encodeJpeg()));
+    }
+
+    @Test
+    void segmentShorterThanItsLengthFieldIsRejected() throws IOException {
+        byte[] jpeg = encodeJpeg();
+        ByteArrayOutputStream malformed = new ByteArrayOutputStream();
+        malformed.write(jpeg, 0, 2);
+        malformed.write(new byte[]{(byte) 0xFF, (byte) 0xE1, 0, 1});
+        malformed.write(jpeg, 2, jpeg.length - 2);
+
+        assertThrows(IOException.class, () -> JpegMetadataStripper.strip(
+                new ByteArrayInputStream(malformed.toByteArray()), new ByteArrayOutputStream()));
+    }
+
+    private static byte[] encodeJpeg() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB), "jpeg", output);
+        return output.toByteArray();
+    }
+
+    // Inserta tras SOI un APP1 EXIF little-endian con orientacion y relleno, y un comentario
+    private static byte[] withMetadata(byte[] jpeg, Orientation orientation) {
+        byte[] exif = new byte[2048];
+        byte[] header = {
+                'E', 'x', 'i', 'f', 0, 0,
+                'I', 'I', 42, 0, 8, 0, 0, 0,
+                1, 0,
+                0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation.getExifValue(), 0, 0, 0,
+                0, 0, 0, 0
+        };
+        System.arraycopy(header, 0, exif, 0, header.length);
+        byte[] comment = "generado por la prueba".getBytes();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(jpeg, 0, 2);
+        writeSegment(output, 0xE1, exif);
+        writeSegment(output, 0xFE, comment);
+        output.write(jpeg, 2, jpeg.length - 2);
+        return output.toByteArray();
+    }
+
+    private static void writeSegment(ByteArrayOutputStream output, int marker, byte[] payload) {
+        int length = payload.length + 2;
+        output.write(0xFF);
+        output.write(marker);
+        output.write(length >> 8);
+        output.write(length);
+        output.write(payload, 0, payload.length);
+    }
+
+    private static Orientation readOrientation(byte[] jpeg) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg))) {
+            Orientation orientation = Orientation.read(input);
+            assertEquals(0, input.getStreamPosition());
+            return orientation;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ImageHub.utils.codec;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngOptimizerTests {
+
+    @Test
+    void fewColorsAreWrittenAsPaletteAndDecodeIdentically() throws IOException {
+        BufferedImage image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB);
+        int[] colors = {0xffff0000, 0xff00ff00, 0x800000ff, 0x00000000, 0xffffffff};
+        for (int y = 0; y < 80; y++) {
+            for (int x = 0; x < 120; x++) {
+                image.setRGB(x, y, colors[(x / 7 + y / 5) % colors.length]);
+            }
+        }
+
+        PngOptimizer.Result result = PngOptimizer.optimize(image, 9);
+
+        assertEquals(PngOptimizer.ColorType.PALETTE, result.getColorType());
+        assertEquals(4, result.getBitDepth());
+        assertTrue(result.getData().length < imageIoSize(image));
+        assertTrue(result.getSavedBytes() > 0);
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(result.getData())));
+    }
+
+    @Test
+    void opaqueGrayImageDropsColorAndAlpha() throws IOException {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                int v = (x * 4 + y) & 0xff;
+                image.setRGB(x, y, 0xff000000 | v << 16 | v << 8 | v);
+            }
+        }
+
+        PngOptimizer.Result result = PngOptimizer.optimize(image, 6);
+
+        assertEquals(PngOptimizer.ColorType.GRAY, result.getColorType());
+        // ImageIO aplica una conversion de espacio de color al leer gris: se comparan las muestras
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(result.getData()));
+        assertEquals(1, decoded.getRaster().getNumBands());
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                assertEquals(image.getRGB(x, y) & 0xff, decoded.getRaster().getSample(x, y, 0));
+            }
+        }
+    }
+
+    @Test
+    void noisyImageFallsBackToTrueColorWithoutGrowing() throws IOException {
+        BufferedImage image = new BufferedImage(50, 40, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 50; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+
+        PngOptimizer.Result result = PngOptimizer.optimize(image, 6);
+
+        assertEquals(PngOptimizer.ColorType.RGB, result.getColorType());
+        assertTrue(result.getSavedBytes() >= 0);
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(result.getData())));
+    }
+
+    private static long imageIoSize(BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.size();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int e = expected.getRGB(x, y);
+                int a = actual.getRGB(x, y);
+                if ((e >>> 24) == 0) {
+                    assertEquals(0, a >>> 24, "alfa en " + x + "," + y);
+                } else {
+                    assertEquals(e, a, "pixel en " + x + "," + y);
+                }
+            }
+        }
+    }
+}
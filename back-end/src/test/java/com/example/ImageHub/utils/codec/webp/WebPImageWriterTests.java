@@ -0,0 +1,87 @@
+package com.example.ImageHub.utils.codec.webp;
+
+import com.example.ImageHub.utils.buffer.DecodeMemoryBudget;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.ImageCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebPImageWriterTests {
+
+    @Test
+    void writerIsRegisteredInImageIO() {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("webp");
+        assertTrue(writers.hasNext());
+        assertInstanceOf(WebPImageWriter.class, writers.next());
+    }
+
+    @Test
+    void losslessFileHasValidContainerAndHeader() throws IOException {
+        BufferedImage image = new BufferedImage(300, 17, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x % 40 < 20) ? 0x80ff8000 : 0xff0000ff);
+            }
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "webp", output));
+        ByteBuffer file = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals("RIFF", fourCc(file, 0));
+        assertEquals(file.capacity() - 8, file.getInt(4));
+        assertEquals("WEBP", fourCc(file, 8));
+        assertEquals("VP8L", fourCc(file, 12));
+        assertEquals(0x2F, file.get(20) & 0xFF);
+
+        int header = file.getInt(21);
+        assertEquals(300, (header & 0x3FFF) + 1);
+        assertEquals(17, ((header >>> 14) & 0x3FFF) + 1);
+        assertEquals(1, (header >>> 28) & 1);
+
+        // Patron repetitivo: LZ77 debe dejarlo muy por debajo del tamano sin comprimir
+        assertTrue(file.capacity() < 300 * 17 / 4);
+    }
+
+    @Test
+    void imageCodecEncodesWithExplicitEffort() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ImageCodec codec = new ImageCodec(registry, new DecodeMemoryBudget(registry, 64, 100, 0));
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+
+        // El modo explicito borra el tipo de compresion; el codec debe volver a fijarlo
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertTrue(codec.encode(image, "webp", EncodeOptions.DEFAULT, output) > 0);
+        assertEquals("WEBP", fourCc(ByteBuffer.wrap(output.toByteArray()), 8));
+    }
+
+    @Test
+    void prefixCodingRoundTrips() {
+        for (int value = 1; value <= 4096; value++) {
+            int code = VP8LEncoder.prefixCode(value);
+            int extraBits = VP8LEncoder.prefixExtraBits(value);
+            int decoded = code < 4 ? code + 1
+                    : ((2 + (code & 1)) << ((code - 2) >> 1)) + VP8LEncoder.prefixExtra(value) + 1;
+            assertEquals(code < 4 ? 0 : (code - 2) >> 1, extraBits);
+            assertEquals(value, decoded);
+        }
+    }
+
+    private static String fourCc(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[4];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ImageHub.utils.plan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderSpecTests {
+
+    private final TransformPlanner planner = new TransformPlanner();
+
+    @Test
+    void equivalentRequestsShareCanonicalKey() {
+        RenderSpec a = RenderSpec.of(320, null, "cover", "JPEG", null, "png");
+        RenderSpec b = RenderSpec.of(320, 0, null, "jpg", 85, "png");
+        assertEquals(a.canonicalKey(), b.canonicalKey());
+        assertEquals("w320-h0-contain-q85.jpg", a.canonicalKey());
+
+        // La calidad no cuenta en formatos sin perdida
+        assertEquals(RenderSpec.of(640, 640, "fill", "png", 50, "jpg").canonicalKey(),
+                RenderSpec.of(640, 640, "fill", null, 95, "png").canonicalKey());
+    }
+
+    @Test
+    void containNeverUpscales() {
+        TransformPlan plan = plan(RenderSpec.of(640, 640, null, null, null, "png"), 2000, 1000);
+        assertEquals(640, plan.getOutputWidth());
+        assertEquals(320, plan.getOutputHeight());
+
+        assertTrue(RenderSpec.of(1920, null, null, null, null, "png").toOperations(800, 600).isEmpty());
+    }
+
+    @Test
+    void coverCropsCenteredToTheBox() {
+        RenderSpec spec = RenderSpec.of(320, 320, "cover", null, null, "png");
+        List<Operation> operations = spec.toOperations(2000, 1000);
+
+        assertEquals(Operation.Type.CROP, operations.get(0).getType());
+        assertEquals(500, operations.get(0).getX());
+        assertEquals(1000, operations.get(0).getWidth());
+
+        TransformPlan plan = plan(spec, 2000, 1000);
+        assertEquals(320, plan.getOutputWidth());
+        assertEquals(320, plan.getOutputHeight());
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RenderSpec.of(320, null, "stretch", null, null, "png"));
+        assertThrows(IllegalArgumentException.class, () -> RenderSpec.of(320, null, null, "tiff", null, "png"));
+        assertThrows(IllegalArgumentException.class, () -> RenderSpec.of(320, null, null, "jpg", 101, "png"));
+        assertThrows(IllegalArgumentException.class, () -> RenderSpec.of(-1, null, null, null, null, "png"));
+    }
+
+    @Test
+    void negotiationPicksCompactFormatAndWidth() {
+        List<Integer> sizes = List.of(160, 320, 640, 1024);
+        List<Integer> qualities = List.of(50, 85);
+
+        ClientHints modern = hints(Map.of("Accept", "image/avif,image/webp,*/*;q=0.8", "Sec-CH-Width", "500"));
+        RenderSpec png = RenderSpec.negotiate(modern, "png", sizes, qualities);
+        assertEquals("w640-h0-contain-q0.webp", png.canonicalKey());
+
+        // El WebP sin perdida no mejora un JPEG: la fuente con perdida sigue en JPEG
+        RenderSpec jpeg = RenderSpec.negotiate(modern, "jpeg", sizes, qualities);
+        assertEquals("w640-h0-contain-q85.jpg", jpeg.canonicalKey());
+
+        // Sin hints ni formatos mejores se sirve el original
+        assertNull(RenderSpec.negotiate(hints(Map.of("Accept", "*/*")), "png", sizes, qualities));
+        assertNull(RenderSpec.negotiate(hints(Map.of("Accept", "image/webp;q=0")), "png", sizes, qualities));
+        assertNull(RenderSpec.negotiate(modern, "gif", sizes, qualities));
+
+        // Ancho mayor que todos los permitidos: formato negociado a tamano original
+        ClientHints wide = hints(Map.of("Accept", "image/webp", "Width", "4000"));
+        assertEquals("w0-h0-contain-q0.webp", RenderSpec.negotiate(wide, "png", sizes, qualities).canonicalKey());
+    }
+
+    @Test
+    void saveDataServesOneXAtLowestQuality() {
+        ClientHints hints = hints(Map.of("Sec-CH-Viewport-Width", "400", "Sec-CH-DPR", "3", "Save-Data", "on"));
+        assertEquals(400, hints.getTargetWidth());
+        assertEquals(1200, hints(Map.of("Viewport-Width", "400", "DPR", "3")).getTargetWidth());
+
+        RenderSpec spec = RenderSpec.negotiate(hints, "jpg", List.of(320, 640, 1280), List.of(50, 85));
+        assertEquals("w640-h0-contain-q50.jpg", spec.canonicalKey());
+    }
+
+    private ClientHints hints(Map<String, String> headers) {
+        return ClientHints.from(headers::get);
+    }
+
+    private TransformPlan plan(RenderSpec spec, int width, int height) {
+        return planner.plan(spec.toOperations(width, height), width, height, spec.getFormat(),
+                spec.toEncodeOptions());
+    }
+}
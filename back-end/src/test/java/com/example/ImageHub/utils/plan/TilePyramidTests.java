@@ -0,0 +1,56 @@
+package com.example.ImageHub.utils.plan;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TilePyramidTests {
+
+    // 1000x600 con teselas de 256 y solapamiento 1: el nivel maximo es 10 (1024 >= 1000)
+    private final TilePyramid pyramid = new TilePyramid(1000, 600, 256, 1, "jpg");
+
+    @Test
+    void levelsHalveUntilOnePixel() {
+        assertEquals(10, pyramid.getMaxLevel());
+        assertEquals(1000, pyramid.levelWidth(10));
+        assertEquals(500, pyramid.levelWidth(9));
+        assertEquals(150, pyramid.levelHeight(8));
+        assertEquals(1, pyramid.levelWidth(0));
+        assertEquals(1, pyramid.levelHeight(0));
+        assertEquals(4, pyramid.columns(10));
+        assertEquals(3, pyramid.rows(10));
+        assertEquals(0, new TilePyramid(1, 1, 256, 0, "png").getMaxLevel());
+    }
+
+    @Test
+    void interiorTilesOverlapTheirNeighbours() {
+        assertEquals(new Rectangle(0, 0, 257, 257), pyramid.tileBounds(10, 0, 0));
+        assertEquals(new Rectangle(255, 255, 258, 258), pyramid.tileBounds(10, 1, 1));
+        // La ultima columna y fila se recortan al borde del nivel
+        assertEquals(new Rectangle(767, 511, 233, 89), pyramid.tileBounds(10, 3, 2));
+    }
+
+    @Test
+    void sourceRegionScalesToFullResolution() {
+        // Nivel 9: factor 2, 500x300, dos columnas
+        assertEquals(new Rectangle(510, 0, 490, 514), pyramid.sourceRegion(9, 1, 0));
+        assertEquals(new Rectangle(0, 0, 1000, 600), pyramid.sourceRegion(8, 0, 0));
+    }
+
+    @Test
+    void tilesOutsideThePyramidAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> pyramid.tileBounds(11, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> pyramid.tileBounds(10, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> pyramid.tileBounds(9, 0, 2));
+    }
+
+    @Test
+    void descriptorFollowsDeepZoomSchema() {
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\" TileSize=\"256\" "
+                        + "Overlap=\"1\" Format=\"jpg\"><Size Width=\"1000\" Height=\"600\"/></Image>",
+                pyramid.toDzi());
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.ImageHub.utils.plan;
+
+import com.example.ImageHub.dto.imgDTO.Crop;
+import com.example.ImageHub.dto.imgDTO.Encoding;
+import com.example.ImageHub.dto.imgDTO.Filters;
+import com.example.ImageHub.dto.imgDTO.Resize;
+import com.example.ImageHub.dto.imgDTO.TransformOperationDto;
+import com.example.ImageHub.dto.imgDTO.TransformPipelineRequestDto;
+import com.example.ImageHub.dto.imgDTO.TransformRequestDto;
+import com.example.ImageHub.utils.codec.EncodeOptions;
+import com.example.ImageHub.utils.codec.Orientation;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformPlannerTests {
+
+    private final TransformPlanner planner = new TransformPlanner();
+
+    @Test
+    void cropIsPushedDownBeforeResample() {
+        TransformRequestDto request = TransformRequestDto.builder()
+                .resize(new Resize(1000, 500))
+                .crop(Crop.builder().x(100).y(50).width(10).height(20).build())
+                .build();
+
+        TransformPlan plan = planner.plan(request, 2000, 1000, "png");
+
+        assertEquals(2, plan.getSteps().size());
+        CropStep crop = assertInstanceOf(CropStep.class, plan.getSteps().get(0));
+        assertEquals(20, crop.getOutputWidth());
+        assertEquals(40, crop.getOutputHeight());
+        assertInstanceOf(ResampleStep.class, plan.getSteps().get(1));
+        assertEquals(10, plan.getOutputWidth());
+        assertEquals(20, plan.getOutputHeight());
+    }
+
+    @Test
+    void resizeAndRotateAreFusedIntoOneResample() {
+        TransformRequestDto request = TransformRequestDto.builder()
+                .resize(new Resize(400, 300))
+                .rotate(30)
+                .build();
+
+        TransformPlan plan = planner.plan(request, 800, 600, "jpg");
+
+        assertEquals(1, plan.getSteps().size());
+        assertInstanceOf(ResampleStep.class, plan.getSteps().get(0));
+    }
+
+    @Test
+    void filtersRunAtSmallestResolution() {
+        TransformRequestDto downscale = TransformRequestDto.builder()
+                .resize(new Resize(100, 100))
+                .filters(Filters.builder().grayscale(true).build())
+                .build();
+        List<PlanStep> steps = planner.plan(downscale, 1000, 1000, "png").getSteps();
+        assertInstanceOf(ColorFilterStep.class, steps.get(steps.size() - 1));
+
+        TransformRequestDto upscale = TransformRequestDto.builder()
+                .resize(new Resize(1000, 1000))
+                .filters(Filters.builder().sepia(true).build())
+                .build();
+        assertInstanceOf(ColorFilterStep.class, planner.plan(upscale, 100, 100, "png").getSteps().get(0));
+    }
+
+    @Test
+    void secondRotationStartsNewResample() {
+        TransformPlan plan = planner.plan(
+                List.of(Operation.rotate(30), Operation.rotate(-30)), 100, 100, "png");
+
+        assertEquals(2, plan.getSteps().size());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() {
+        TransformRequestDto outOfBounds = TransformRequestDto.builder()
+                .crop(Crop.builder().x(50).y(50).width(10).height(10).build())
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(outOfBounds, 40, 40, "png"));
+
+        TransformRequestDto badFormat = TransformRequestDto.builder().format("tiff").build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(badFormat, 40, 40, "png"));
+
+        // WebP es sin perdida: una calidad explicita no se puede aplicar
+        TransformRequestDto lossyWebp = TransformRequestDto.builder()
+                .format("webp")
+                .encoding(Encoding.builder().quality(0.5f).build())
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(lossyWebp, 40, 40, "png"));
+    }
+
+    @Test
+    void pipelineAllowsRepeatedOperationsInOrder() {
+        TransformPipelineRequestDto request = TransformPipelineRequestDto.builder()
+                .operations(List.of(
+                        TransformOperationDto.builder().type("resize").width(500).height(500).build(),
+                        TransformOperationDto.builder().type("crop").x(0).y(0).width(400).height(400).build(),
+                        TransformOperationDto.builder().type("resize").width(200).height(200).build(),
+                        TransformOperationDto.builder().type("filter").filter("sepia").build(),
+                        TransformOperationDto.builder().type("filter").filter("grayscale").build()))
+                .format("jpg")
+                .build();
+
+        TransformPlan plan = planner.plan(request, 1000, 1000, "png");
+
+        assertEquals(3, plan.getSteps().size());
+        assertEquals(200, plan.getOutputWidth());
+        assertEquals("jpg", plan.getFormat());
+        assertTrue(plan.getEstimatedCost() > 1000L * 1000);
+    }
+
+    @Test
+    void pipelineLimitsAreEnforced() {
+        TransformOperationDto rotate = TransformOperationDto.builder().type("rotate").angle(90.0).build();
+        TransformPipelineRequestDto tooMany = TransformPipelineRequestDto.builder()
+                .operations(Collections.nCopies(21, rotate))
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(tooMany, 100, 100, "png"));
+
+        TransformPipelineRequestDto tooExpensive = TransformPipelineRequestDto.builder()
+                .operations(List.of(TransformOperationDto.builder().type("resize").width(50000).height(50000).build()))
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(tooExpensive, 100, 100, "png"));
+    }
+
+    @Test
+    void executedPlanMatchesRequestedGeometry() {
+        BufferedImage source = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 200; x++) {
+                source.setRGB(x, y, x < 100 ? 0xff0000 : 0x0000ff);
+            }
+        }
+
+        TransformRequestDto request = TransformRequestDto.builder()
+                .resize(new Resize(100, 50))
+                .crop(Crop.builder().x(60).y(10).width(30).height(30).build())
+                .filters(Filters.builder().grayscale(true).build())
+                .build();
+
+        BufferedImage result = planner.plan(request, 200, 100, "png").execute(source);
+
+        assertEquals(30, result.getWidth());
+        assertEquals(30, result.getHeight());
+        int expected = ColorFilter.GRAYSCALE.apply(0xff0000ff) & 0xffffff;
+        assertEquals(expected, result.getRGB(15, 15) & 0xffffff);
+    }
+
+    @Test
+    void filtersDoNotModifyTheSource() {
+        BufferedImage source = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(5, 5, 0xff0000);
+        TransformRequestDto request = TransformRequestDto.builder()
+                .filters(Filters.builder().grayscale(true).build())
+                .build();
+
+        // La misma fuente decodificada puede alimentar varios planes
+        BufferedImage result = planner.plan(request, 10, 10, "png").execute(source);
+
+        assertNotSame(source, result);
+        assertEquals(0xff0000, source.getRGB(5, 5) & 0xffffff);
+        assertEquals(ColorFilter.GRAYSCALE.apply(0xffff0000) & 0xffffff, result.getRGB(5, 5) & 0xffffff);
+    }
+
+    @Test
+    void exifOrientationIsFusedAsExactTransposition() {
+        // Raster almacenado 4x2 con la marca ROTATE_90 (se muestra girado 90 grados a la derecha)
+        BufferedImage source = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 4; x++) {
+                source.setRGB(x, y, (x << 8) | y);
+            }
+        }
+
+        TransformPlan plan = planner.plan(List.of(), 4, 2, "png", EncodeOptions.DEFAULT, Orientation.ROTATE_90);
+        assertEquals(2, plan.getOutputWidth());
+        assertEquals(4, plan.getOutputHeight());
+        assertTrue(((ResampleStep) plan.getSteps().get(0)).isTransposition());
+
+        BufferedImage result = plan.execute(source);
+        // La esquina superior izquierda almacenada queda arriba a la derecha
+        assertEquals(0x000000, result.getRGB(1, 0) & 0xffffff);
+        assertEquals(0x000300, result.getRGB(1, 3) & 0xffffff);
+        assertEquals(0x000301, result.getRGB(0, 3) & 0xffffff);
+
+        // Un recorte se expresa sobre la imagen orientada y se empuja a la fuente
+        TransformPlan cropped = planner.plan(List.of(Operation.crop(0, 0, 2, 1)), 4, 2, "png",
+                EncodeOptions.DEFAULT, Orientation.ROTATE_90);
+        CropStep crop = (CropStep) cropped.getSteps().get(0);
+        assertEquals(1, crop.getOutputWidth());
+        assertEquals(2, crop.getOutputHeight());
+    }
+
+    @Test
+    void previewRunsTheSamePlanOnTheProxy() {
+        TransformRequestDto request = TransformRequestDto.builder()
+                .resize(new Resize(2000, 1000))
+                .crop(Crop.builder().x(100).y(50).width(800).height(400).build())
+                .rotate(90)
+                .filters(Filters.builder().grayscale(true).build())
+                .build();
+
+        TransformPlan full = planner.plan(request, 4000, 2000, "png");
+        TransformPlan preview = planner.planPreview(request, 4000, 2000, "png", Orientation.NORMAL, 1000, 500);
+
+        // Un cuarto de la resolucion, con la geometria fusionada en un solo remuestreo
+        assertEquals(full.getOutputWidth() / 4, preview.getOutputWidth());
+        assertEquals(full.getOutputHeight() / 4, preview.getOutputHeight());
+        assertEquals(1, preview.getSteps().stream().filter(ResampleStep.class::isInstance).count());
+        assertTrue(preview.getEstimatedCost() < full.getEstimatedCost());
+        assertEquals(1, preview.getEncodeOptions().getCompressionLevel());
+    }
+}